@@ -1,8 +1,10 @@
 package com.google.rolecall;
 
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.User;
 import com.google.rolecall.repos.UserRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.ChangeLogServices;
 import com.google.rolecall.util.StorageService;
 
 import java.text.ParseException;
@@ -13,21 +15,32 @@ import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
-/* Methods to be run before and after the server loads. */
+/*
+ * Methods to be run before and after the server loads. The admin and storage checks run in the
+ * background once the server is up, and the loader reports as a health indicator so the
+ * readiness group only accepts traffic after they finish.
+ */
 @Component
-public class ApplicationLoader implements ApplicationRunner {
+public class ApplicationLoader implements ApplicationRunner, HealthIndicator {
 
   private Logger logger = Logger.getLogger(ApplicationLoader.class.getName());
 
   private final Environment environment;
   private final UserRepository userRepo;
+  private final ChangeLogServices changeLog;
   private final StorageService storageService;
+  private final TaskExecutor taskExecutor;
+  private volatile Health status = Health.outOfService().build();
   private String adminFirstName;
   private String adminLastName;
   private String adminEmail;
@@ -35,16 +48,32 @@ public class ApplicationLoader implements ApplicationRunner {
   @Profile({ "dev", "prod", "qa" })
   @Override
   public void run(ApplicationArguments args) throws Exception {
+    taskExecutor.execute(this::initialize);
+  }
+
+  @Override
+  public Health health() {
+    return status;
+  }
+
+  private void initialize() {
     // Initialize admin if exists, or create one with given information.
     adminFirstName = environment.getProperty("admin.first.name");
     adminLastName = environment.getProperty("admin.last.name");
     adminEmail = environment.getProperty("admin.email");
 
-    Optional<User> possibleAdmin = userRepo.findByEmailIgnoreCase(adminEmail);
+    try {
+      Optional<User> possibleAdmin = userRepo.findByEmailIgnoreCase(adminEmail);
 
-    possibleAdmin.ifPresentOrElse(this::adminExists, this::createAdmin);
+      possibleAdmin.ifPresentOrElse(this::adminExists, this::createAdmin);
 
-    storageService.init();
+      storageService.init();
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "Startup checks failed: " + e.getMessage());
+      status = Health.down(e).build();
+      return;
+    }
+    status = Health.up().build();
   }
 
   private void adminExists(User user) {
@@ -73,6 +102,7 @@ public class ApplicationLoader implements ApplicationRunner {
       return;
     }
     userRepo.save(admin);
+    changeLog.recordChange(ChangeType.USER, admin.getId());
     logger.log(
         Level.WARNING,
         String.format("Admin User Created: %s %s %s", adminFirstName, adminLastName, adminEmail));
@@ -111,6 +141,7 @@ public class ApplicationLoader implements ApplicationRunner {
         .setIsDancer(true)
         .build();
     userRepo.save(user);
+    changeLog.recordChange(ChangeType.USER, user.getId());
   }
 
   private DataCreateError createTestData() {
@@ -155,9 +186,12 @@ public class ApplicationLoader implements ApplicationRunner {
   }
 
   @Autowired
-  public ApplicationLoader(Environment env, UserRepository userRepo, StorageService storageService) {
+  public ApplicationLoader(Environment env, UserRepository userRepo, ChangeLogServices changeLog,
+      StorageService storageService, @Qualifier("startupExecutor") TaskExecutor taskExecutor) {
     this.environment = env;
     this.userRepo = userRepo;
+    this.changeLog = changeLog;
     this.storageService = storageService;
+    this.taskExecutor = taskExecutor;
   }
 }
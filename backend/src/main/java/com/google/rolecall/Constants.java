@@ -6,11 +6,14 @@ public class Constants {
   public static class Mappings {
     public static final String CURRENT_USER = "/api/self";
     public static final String USER_MANAGEMENT = "/api/user";
+    public static final String USER_IMPORT = "/api/user/import";
     public static final String SECTION_MANAGEMENT = "/api/section";
     public static final String CAST_MANAGEMENT = "/api/cast";
     public static final String PERFORMANCE_MANAGEMENT = "/api/performance";
     public static final String UNAVAILABILITY_MANAGEMENT = "/api/unavailable";
     public static final String PROFILE_PICTURE_MANAGEMENT = "/api/profile_picture";
+    public static final String CHANGE_EVENTS = "/api/events";
+    public static final String SYNC = "/api/sync";
   }
 
   public static class RequestParameters {
@@ -25,12 +28,17 @@ public class Constants {
     // public static final String PERF_DATE = "perfdate";
     // public static final String CHECK_UNAVS = "checkUnavs";
     public static final String FILE = "file";
+    public static final String SIZE = "size";
+    public static final String SINCE = "since";
+    public static final String LIMIT = "limit";
+    public static final String NAME = "name";
   }
 
   public static class Headers {
     public static final String EMAIL = "Email";
     public static final String AUTHORIZATION = "Authorization";
     public static final String WWW_AUTHENTICATE = "www-authenticate";
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
   }
 
   public static class Roles {
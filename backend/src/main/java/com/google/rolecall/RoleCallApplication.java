@@ -1,7 +1,9 @@
 package com.google.rolecall;
 
+import com.google.rolecall.config.SecretPrefetcher;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
@@ -12,7 +14,12 @@ import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 public class RoleCallApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(RoleCallApplication.class, args);
+    SpringApplication application = new SpringApplication(RoleCallApplication.class);
+    // Secrets are fetched in parallel while the context is built.
+    application.addListeners(new SecretPrefetcher());
+    // Records startup step timings for the actuator startup endpoint.
+    application.setApplicationStartup(new BufferingApplicationStartup(2048));
+    application.run(args);
   }
 
   @Bean
@@ -4,18 +4,22 @@ import java.util.concurrent.Executor;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /* 
  * This class enables asyncronous calls by initializing a default thread executor and an
  * accompanying exception handler for all asyncronous methods in the application. Targets
- * methods annotated with @async.
+ * methods annotated with @async. Also runs methods annotated with @Scheduled.
  */
 @EnableAsync
+@EnableScheduling
 @Configuration
 public class AsyncConfig implements AsyncConfigurer {
 
@@ -45,6 +49,52 @@ public class AsyncConfig implements AsyncConfigurer {
     return executor;
   }
 
+  /* Runs the one off startup checks in ApplicationLoader on a thread of their own. */
+  @Bean("startupExecutor")
+  public SimpleAsyncTaskExecutor startupExecutor() {
+    return new SimpleAsyncTaskExecutor("startup_executor_thread");
+  }
+
+  /*
+   * Small bounded pool for generating profile picture thumbnails off the request thread.
+   * Work beyond the queue is rejected rather than piling decoded images up in memory.
+   */
+  @Bean("thumbnailExecutor")
+  public ThreadPoolTaskExecutor thumbnailExecutor() {
+    int poolSize = Integer.parseInt(env.getProperty("thumbnail.pool.size", "2"));
+    int queueCapacity = Integer.parseInt(env.getProperty("thumbnail.queue.capacity", "50"));
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setAllowCoreThreadTimeOut(true);
+    executor.setThreadNamePrefix("thumbnail_executor_thread");
+
+    return executor;
+  }
+
+  /*
+   * Threads writing change events to server sent event subscribers. Each subscriber has at
+   * most one task queued at a time, so the queue is bounded by the number of subscribers.
+   */
+  @Bean("eventExecutor")
+  public ThreadPoolTaskExecutor eventExecutor() {
+    int poolSize = Integer.parseInt(env.getProperty("event.pool.size", "2"));
+    int queueCapacity = Integer.parseInt(env.getProperty("event.queue.capacity", "1000"));
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setAllowCoreThreadTimeOut(true);
+    executor.setThreadNamePrefix("event_executor_thread");
+
+    return executor;
+  }
+
   @Override
   public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
     // TODO: Make comprehensive expetion handler
@@ -0,0 +1,31 @@
+package com.google.rolecall.config;
+
+import com.google.rolecall.jsonobjects.CastInfo;
+import com.google.rolecall.jsonobjects.SectionInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.util.VersionedCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/*
+ * Caches of the SectionInfo and CastInfo served by the list endpoints, so each is only rebuilt
+ * from its entity tree after it changes. ChangeLogServices invalidates them as changes commit.
+ */
+@Configuration
+public class CacheConfig {
+
+  private static final int DEFAULT_MAX_ENTRIES = 2000;
+
+  @Bean
+  public VersionedCache<SectionInfo> sectionInfoCache(Environment env) {
+    return new VersionedCache<>(ChangeType.SECTION, env.getProperty(
+        "rolecall.info.cache.section.max-entries", Integer.class, DEFAULT_MAX_ENTRIES));
+  }
+
+  @Bean
+  public VersionedCache<CastInfo> castInfoCache(Environment env) {
+    return new VersionedCache<>(ChangeType.CAST, env.getProperty(
+        "rolecall.info.cache.cast.max-entries", Integer.class, DEFAULT_MAX_ENTRIES));
+  }
+}
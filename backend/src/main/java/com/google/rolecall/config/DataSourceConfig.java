@@ -2,8 +2,6 @@ package com.google.rolecall.config;
 
 import com.google.api.gax.rpc.ApiException;
 import com.google.cloud.secretmanager.v1.AccessSecretVersionResponse;
-import com.google.cloud.secretmanager.v1.SecretManagerServiceClient;
-import com.google.cloud.secretmanager.v1.SecretVersionName;
 import com.google.common.annotations.VisibleForTesting;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -117,13 +115,7 @@ public class DataSourceConfig {
   @VisibleForTesting
   AccessSecretVersionResponse getSecretResponse(String projectId, String secretName)
       throws Exception {
-    AccessSecretVersionResponse response;
-    try (SecretManagerServiceClient client = SecretManagerServiceClient.create()) {
-      SecretVersionName name = SecretVersionName.of(projectId, secretName, "latest");
-      response = client.accessSecretVersion(name);
-    }
-
-    return response;
+    return SecretPrefetcher.fetch(projectId, secretName);
   }
 
   @Autowired
@@ -1,5 +1,7 @@
 package com.google.rolecall.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -18,6 +21,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
  * Initializes the entity manager factory for all transactions.
  * Does NOT initialize the DataSource which is setup via configurations in
  * application-dev.properties in Dev.
+ * The schema is owned by the Flyway migrations in resources/db/migration, which run before
+ * this factory is created, so Hibernate neither generates nor inspects it.
  */
 @Configuration
 @EnableJpaRepositories("com.google.rolecall.repos")
@@ -26,13 +31,14 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class RepositoryConfig {
 
   private final DataSource dataSource;
+  private final Environment env;
 
   @Bean
   @Primary
   public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
 
     HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
-    vendorAdapter.setGenerateDdl(true);
+    vendorAdapter.setGenerateDdl(false);
 
     LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
 
@@ -41,6 +47,16 @@ public class RepositoryConfig {
     factory.setPackagesToScan("com.google.rolecall.models");
     factory.setDataSource(dataSource);
 
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("hibernate.hbm2ddl.auto", "none");
+    // Group inserts from saveAll, such as bulk user import, into JDBC batches.
+    properties.put("hibernate.jdbc.batch_size", 50);
+    properties.put("hibernate.order_inserts", true);
+    // Logs the statements each session ran, for checking queries stay constant as data grows.
+    properties.put("hibernate.generate_statistics",
+        env.getProperty("rolecall.jpa.statistics", Boolean.class, false));
+    factory.setJpaPropertyMap(properties);
+
     return factory;
   }
 
@@ -57,7 +73,8 @@ public class RepositoryConfig {
   }
 
   @Autowired
-  public RepositoryConfig(DataSource dataSource) {
+  public RepositoryConfig(DataSource dataSource, Environment env) {
     this.dataSource = dataSource;
+    this.env = env;
   }
 }
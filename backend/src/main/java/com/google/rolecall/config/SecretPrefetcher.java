@@ -0,0 +1,96 @@
+package com.google.rolecall.config;
+
+import com.google.cloud.secretmanager.v1.AccessSecretVersionResponse;
+import com.google.cloud.secretmanager.v1.SecretManagerServiceClient;
+import com.google.cloud.secretmanager.v1.SecretVersionName;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
+
+/*
+ * Starts fetching every secret the prod and qa profiles need, in parallel, as soon as the
+ * environment is known and before any beans are created. Beans that need a secret collect the
+ * already running request through fetch instead of each making a blocking call of their own.
+ */
+public class SecretPrefetcher implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+  private static final String[] SECRET_PROPERTIES = {"cloud.secret.name", "cloud.secret.clientid"};
+
+  private static final Map<String, CompletableFuture<AccessSecretVersionResponse>> pending =
+      new ConcurrentHashMap<>();
+
+  private static Logger logger = Logger.getLogger(SecretPrefetcher.class.getName());
+
+  @Override
+  public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+    ConfigurableEnvironment env = event.getEnvironment();
+    if (!env.acceptsProfiles(Profiles.of("prod", "qa"))) {
+      return;
+    }
+
+    String projectId = env.getProperty("spring.cloud.gcp.projectId");
+    ExecutorService executor = Executors.newFixedThreadPool(SECRET_PROPERTIES.length, r -> {
+      Thread thread = new Thread(r, "secret_prefetch_thread");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (String property : SECRET_PROPERTIES) {
+      String secretName = env.getProperty(property);
+      if (projectId == null || secretName == null) {
+        continue;
+      }
+      pending.put(key(projectId, secretName), CompletableFuture.supplyAsync(() -> {
+        try {
+          return access(projectId, secretName);
+        } catch (Exception e) {
+          logger.log(Level.WARNING, String.format("Prefetch of %s failed", secretName));
+          throw new CompletionException(e);
+        }
+      }, executor));
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * Returns the latest version of a secret, waiting on the prefetched request when one was
+   * started and calling the secret manager directly otherwise. Failures are rethrown as the
+   * exception the secret manager client raised.
+   *
+   * @param projectId GCP project holding the secret.
+   * @param secretName Name of the secret.
+   * @return The secret manager response for the latest version.
+   */
+  public static AccessSecretVersionResponse fetch(String projectId, String secretName)
+      throws Exception {
+    CompletableFuture<AccessSecretVersionResponse> prefetched =
+        pending.remove(key(projectId, secretName));
+    if (prefetched == null) {
+      return access(projectId, secretName);
+    }
+    try {
+      return prefetched.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  private static AccessSecretVersionResponse access(String projectId, String secretName)
+      throws Exception {
+    try (SecretManagerServiceClient client = SecretManagerServiceClient.create()) {
+      return client.accessSecretVersion(SecretVersionName.of(projectId, secretName, "latest"));
+    }
+  }
+
+  private static String key(String projectId, String secretName) {
+    return projectId + "/" + secretName;
+  }
+}
@@ -0,0 +1,23 @@
+package com.google.rolecall.config;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Startup tuning for spring.main.lazy-initialization, which prod and qa enable so beans are only
+ * built when a request first needs them. The database is still connected and migrated eagerly
+ * because every endpoint depends on it. Services that run @Scheduled work are marked
+ * @Lazy(false), since a bean no request ever needs would otherwise never schedule its job.
+ */
+@Configuration
+public class StartupConfig {
+
+  @Bean
+  static LazyInitializationExcludeFilter eagerDatabaseBeans() {
+    return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class,
+        EntityManagerFactory.class);
+  }
+}
@@ -0,0 +1,41 @@
+package com.google.rolecall.config;
+
+import com.google.rolecall.util.AssetCache;
+import com.google.rolecall.util.CachingStorageService;
+import com.google.rolecall.util.StorageService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/*
+ * Puts an in memory AssetCache in front of the StorageService when
+ * rolecall.asset.cache.max-bytes is positive. Local development leaves it unset so files are
+ * still served straight from disk.
+ */
+@Configuration
+public class StorageConfig {
+
+  static final String MAX_BYTES_PROPERTY = "rolecall.asset.cache.max-bytes";
+
+  @Bean
+  public AssetCache assetCache(Environment env) {
+    return new AssetCache(env.getProperty(MAX_BYTES_PROPERTY, Long.class, 0L));
+  }
+
+  @Bean
+  static BeanPostProcessor cachingStorageServicePostProcessor(Environment env,
+      ObjectProvider<AssetCache> assetCache) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof StorageService && !(bean instanceof CachingStorageService)
+            && env.getProperty(MAX_BYTES_PROPERTY, Long.class, 0L) > 0) {
+          return new CachingStorageService((StorageService) bean, assetCache.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -49,7 +49,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         .addFilterAfter(getCustomResponseAttributes(), BasicAuthenticationFilter.class)
         .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
         .sessionFixation().migrateSession()
-        .and().authorizeRequests().antMatchers("/api/**").authenticated()
+        .and().authorizeRequests().antMatchers("/api/**", "/actuator/startup").authenticated()
         .and().logout()
         .deleteCookies("SESSIONID").invalidateHttpSession(true)
         .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
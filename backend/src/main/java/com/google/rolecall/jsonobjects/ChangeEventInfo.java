@@ -0,0 +1,53 @@
+package com.google.rolecall.jsonobjects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.auto.value.AutoValue;
+
+/*
+ * Json representation of a committed change to a performance, cast, section, user or
+ * unavailability.
+ */
+@AutoValue
+@JsonDeserialize(builder = AutoValue_ChangeEventInfo.Builder.class)
+public abstract class ChangeEventInfo {
+  @JsonProperty("type")
+  public abstract String type();
+
+  @JsonProperty("id")
+  public abstract Integer id();
+
+  /* Position of the change in the feed. Later changes have larger versions. */
+  @JsonProperty("version")
+  public abstract Long version();
+
+  /* Every ChangeEventInfo should be unique unless it's being comapred to itself */
+  @Override
+  public boolean equals(Object object) {
+    return this == object;
+  }
+
+  /* Object hashcode */
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  public static Builder newBuilder() {
+    return new AutoValue_ChangeEventInfo.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    @JsonProperty("type")
+    public abstract Builder setType(String type);
+
+    @JsonProperty("id")
+    public abstract Builder setId(Integer id);
+
+    @JsonProperty("version")
+    public abstract Builder setVersion(Long version);
+
+    public abstract ChangeEventInfo build();
+  }
+}
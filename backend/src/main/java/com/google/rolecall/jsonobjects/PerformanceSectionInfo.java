@@ -31,6 +31,11 @@ public abstract class PerformanceSectionInfo {
   @JsonProperty("positions")
   public abstract List<PerformancePositionInfo> positions();
 
+  /* Casts whose members replace the positions of this section, copied by the server. */
+  @Nullable
+  @JsonProperty("castIds")
+  public abstract List<Integer> castIds();
+
   @Nullable
   public abstract Boolean delete();
 
@@ -67,6 +72,9 @@ public abstract class PerformanceSectionInfo {
     @JsonProperty("positions")
     public abstract Builder setPositions(List<PerformancePositionInfo> performancePositions);
 
+    @JsonProperty("castIds")
+    public abstract Builder setCastIds(List<Integer> castIds);
+
     @JsonProperty("delete")
     public abstract Builder setDelete(Boolean delete);
 
@@ -0,0 +1,94 @@
+package com.google.rolecall.jsonobjects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+/*
+ * Json representation of the latest state of one synced entity. Exactly one of the entity
+ * properties is set, matching type, unless the entity was deleted.
+ */
+@AutoValue
+@JsonDeserialize(builder = AutoValue_SyncChangeInfo.Builder.class)
+public abstract class SyncChangeInfo {
+  @JsonProperty("type")
+  public abstract String type();
+
+  @JsonProperty("id")
+  public abstract Integer id();
+
+  @JsonProperty("version")
+  public abstract Long version();
+
+  @JsonProperty("deleted")
+  public abstract Boolean deleted();
+
+  @Nullable
+  @JsonProperty("performance")
+  public abstract PerformanceInfo performance();
+
+  @Nullable
+  @JsonProperty("cast")
+  public abstract CastInfo cast();
+
+  @Nullable
+  @JsonProperty("section")
+  public abstract SectionInfo section();
+
+  @Nullable
+  @JsonProperty("user")
+  public abstract UserInfo user();
+
+  @Nullable
+  @JsonProperty("unavailability")
+  public abstract UnavailabilityInfo unavailability();
+
+  /* Every SyncChangeInfo should be unique unless it's being comapred to itself */
+  @Override
+  public boolean equals(Object object) {
+    return this == object;
+  }
+
+  /* Object hashcode */
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  public static Builder newBuilder() {
+    return new AutoValue_SyncChangeInfo.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    @JsonProperty("type")
+    public abstract Builder setType(String type);
+
+    @JsonProperty("id")
+    public abstract Builder setId(Integer id);
+
+    @JsonProperty("version")
+    public abstract Builder setVersion(Long version);
+
+    @JsonProperty("deleted")
+    public abstract Builder setDeleted(Boolean deleted);
+
+    @JsonProperty("performance")
+    public abstract Builder setPerformance(PerformanceInfo performance);
+
+    @JsonProperty("cast")
+    public abstract Builder setCast(CastInfo cast);
+
+    @JsonProperty("section")
+    public abstract Builder setSection(SectionInfo section);
+
+    @JsonProperty("user")
+    public abstract Builder setUser(UserInfo user);
+
+    @JsonProperty("unavailability")
+    public abstract Builder setUnavailability(UnavailabilityInfo unavailability);
+
+    public abstract SyncChangeInfo build();
+  }
+}
@@ -0,0 +1,53 @@
+package com.google.rolecall.jsonobjects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.auto.value.AutoValue;
+import java.util.List;
+
+/*
+ * Json representation of one page of changes. Clients pass version as since in the next
+ * request, and keep requesting while hasMore is true.
+ */
+@AutoValue
+@JsonDeserialize(builder = AutoValue_SyncInfo.Builder.class)
+public abstract class SyncInfo {
+  @JsonProperty("version")
+  public abstract Long version();
+
+  @JsonProperty("hasMore")
+  public abstract Boolean hasMore();
+
+  @JsonProperty("changes")
+  public abstract List<SyncChangeInfo> changes();
+
+  /* Every SyncInfo should be unique unless it's being comapred to itself */
+  @Override
+  public boolean equals(Object object) {
+    return this == object;
+  }
+
+  /* Object hashcode */
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  public static Builder newBuilder() {
+    return new AutoValue_SyncInfo.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    @JsonProperty("version")
+    public abstract Builder setVersion(Long version);
+
+    @JsonProperty("hasMore")
+    public abstract Builder setHasMore(Boolean hasMore);
+
+    @JsonProperty("changes")
+    public abstract Builder setChanges(List<SyncChangeInfo> changes);
+
+    public abstract SyncInfo build();
+  }
+}
@@ -30,6 +30,10 @@ public abstract class UserAssetInfo {
   @JsonProperty("ownerId")
   public abstract Integer ownerId();
 
+  @Nullable
+  @JsonProperty("fileName")
+  public abstract String fileName();
+
   /* Every UserInfo should be unique unless it's being comapred to itself */
   @Override
   public boolean equals(Object object) {
@@ -63,6 +67,9 @@ public abstract class UserAssetInfo {
     @JsonProperty("ownerId")
     public abstract Builder setOwnerId(Integer ownerId);
 
+    @JsonProperty("fileName")
+    public abstract Builder setFileName(String fileName);
+
     public abstract UserAssetInfo build();
   }
 }
@@ -0,0 +1,59 @@
+package com.google.rolecall.jsonobjects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+/* Json representation of the outcome of importing a single row of a bulk user upload. */
+@AutoValue
+@JsonDeserialize(builder = AutoValue_UserImportRowInfo.Builder.class)
+public abstract class UserImportRowInfo {
+  @JsonProperty("row")
+  public abstract Integer row();
+
+  @Nullable
+  @JsonProperty("email")
+  public abstract String email();
+
+  @Nullable
+  @JsonProperty("userId")
+  public abstract Integer userId();
+
+  @Nullable
+  @JsonProperty("error")
+  public abstract String error();
+
+  /* Every UserImportRowInfo should be unique unless it's being comapred to itself */
+  @Override
+  public boolean equals(Object object) {
+    return this == object;
+  }
+
+  /* Object hashcode */
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  public static Builder newBuilder() {
+    return new AutoValue_UserImportRowInfo.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    @JsonProperty("row")
+    public abstract Builder setRow(Integer row);
+
+    @JsonProperty("email")
+    public abstract Builder setEmail(String email);
+
+    @JsonProperty("userId")
+    public abstract Builder setUserId(Integer userId);
+
+    @JsonProperty("error")
+    public abstract Builder setError(String error);
+
+    public abstract UserImportRowInfo build();
+  }
+}
@@ -0,0 +1,38 @@
+package com.google.rolecall.models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/* Stored file shared by every UserAsset with the same content, counted by its references. */
+@Entity
+@Table
+public class AssetBlob {
+
+  // Lowercase hex SHA-256 of the content followed by the file extension.
+  @Id
+  @Column(length = 80)
+  private String fileName;
+
+  @Column(nullable = false)
+  private int refCount;
+
+  @Column(nullable = false)
+  private long size;
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public int getRefCount() {
+    return refCount;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public AssetBlob() {
+  }
+}
@@ -0,0 +1,49 @@
+package com.google.rolecall.models;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+
+/* Where a scan over stored files stopped, so the next run resumes instead of starting over. */
+@Entity
+@Table
+public class AssetScanCursor {
+
+  @Id
+  private String scanName;
+
+  // Type being listed and the last file name reconciled, or null to start the type.
+  @Enumerated(EnumType.STRING)
+  private AssetType type;
+
+  private String lastFileName;
+
+  public String getScanName() {
+    return scanName;
+  }
+
+  public AssetType getType() {
+    return type;
+  }
+
+  public String getLastFileName() {
+    return lastFileName;
+  }
+
+  public void moveTo(AssetType type, String lastFileName) {
+    this.type = type;
+    this.lastFileName = lastFileName;
+  }
+
+  public AssetScanCursor(String scanName, AssetType type) {
+    this.scanName = scanName;
+    this.type = type;
+  }
+
+  public AssetScanCursor() {
+  }
+}
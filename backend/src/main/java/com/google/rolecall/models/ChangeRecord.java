@@ -0,0 +1,80 @@
+package com.google.rolecall.models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/*
+ * Latest change to one performance, cast, section, user or unavailability. The version comes
+ * from a global sequence advanced as the change commits, so versions follow commit order and
+ * a client that has seen version N only needs the records above N. A deleted entity keeps its
+ * record as a tombstone.
+ */
+@Entity
+@Table
+public class ChangeRecord {
+
+  public enum ChangeType {
+    PERFORMANCE,
+    CAST,
+    SECTION,
+    USER,
+    UNAVAILABILITY,
+  }
+
+  @Id
+  @Column(length = 64)
+  private String id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 32)
+  private ChangeType type;
+
+  @Column(nullable = false)
+  private Integer entityId;
+
+  @Column(nullable = false)
+  private Long version;
+
+  @Column(nullable = false)
+  private boolean deleted;
+
+  /* Key of the record for an entity. */
+  public static String idOf(ChangeType type, Integer entityId) {
+    return type.name() + ":" + entityId;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public ChangeType getType() {
+    return type;
+  }
+
+  public Integer getEntityId() {
+    return entityId;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public boolean isDeleted() {
+    return deleted;
+  }
+
+  public ChangeRecord(ChangeType type, Integer entityId, Long version, boolean deleted) {
+    this.id = idOf(type, entityId);
+    this.type = type;
+    this.entityId = entityId;
+    this.version = version;
+    this.deleted = deleted;
+  }
+
+  public ChangeRecord() {
+  }
+}
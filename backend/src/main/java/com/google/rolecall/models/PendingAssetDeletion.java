@@ -0,0 +1,105 @@
+package com.google.rolecall.models;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+
+/*
+ * Stored file waiting to be deleted. Rows are written in the transaction that stops referencing
+ * the file so a file is never deleted for a change that rolled back, and never forgotten for
+ * one that committed.
+ */
+@Entity
+@Table
+public class PendingAssetDeletion {
+
+  private static final int MAX_ERROR_LENGTH = 255;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Integer id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private AssetType type;
+
+  @Column(nullable = false)
+  private String fileName;
+
+  @Column(nullable = false)
+  private int attempts = 0;
+
+  @Column(nullable = false)
+  private Timestamp nextAttempt;
+
+  @Column(length = MAX_ERROR_LENGTH)
+  private String lastError;
+
+  private Timestamp claimedUntil;
+
+  public Integer getId() {
+    return id;
+  }
+
+  public AssetType getType() {
+    return type;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public Timestamp getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public Timestamp getClaimedUntil() {
+    return claimedUntil;
+  }
+
+  /* Whether a worker is deleting the file at the given time. */
+  public boolean isClaimedAt(Timestamp time) {
+    return claimedUntil != null && !claimedUntil.before(time);
+  }
+
+  /* Keeps other workers and cancellations away until the time passes. */
+  public void claim(Timestamp claimedUntil) {
+    this.claimedUntil = claimedUntil;
+  }
+
+  /* Records a failed attempt and when to try again, releasing any claim. */
+  public void retryAt(Timestamp nextAttempt, String error) {
+    this.attempts++;
+    this.nextAttempt = nextAttempt;
+    this.claimedUntil = null;
+    if (error != null && error.length() > MAX_ERROR_LENGTH) {
+      error = error.substring(0, MAX_ERROR_LENGTH);
+    }
+    this.lastError = error;
+  }
+
+  public PendingAssetDeletion(AssetType type, String fileName) {
+    this.type = type;
+    this.fileName = fileName;
+    this.nextAttempt = new Timestamp(System.currentTimeMillis());
+  }
+
+  public PendingAssetDeletion() {
+  }
+}
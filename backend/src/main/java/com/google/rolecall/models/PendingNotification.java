@@ -0,0 +1,100 @@
+package com.google.rolecall.models;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/*
+ * Message waiting to be sent to a user as part of their next digest. There is at most one row
+ * per user and subject, such as a performance, holding the latest message about it. Rows are
+ * written in the transaction that makes the change, so a notification is never sent for a
+ * change that rolled back and never lost for one that committed.
+ */
+@Entity
+@Table
+public class PendingNotification {
+
+  @Id
+  @Column(length = 191)
+  private String id;
+
+  @Column(nullable = false)
+  private Integer userId;
+
+  private String email;
+
+  private String phone;
+
+  @Column(nullable = false)
+  private String profile;
+
+  @Column(nullable = false, length = 1024)
+  private String message;
+
+  @Column(nullable = false)
+  private Timestamp firstQueued;
+
+  @Column(nullable = false)
+  private Timestamp lastQueued;
+
+  /* Set while a worker is sending the row, which other workers skip until then. */
+  private Timestamp claimedUntil;
+
+  /* Key of the row holding the latest message for a user about a subject. */
+  public static String idOf(Integer userId, String subject) {
+    return userId + ":" + subject;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Integer getUserId() {
+    return userId;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getPhone() {
+    return phone;
+  }
+
+  public String getProfile() {
+    return profile;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public Timestamp getFirstQueued() {
+    return firstQueued;
+  }
+
+  public Timestamp getLastQueued() {
+    return lastQueued;
+  }
+
+  public Timestamp getClaimedUntil() {
+    return claimedUntil;
+  }
+
+  public PendingNotification(Integer userId, String subject, String email, String phone,
+      String profile, String message, Timestamp queued) {
+    this.id = idOf(userId, subject);
+    this.userId = userId;
+    this.email = email;
+    this.phone = phone;
+    this.profile = profile;
+    this.message = message;
+    this.firstQueued = queued;
+    this.lastQueued = queued;
+  }
+
+  public PendingNotification() {
+  }
+}
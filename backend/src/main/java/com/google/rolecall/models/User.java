@@ -4,9 +4,9 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.google.rolecall.Constants;
 import com.google.rolecall.jsonobjects.UserInfo;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import javax.persistence.Basic;
 import javax.persistence.CascadeType;
@@ -17,16 +17,55 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
-import org.hibernate.annotations.NaturalId;
+import javax.persistence.Transient;
 
 /* Basic user information. */
 @Entity
 @Table
 public class User {
 
+  public enum Role {
+    ADMIN(Constants.Roles.ADMIN),
+    CHOREOGRAPHER(Constants.Roles.CHOREOGRAPHER),
+    DANCER(Constants.Roles.DANCER),
+    OTHER(Constants.Roles.OTHER);
+
+    public final String authority;
+    public final int mask;
+
+    private Role(String authority) {
+      this.authority = authority;
+      this.mask = 1 << ordinal();
+    }
+  }
+
+  public enum Permission {
+    LOGIN(Constants.Permissions.LOGIN),
+    NOTIFICATIONS(Constants.Permissions.NOTIFICATIONS),
+    MANAGE_PERFORMANCES(Constants.Permissions.MANAGE_PERFORMANCES),
+    MANAGE_CASTS(Constants.Permissions.MANAGE_CASTS),
+    MANAGE_BALLETS(Constants.Permissions.MANAGE_BALLETS),
+    MANAGE_ROLES(Constants.Permissions.MANAGE_ROLES),
+    MANAGE_RULES(Constants.Permissions.MANAGE_RULES);
+
+    public final String authority;
+    public final int mask;
+
+    private Permission(String authority) {
+      this.authority = authority;
+      this.mask = 1 << ordinal();
+    }
+  }
+
+  // Authority names for every possible mask, shared by all users.
+  private static final String[][] ROLE_NAMES = namesByMask(Constants.Roles.ROLES);
+  private static final String[][] PERMISSION_NAMES =
+      namesByMask(Constants.Permissions.PERMISSIONS);
+
   @Id
   @GeneratedValue(strategy = GenerationType.AUTO)
   private Integer id;
@@ -43,10 +82,13 @@ public class User {
   @Basic
   private String suffix;
 
-  @NaturalId
   @Column(nullable = false, unique = true)
   private String email;
 
+  /* Lower cased email used for case insensitive lookups through the unique index. */
+  @Column(unique = true)
+  private String emailNormalized;
+
   @Basic
   private String notificationEmail;
 
@@ -103,6 +145,12 @@ public class User {
   @OneToMany(mappedBy = "owner", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
   private List<UserAsset> profilePictures;
 
+  // Derived from the role and permission columns when loaded or built.
+  @Transient
+  private int roleMask;
+  @Transient
+  private int permissionMask;
+
   public Integer getId() {
     return id;
   }
@@ -127,6 +175,10 @@ public class User {
     return email;
   }
 
+  public String getEmailNormalized() {
+    return emailNormalized;
+  }
+
   public String getNotificationEmail() {
     return notificationEmail;
   }
@@ -228,49 +280,96 @@ public class User {
   }
 
   public void removeProfilePicture(UserAsset asset) {
-    if (asset.getOwner().getId() == this.id) {
-      if (this.pictureFile.equals(asset.getFileName())) {
+    if (asset.getOwner().getId().equals(this.id)) {
+      if (asset.getFileName().equals(this.pictureFile)) {
         this.pictureFile = "";
       }
       profilePictures.remove(asset);
     }
   }
 
+  public int getRoleMask() {
+    return roleMask;
+  }
+
+  public int getPermissionMask() {
+    return permissionMask;
+  }
+
+  public boolean hasRole(Role role) {
+    return (roleMask & role.mask) != 0;
+  }
+
+  /* Admins implicitly hold every permission except notifications. */
+  public boolean hasPermission(Permission permission) {
+    return (permissionMask & permission.mask) != 0;
+  }
+
   public String[] getRoles() {
-    List<Boolean> roleIn = new ArrayList<>();
-    roleIn.add(isAdmin()); // ADMIN
-    roleIn.add(isChoreographer()); // CHOREOGRAPHER
-    roleIn.add(isDancer()); // DANCER
-    roleIn.add(isOther()); // OTHER
-
-    ArrayList<String> rolesOut = new ArrayList<>();
-    for (int i = 0; i < Constants.Roles.ROLES.length; i++) {
-      if (roleIn.get(i)) {
-        rolesOut.add(Constants.Roles.ROLES[i]);
-      }
-    }
-    String[] out = new String[rolesOut.size()];
-    return rolesOut.toArray(out);
+    return ROLE_NAMES[roleMask].clone();
   }
 
   public String[] getPermissions() {
-    List<Boolean> permissionsIn = new ArrayList<>();
-    permissionsIn.add(isAdmin() || canLogin()); // LOGIN
-    permissionsIn.add(recievesNotifications()); // NOTIFICATIONS
-    permissionsIn.add(isAdmin() || canManagePerformances()); // MANGAGE_PERFORMANCES
-    permissionsIn.add(isAdmin() || canManageCasts()); // MANAGE_CASTS
-    permissionsIn.add(isAdmin() || canManagePieces()); // MANAGE_BALLETS
-    permissionsIn.add(isAdmin() || canManageRoles()); // MANAGE_ROLES
-    permissionsIn.add(isAdmin() || canManageRules()); // MANAGE_RULES
-
-    ArrayList<String> permissionsOut = new ArrayList<>();
-    for (int i = 0; i < Constants.Roles.ROLES.length; i++) {
-      if (permissionsIn.get(i)) {
-        permissionsOut.add(Constants.Roles.ROLES[i]);
+    return PERMISSION_NAMES[permissionMask].clone();
+  }
+
+  @PostLoad
+  void computeMasks() {
+    int roles = 0;
+    if (isAdmin) {
+      roles |= Role.ADMIN.mask;
+    }
+    if (isChoreographer) {
+      roles |= Role.CHOREOGRAPHER.mask;
+    }
+    if (isDancer) {
+      roles |= Role.DANCER.mask;
+    }
+    if (isOther) {
+      roles |= Role.OTHER.mask;
+    }
+
+    int permissions = 0;
+    if (isAdmin || canLogin) {
+      permissions |= Permission.LOGIN.mask;
+    }
+    if (notifications) {
+      permissions |= Permission.NOTIFICATIONS.mask;
+    }
+    if (isAdmin || managePerformances) {
+      permissions |= Permission.MANAGE_PERFORMANCES.mask;
+    }
+    if (isAdmin || manageCasts) {
+      permissions |= Permission.MANAGE_CASTS.mask;
+    }
+    if (isAdmin || managePieces) {
+      permissions |= Permission.MANAGE_BALLETS.mask;
+    }
+    if (isAdmin || manageRoles) {
+      permissions |= Permission.MANAGE_ROLES.mask;
+    }
+    if (isAdmin || manageRules) {
+      permissions |= Permission.MANAGE_RULES.mask;
+    }
+
+    this.roleMask = roles;
+    this.permissionMask = permissions;
+  }
+
+  /* Bit i of a mask corresponds to authorities[i]. */
+  private static String[][] namesByMask(String[] authorities) {
+    String[][] names = new String[1 << authorities.length][];
+    for (int mask = 0; mask < names.length; mask++) {
+      String[] out = new String[Integer.bitCount(mask)];
+      int next = 0;
+      for (int i = 0; i < authorities.length; i++) {
+        if ((mask & (1 << i)) != 0) {
+          out[next++] = authorities[i];
+        }
       }
+      names[mask] = out;
     }
-    String[] out = new String[permissionsOut.size()];
-    return permissionsOut.toArray(out);
+    return names;
   }
 
   public UserInfo toUserInfo() {
@@ -315,6 +414,25 @@ public class User {
     return new Builder();
   }
 
+  /*
+   * Normal form of an email used for case insensitive lookups. Only spaces are stripped, the same
+   * as MySQL's TRIM in the V2 backfill, so backfilled and newly saved rows agree.
+   */
+  public static String normalizeEmail(String email) {
+    if (email == null) {
+      return null;
+    }
+    int start = 0;
+    int end = email.length();
+    while (start < end && email.charAt(start) == ' ') {
+      start++;
+    }
+    while (end > start && email.charAt(end - 1) == ' ') {
+      end--;
+    }
+    return email.substring(start, end).toLowerCase(Locale.ROOT);
+  }
+
   public static class Builder {
     private User user;
     private Integer id;
@@ -522,6 +640,7 @@ public class User {
       user.lastName = this.lastName;
       user.suffix = this.suffix;
       user.email = this.email;
+      user.emailNormalized = normalizeEmail(this.email);
       user.notificationEmail = this.notificationEmail;
       user.pictureFile = this.pictureFile;
       user.phoneNumber = this.phoneNumber;
@@ -541,6 +660,7 @@ public class User {
       user.emergencyContactNumber = this.emergencyContactNumber;
       user.comments = this.comments;
       user.isActive = this.isActive;
+      user.computeMasks();
       return user;
     }
 
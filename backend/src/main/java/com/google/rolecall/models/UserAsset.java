@@ -22,7 +22,11 @@ import com.google.rolecall.jsonobjects.UserAssetInfo;
 public class UserAsset {
 
   public enum AssetType {
-    PROFILEPICTURE("profilepicture");
+    PROFILEPICTURE("profilepicture"),
+    // Square JPEG thumbnails generated from each profile picture.
+    PROFILEPICTURE_48("profilepicture/48"),
+    PROFILEPICTURE_128("profilepicture/128"),
+    PROFILEPICTURE_512("profilepicture/512");
 
     // String suggesting where to find the asset type such as a directory.
     public final String location;
@@ -58,6 +62,10 @@ public class UserAsset {
   @Column(nullable = false)
   private Date dateUploaded;
 
+  // SHA-256 of the content for content addressed assets, null for assets stored by id.
+  @Column(length = 64)
+  private String contentHash;
+
   @ManyToOne(optional = false, fetch = FetchType.EAGER)
   private User owner;
 
@@ -77,6 +85,10 @@ public class UserAsset {
     return dateUploaded;
   }
 
+  public String getContentHash() {
+    return contentHash;
+  }
+
   public User getOwner() {
     return owner;
   }
@@ -85,7 +97,11 @@ public class UserAsset {
     this.owner = owner;
   }
 
+  /* Assets sharing content share a file name and so the stored file. */
   public String getFileName() {
+    if (contentHash != null) {
+      return String.format("%s.%s", contentHash, this.getFileType().name);
+    }
     return String.format("%d.%s", this.getId(), this.getFileType().name);
   }
 
@@ -96,12 +112,18 @@ public class UserAsset {
         .setFileType(fileType.name)
         .setDateUploaded(dateUploaded.getTime())
         .setOwnerId(owner.getId())
+        .setFileName(getFileName())
         .build();
   }
 
   public UserAsset(AssetType type, FileType fileType) {
+    this(type, fileType, null);
+  }
+
+  public UserAsset(AssetType type, FileType fileType, String contentHash) {
     this.type = type;
     this.fileType = fileType;
+    this.contentHash = contentHash;
     dateUploaded = new Date(System.currentTimeMillis());
   }
 
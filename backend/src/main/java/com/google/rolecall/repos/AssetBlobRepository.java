@@ -0,0 +1,42 @@
+package com.google.rolecall.repos;
+
+import com.google.rolecall.models.AssetBlob;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/*
+ * Reference counts for content addressed blobs. Counts only change through single statements
+ * so concurrent uploads of the same content serialize on the row lock instead of racing.
+ */
+public interface AssetBlobRepository extends JpaRepository<AssetBlob, String> {
+
+  /* Adds a reference. Returns 1 when the blob is new and must be stored, 2 when it existed. */
+  @Modifying
+  @Query(value = "INSERT INTO AssetBlob (fileName, refCount, size) VALUES (:fileName, 1, :size) "
+      + "ON DUPLICATE KEY UPDATE refCount = refCount + 1", nativeQuery = true)
+  int acquire(@Param("fileName") String fileName, @Param("size") long size);
+
+  @Modifying
+  @Query("update AssetBlob b set b.refCount = b.refCount - 1 where b.fileName = :fileName")
+  int release(@Param("fileName") String fileName);
+
+  /*
+   * Locks the counts for these names, including names without a row, so an upload of the same
+   * content waits until the caller commits.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from AssetBlob b where b.fileName in :fileNames")
+  List<AssetBlob> lockByFileNames(@Param("fileNames") Collection<String> fileNames);
+
+  /* Returns 1 when the last reference was released and the stored file can be deleted. */
+  @Modifying
+  @Query("delete from AssetBlob b where b.fileName = :fileName and b.refCount <= 0")
+  int deleteIfUnreferenced(@Param("fileName") String fileName);
+}
@@ -0,0 +1,18 @@
+package com.google.rolecall.repos;
+
+import com.google.rolecall.models.AssetScanCursor;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AssetScanCursorRepository extends JpaRepository<AssetScanCursor, String> {
+
+  /* Locks the cursor so instances running the same scan take turns instead of repeating work. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select c from AssetScanCursor c where c.scanName = :scanName")
+  Optional<AssetScanCursor> lockByScanName(@Param("scanName") String scanName);
+}
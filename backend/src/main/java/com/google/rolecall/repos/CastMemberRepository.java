@@ -1,14 +1,23 @@
 package com.google.rolecall.repos;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import com.google.rolecall.models.CastMember;
 import com.google.rolecall.models.User;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface CastMemberRepository extends CrudRepository<CastMember, Integer> {
 
   public Optional<CastMember> findFirstByUser(User user);
 
+  /* Rows of position id, cast number and user id for every member of the sections' casts. */
+  @Query("select s.position.id, s.castNumber, m.user.id from CastMember m join m.cast s "
+      + "where s.position.section.id in :sectionIds")
+  public List<Object[]> findPositionCastNumberUsers(
+      @Param("sectionIds") Collection<Integer> sectionIds);
 }
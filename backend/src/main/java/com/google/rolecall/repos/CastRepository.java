@@ -1,17 +1,76 @@
 package com.google.rolecall.repos;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.google.rolecall.models.Cast;
 import com.google.rolecall.models.Section;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /* Enitity for accessing and updating Cast objects stored in a database. */
-public interface CastRepository extends CrudRepository<Cast, Integer> {
+public interface CastRepository extends CrudRepository<Cast, Integer>, IdBlocks {
 
   public List<Cast> findAllBySection(Section section);
 
   public Optional<Cast> findFirstBySection(Section section);
+
+  /*
+   * Casts by id with their sub casts, positions, members and users fetched in the same
+   * statement, instead of a select per sub cast, member and user.
+   */
+  @Query("SELECT DISTINCT c FROM Cast c LEFT JOIN FETCH c.subCasts s LEFT JOIN FETCH s.position "
+      + "LEFT JOIN FETCH s.members m LEFT JOIN FETCH m.user WHERE c.id IN :ids")
+  public List<Cast> findAllWithMembersByIdIn(@Param("ids") Collection<Integer> ids);
+
+  @Query("SELECT c.id FROM Cast c ORDER BY c.id")
+  public List<Integer> findAllIds();
+
+  @Query("SELECT c.id FROM Cast c WHERE c.section.id = :sectionId ORDER BY c.id")
+  public List<Integer> findIdsBySectionId(@Param("sectionId") Integer sectionId);
+
+  @Query("SELECT c.name FROM Cast c WHERE c.id = :id")
+  public Optional<String> findNameById(@Param("id") Integer id);
+
+  /*
+   * The count and copy queries below clone a cast in a fixed number of statements. The counts
+   * are locking reads, so sub casts and members cannot be added to or removed from the source
+   * between counting and copying them. Copies are numbered in id order of their source, which
+   * maps each copied member to the copy of its sub cast. Needs MySQL 8 for ROW_NUMBER.
+   */
+  @Query(value = "SELECT COUNT(*) FROM SubCast WHERE cast_id = :castId FOR SHARE",
+      nativeQuery = true)
+  public int lockSubCastCount(@Param("castId") Integer castId);
+
+  @Query(value = "SELECT COUNT(*) FROM CastMember m JOIN SubCast s ON m.cast_id = s.id "
+      + "WHERE s.cast_id = :castId FOR SHARE", nativeQuery = true)
+  public int lockCastMemberCount(@Param("castId") Integer castId);
+
+  @Modifying
+  @Query(value = "INSERT INTO Cast (id, name, notes, section_id) "
+      + "SELECT :copyId, :name, notes, section_id FROM Cast WHERE id = :castId",
+      nativeQuery = true)
+  public int copyCast(@Param("castId") Integer castId, @Param("copyId") Integer copyId,
+      @Param("name") String name);
+
+  /* Copies the nth sub cast of the source to id copyId + n. */
+  @Modifying
+  @Query(value = "INSERT INTO SubCast (id, castNumber, cast_id, position_id) "
+      + "SELECT :copyId + ROW_NUMBER() OVER (ORDER BY id), castNumber, :copyId, position_id "
+      + "FROM SubCast WHERE cast_id = :castId", nativeQuery = true)
+  public int copySubCasts(@Param("castId") Integer castId, @Param("copyId") Integer copyId);
+
+  /* Copies the nth member of the source to id memberIdBase + n, in the copied sub cast. */
+  @Modifying
+  @Query(value = "INSERT INTO CastMember (id, orderOf, user_id, cast_id) "
+      + "SELECT :memberIdBase + ROW_NUMBER() OVER (ORDER BY m.id), m.orderOf, m.user_id, "
+      + ":copyId + s.subCastNumber "
+      + "FROM CastMember m JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS subCastNumber "
+      + "FROM SubCast WHERE cast_id = :castId) s ON m.cast_id = s.id", nativeQuery = true)
+  public int copyCastMembers(@Param("castId") Integer castId, @Param("copyId") Integer copyId,
+      @Param("memberIdBase") Integer memberIdBase);
 }
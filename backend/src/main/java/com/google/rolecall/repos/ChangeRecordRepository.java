@@ -0,0 +1,41 @@
+package com.google.rolecall.repos;
+
+import com.google.rolecall.models.ChangeRecord;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, String> {
+
+  /*
+   * Reserves count versions from the global sequence. The row lock is held until the caller
+   * commits, so transactions receive versions in the order they commit.
+   */
+  @Modifying
+  @Query(value = "UPDATE ChangeSequence SET value = LAST_INSERT_ID(value + :count) "
+      + "WHERE id = 1", nativeQuery = true)
+  int reserveVersions(@Param("count") int count);
+
+  /* Last version reserved by reserveVersions on this connection. */
+  @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+  Long lastReservedVersion();
+
+  /* Version of the latest committed change to any entity. */
+  @Query(value = "SELECT value FROM ChangeSequence WHERE id = 1", nativeQuery = true)
+  Long currentVersion();
+
+  @Modifying
+  @Query(value = "INSERT INTO ChangeRecord (id, type, entityId, version, deleted) "
+      + "VALUES (:id, :type, :entityId, :version, :deleted) "
+      + "ON DUPLICATE KEY UPDATE version = VALUES(version), deleted = VALUES(deleted)",
+      nativeQuery = true)
+  int record(@Param("id") String id, @Param("type") String type,
+      @Param("entityId") Integer entityId, @Param("version") long version,
+      @Param("deleted") boolean deleted);
+
+  List<ChangeRecord> findByVersionGreaterThanOrderByVersion(Long version, Pageable page);
+}
@@ -0,0 +1,19 @@
+package com.google.rolecall.repos;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/* Ids for rows inserted with native statements instead of through Hibernate. */
+public interface IdBlocks {
+
+  /**
+   * Reserves consecutive ids from the sequence Hibernate generates entity ids from. Runs in its
+   * own transaction, as Hibernate's own allocation does, so the sequence row is not held locked
+   * for the rest of the caller's transaction.
+   *
+   * @param count Number of ids to reserve.
+   * @return First reserved id. The block ends at first + count - 1.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  int reserveIds(int count);
+}
@@ -0,0 +1,29 @@
+package com.google.rolecall.repos;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * Advances hibernate_sequence past a block of ids in one statement. Hibernate hands out the
+ * current next_val and stores next_val + 1, so ids below the advanced value are never
+ * generated again.
+ */
+public class IdBlocksImpl implements IdBlocks {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int reserveIds(int count) {
+    entityManager.createNativeQuery(
+        "UPDATE hibernate_sequence SET next_val = LAST_INSERT_ID(next_val + :count)")
+        .setParameter("count", count)
+        .executeUpdate();
+    Number next = (Number) entityManager.createNativeQuery("SELECT LAST_INSERT_ID()")
+        .getSingleResult();
+    return next.intValue() - count;
+  }
+}
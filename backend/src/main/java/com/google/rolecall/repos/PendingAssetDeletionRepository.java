@@ -0,0 +1,50 @@
+package com.google.rolecall.repos;
+
+import com.google.rolecall.models.PendingAssetDeletion;
+import com.google.rolecall.models.UserAsset.AssetType;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface PendingAssetDeletionRepository
+    extends JpaRepository<PendingAssetDeletion, Integer> {
+
+  /*
+   * Locks a batch of due, unclaimed deletions until the claim commits. Rows another instance
+   * is claiming are skipped (lock timeout -2 is SKIP LOCKED) so several workers drain the
+   * table without waiting.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+  @Query("select d from PendingAssetDeletion d where d.nextAttempt <= :now "
+      + "and (d.claimedUntil is null or d.claimedUntil < :now) order by d.nextAttempt")
+  List<PendingAssetDeletion> findDue(@Param("now") Timestamp now, Pageable page);
+
+  /* Deletes finished rows still held by the claim, leaving any whose claim expired. */
+  @Modifying
+  @Query("delete from PendingAssetDeletion d "
+      + "where d.id in :ids and d.claimedUntil = :claimedUntil")
+  int deleteClaimed(@Param("ids") Collection<Integer> ids,
+      @Param("claimedUntil") Timestamp claimedUntil);
+
+  @Query("select d.fileName from PendingAssetDeletion d "
+      + "where d.type = :type and d.fileName in :fileNames")
+  List<String> findPendingFileNames(@Param("type") AssetType type,
+      @Param("fileNames") Collection<String> fileNames);
+
+  /* Locks the queued deletions of a file, waiting for a worker claiming or finishing them. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select d from PendingAssetDeletion d where d.type = :type and d.fileName = :fileName")
+  List<PendingAssetDeletion> lockByFile(@Param("type") AssetType type,
+      @Param("fileName") String fileName);
+}
@@ -0,0 +1,79 @@
+package com.google.rolecall.repos;
+
+import com.google.rolecall.models.PendingNotification;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface PendingNotificationRepository
+    extends JpaRepository<PendingNotification, String> {
+
+  /*
+   * Queues a message, replacing an earlier one with the same id while keeping when the first
+   * was queued. A single statement so concurrent edits serialize on the row lock. Replacing a
+   * message clears its claim, so a digest being sent does not delete the newer message.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO PendingNotification "
+      + "(id, userId, email, phone, profile, message, firstQueued, lastQueued) "
+      + "VALUES (:id, :userId, :email, :phone, :profile, :message, :queued, :queued) "
+      + "ON DUPLICATE KEY UPDATE email = VALUES(email), phone = VALUES(phone), "
+      + "profile = VALUES(profile), message = VALUES(message), "
+      + "lastQueued = VALUES(lastQueued), claimedUntil = NULL", nativeQuery = true)
+  int queue(@Param("id") String id, @Param("userId") Integer userId,
+      @Param("email") String email, @Param("phone") String phone,
+      @Param("profile") String profile, @Param("message") String message,
+      @Param("queued") Timestamp queued);
+
+  /*
+   * Users whose digest is due: nothing was queued for them since quietSince, or their oldest
+   * message was queued before oldestAllowed. Longest waiting first. Rows claimed by a worker
+   * until after now are left out.
+   */
+  @Query("select n.userId from PendingNotification n "
+      + "where n.claimedUntil is null or n.claimedUntil < :now group by n.userId "
+      + "having max(n.lastQueued) <= :quietSince or min(n.firstQueued) <= :oldestAllowed "
+      + "order by min(n.firstQueued)")
+  List<Integer> findDueRecipients(@Param("quietSince") Timestamp quietSince,
+      @Param("oldestAllowed") Timestamp oldestAllowed, @Param("now") Timestamp now,
+      Pageable page);
+
+  /*
+   * Locks the unclaimed messages queued for a user until the claim commits. Rows another
+   * worker is claiming are skipped (lock timeout -2 is SKIP LOCKED).
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+  @Query("select n from PendingNotification n where n.userId = :userId "
+      + "and (n.claimedUntil is null or n.claimedUntil < :now) order by n.firstQueued, n.id")
+  List<PendingNotification> lockUnclaimedByUserId(@Param("userId") Integer userId,
+      @Param("now") Timestamp now);
+
+  @Modifying
+  @Query("update PendingNotification n set n.claimedUntil = :claimedUntil where n.id in :ids")
+  int claim(@Param("ids") Collection<String> ids, @Param("claimedUntil") Timestamp claimedUntil);
+
+  /* Deletes sent rows still held by the claim, keeping any re-queued since. */
+  @Modifying
+  @Query("delete from PendingNotification n "
+      + "where n.id in :ids and n.claimedUntil = :claimedUntil")
+  int deleteClaimed(@Param("ids") Collection<String> ids,
+      @Param("claimedUntil") Timestamp claimedUntil);
+
+  /* Makes rows that could not be sent due again. */
+  @Modifying
+  @Query("update PendingNotification n set n.claimedUntil = null "
+      + "where n.id in :ids and n.claimedUntil = :claimedUntil")
+  int releaseClaim(@Param("ids") Collection<String> ids,
+      @Param("claimedUntil") Timestamp claimedUntil);
+}
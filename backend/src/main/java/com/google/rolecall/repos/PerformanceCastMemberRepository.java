@@ -1,17 +1,69 @@
 package com.google.rolecall.repos;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import com.google.rolecall.models.PerformanceCastMember;
 import com.google.rolecall.models.Position;
 import com.google.rolecall.models.User;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface PerformanceCastMemberRepository 
-    extends CrudRepository<PerformanceCastMember, Integer>{
+    extends CrudRepository<PerformanceCastMember, Integer>, IdBlocks {
   
   public Optional<PerformanceCastMember> findFirstByUser(User user);
 
   public Optional<PerformanceCastMember> findFirstByPosition(Position position);
+
+  /* Rows of user id and how many parts they are cast in, over other performances in a window. */
+  @Query("select m.user.id, count(m) from PerformanceCastMember m "
+      + "where m.performance.dateTime between :from and :to "
+      + "and m.performance.id <> :performanceId group by m.user.id")
+  public List<Object[]> countByUserBetween(@Param("from") Timestamp from,
+      @Param("to") Timestamp to, @Param("performanceId") Integer performanceId);
+
+  /*
+   * The queries below fill a performance section from saved casts in a fixed number of
+   * statements. They run on the database directly, so the persistence context is flushed
+   * before and cleared after each change, and entities must be loaded again afterwards.
+   */
+  @Query(value = "SELECT COUNT(*) FROM Cast WHERE section_id = :sectionId AND id IN :castIds",
+      nativeQuery = true)
+  public int countCastsOfSection(@Param("sectionId") Integer sectionId,
+      @Param("castIds") Collection<Integer> castIds);
+
+  /* Locking read, so members cannot be added to the casts between counting and copying. */
+  @Query(value = "SELECT COUNT(*) FROM CastMember m JOIN SubCast s ON m.cast_id = s.id "
+      + "WHERE s.cast_id IN :castIds FOR SHARE", nativeQuery = true)
+  public int lockCastMemberCount(@Param("castIds") Collection<Integer> castIds);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = "DELETE FROM PerformanceCastMember "
+      + "WHERE performanceSection_id = :performanceSectionId", nativeQuery = true)
+  public int deleteAllByPerformanceSectionId(
+      @Param("performanceSectionId") Integer performanceSectionId);
+
+  /*
+   * Copies every member of the casts into the performance section as the nth row at id
+   * idBase + n, keeping their position, cast number and order. Members of the primary cast are
+   * performing. Needs MySQL 8 for ROW_NUMBER.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = "INSERT INTO PerformanceCastMember (id, castNumber, orderOf, performing, "
+      + "user_id, performance_id, performanceSection_id, position_id) "
+      + "SELECT :idBase + ROW_NUMBER() OVER (ORDER BY m.id), s.castNumber, m.orderOf, "
+      + "s.castNumber = :primaryCast, m.user_id, :performanceId, :performanceSectionId, "
+      + "s.position_id "
+      + "FROM CastMember m JOIN SubCast s ON m.cast_id = s.id WHERE s.cast_id IN :castIds",
+      nativeQuery = true)
+  public int copyCastMembers(@Param("performanceId") Integer performanceId,
+      @Param("performanceSectionId") Integer performanceSectionId,
+      @Param("primaryCast") Integer primaryCast, @Param("castIds") Collection<Integer> castIds,
+      @Param("idBase") Integer idBase);
 }
@@ -1,8 +1,13 @@
 package com.google.rolecall.repos;
 
 import com.google.rolecall.models.Section;
+import java.util.List;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 /* Enitity for accessing and updating Section objects stored in a database. */
 public interface SectionRepository extends CrudRepository<Section, Integer> {
+
+  @Query("SELECT s.id FROM Section s ORDER BY s.id")
+  public List<Integer> findAllIds();
 }
@@ -1,8 +1,17 @@
 package com.google.rolecall.repos;
 
 import com.google.rolecall.models.UserAsset;
+import java.util.Collection;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface UserAssetRepository extends JpaRepository<UserAsset, Integer> {
+
+  List<UserAsset> findByOwnerId(Integer ownerId);
+
+  List<UserAsset> findByContentHashIn(Collection<String> contentHashes);
+
+  /* Assets stored under their id, from before content addressing. */
+  List<UserAsset> findByContentHashIsNullAndIdIn(Collection<Integer> ids);
 }
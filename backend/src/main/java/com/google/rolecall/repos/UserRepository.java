@@ -1,9 +1,12 @@
 package com.google.rolecall.repos;
 
 import com.google.rolecall.models.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /* Enitity for accessing and updating User objects stored in a database. */
 public interface UserRepository extends CrudRepository<User, Integer> {
@@ -11,7 +14,16 @@ public interface UserRepository extends CrudRepository<User, Integer> {
   Optional<User> findByFirstNameAndLastNameAndEmailIgnoreCase(String firstName, 
       String lastName, String email);
 
-  Optional<User> findByEmailIgnoreCase(String email);
+  Optional<User> findByEmailNormalized(String emailNormalized);
+
+  /* Case insensitive email lookup served by the unique emailNormalized index. */
+  default Optional<User> findByEmailIgnoreCase(String email) {
+    return findByEmailNormalized(User.normalizeEmail(email));
+  }
 
   List<User> findByFirstNameAndLastName(String firstName, String lastName);
+
+  /* Returns which of the given normalized emails already belong to a user. */
+  @Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+  List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
@@ -35,6 +35,8 @@ final class Annotations {
   @interface Post {
     @AliasFor(annotation = RequestMapping.class, attribute = "params")
     String[] value() default {};
+    @AliasFor(annotation = RequestMapping.class, attribute = "path")
+    String[] path() default {};
   }
 
   /* Patch request methods of an @Endpoint class. */
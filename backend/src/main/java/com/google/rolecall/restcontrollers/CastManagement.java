@@ -5,6 +5,7 @@ import com.google.rolecall.jsonobjects.CastInfo;
 import com.google.rolecall.jsonobjects.ResponseSchema;
 import com.google.rolecall.models.Cast;
 import com.google.rolecall.models.User;
+import com.google.rolecall.models.User.Permission;
 import com.google.rolecall.restcontrollers.Annotations.Delete;
 import com.google.rolecall.restcontrollers.Annotations.Endpoint;
 import com.google.rolecall.restcontrollers.Annotations.Get;
@@ -13,23 +14,37 @@ import com.google.rolecall.restcontrollers.Annotations.Post;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
 import com.google.rolecall.services.CastServices;
+import com.google.rolecall.services.ResponseCacheServices;
 import com.google.rolecall.services.ServiceResult;
 import java.security.Principal;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 @Endpoint(Constants.Mappings.CAST_MANAGEMENT)
 public class CastManagement extends AsyncRestEndpoint {
   
   private final CastServices castService;
+  private final ResponseCacheServices responseCache;
 
+  /* All casts as JSON rendered once per change to the data, gzipped when accepted. */
   @Get
+  public CompletableFuture<ResponseEntity<byte[]>> getAllCastsJson(
+      @RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false) String acceptEncoding) {
+    try {
+      return CompletableFuture.completedFuture(responseCache.getResponse(
+          Constants.Mappings.CAST_MANAGEMENT, acceptEncoding, () -> getAllCasts().get()));
+    } catch(Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   public CompletableFuture<ResponseSchema<List<CastInfo>>> getAllCasts() {
-    List<CastInfo> allCasts = castService.getAllCasts().stream().map(c->c.toCastInfo())
-        .collect(Collectors.toList());
+    List<CastInfo> allCasts = castService.getAllCastInfos();
 
     ResponseSchema<List<CastInfo>> response = new ResponseSchema<>(allCasts);
     return CompletableFuture.completedFuture(response);
@@ -51,8 +66,7 @@ public class CastManagement extends AsyncRestEndpoint {
     List<CastInfo> casts;
 
     try { 
-      casts = castService.getCastsBySectionId(id).stream().map(c->c.toCastInfo())
-          .collect(Collectors.toList());
+      casts = castService.getCastInfosBySectionId(id);
     } catch(EntityNotFoundException e) {
       return CompletableFuture.failedFuture(e);
     } catch(InvalidParameterException e) {
@@ -67,7 +81,7 @@ public class CastManagement extends AsyncRestEndpoint {
   public CompletableFuture<ResponseSchema<CastInfo>> createCast(Principal principal,
       @RequestBody CastInfo newCast) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManageCasts()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_CASTS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_CASTS));
     }
     
@@ -89,7 +103,7 @@ public class CastManagement extends AsyncRestEndpoint {
   public CompletableFuture<ResponseSchema<CastInfo>> editCast(Principal principal,
       @RequestBody CastInfo cast) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManageCasts()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_CASTS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_CASTS));
     }
 
@@ -107,11 +121,38 @@ public class CastManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(response);
   }
 
+  /**
+   * Copies a cast with all its sub casts and members into a new cast of the same section.
+   *
+   * @param id Id of the cast to copy.
+   * @param name Name of the copy. Defaults to the source name followed by " (copy)".
+   * @return {@link CastInfo} of the copy.
+   */
+  @Post(path = "/clone")
+  public CompletableFuture<ResponseSchema<CastInfo>> cloneCast(Principal principal,
+      @RequestParam(value=Constants.RequestParameters.CAST_ID, required=true) int id,
+      @RequestParam(value=Constants.RequestParameters.NAME, required=false) String name) {
+    User currentUser = getUser(principal);
+    if(!currentUser.hasPermission(Permission.MANAGE_CASTS)) {
+      return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_CASTS));
+    }
+
+    Cast cast;
+    try {
+      cast = castService.cloneCast(id, name);
+    } catch(EntityNotFoundException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    ResponseSchema<CastInfo> response = new ResponseSchema<>(cast.toCastInfo());
+    return CompletableFuture.completedFuture(response);
+  }
+
   @Delete(Constants.RequestParameters.CAST_ID)
   public CompletableFuture<Void> deleteCast(Principal principal, @RequestParam(
       value=Constants.RequestParameters.CAST_ID, required=true) int id) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManageCasts()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_CASTS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_CASTS));
     }
 
@@ -124,7 +165,8 @@ public class CastManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(null);
   }
 
-  public CastManagement(CastServices castService) {
+  public CastManagement(CastServices castService, ResponseCacheServices responseCache) {
     this.castService = castService;
+    this.responseCache = responseCache;
   }
 }
@@ -0,0 +1,38 @@
+package com.google.rolecall.restcontrollers;
+
+import com.google.rolecall.Constants;
+import com.google.rolecall.restcontrollers.Annotations.Endpoint;
+import com.google.rolecall.services.ChangeEventServices;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+ * Stream of {type, id, version} events for every committed change to a performance, cast,
+ * section, user or unavailability. Not @Get since the emitter must be returned directly rather
+ * than run async.
+ */
+@Endpoint(Constants.Mappings.CHANGE_EVENTS)
+public class ChangeEventManagement extends AsyncRestEndpoint {
+
+  private final ChangeEventServices changeEventService;
+
+  /**
+   * Opens a server sent event stream. Browsers reconnect on their own and send the id of the
+   * last event they received, which replays what was missed or sends a reset event.
+   *
+   * @param lastEventId Id of the last event received before reconnecting.
+   * @return Emitter for "change" and "reset" events.
+   */
+  @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamChanges(
+      @RequestHeader(value = Constants.Headers.LAST_EVENT_ID, required = false)
+      String lastEventId) {
+    return changeEventService.subscribe(lastEventId);
+  }
+
+  public ChangeEventManagement(ChangeEventServices changeEventService) {
+    this.changeEventService = changeEventService;
+  }
+}
@@ -5,6 +5,7 @@ import com.google.rolecall.jsonobjects.PerformanceInfo;
 import com.google.rolecall.jsonobjects.ResponseSchema;
 import com.google.rolecall.models.Performance;
 import com.google.rolecall.models.User;
+import com.google.rolecall.models.User.Permission;
 import com.google.rolecall.restcontrollers.Annotations.Delete;
 import com.google.rolecall.restcontrollers.Annotations.Endpoint;
 import com.google.rolecall.restcontrollers.Annotations.Get;
@@ -12,6 +13,7 @@ import com.google.rolecall.restcontrollers.Annotations.Patch;
 import com.google.rolecall.restcontrollers.Annotations.Post;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.AutoCastServices;
 import com.google.rolecall.services.PerformanceServices;
 import com.google.rolecall.services.ServiceResult;
 import java.security.Principal;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class PerformanceManagement extends AsyncRestEndpoint {
   
   private final PerformanceServices performanceService;
+  private final AutoCastServices autoCastService;
 
   @Get
   public CompletableFuture<ResponseSchema<List<PerformanceInfo>>> getAllPerformances() {
@@ -69,11 +72,41 @@ public class PerformanceManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(response);
   }
 
+  /**
+   * Proposes dancers for the parts of a performance nobody is cast in yet. Nothing is saved; the
+   * proposal is a performance edit to review and send back with a patch.
+   *
+   * @param id Performance to cast.
+   * @return {@link PerformanceInfo} of the proposed members, with a warning per part left open.
+   */
+  @Get(path = "/autocast", value = Constants.RequestParameters.PERFORMANCE_ID)
+  public CompletableFuture<ResponseSchema<PerformanceInfo>> proposeCasts(Principal principal,
+      @RequestParam(value=Constants.RequestParameters.PERFORMANCE_ID, required=true) int id) {
+    User currentUser = getUser(principal);
+    if(!currentUser.hasPermission(Permission.MANAGE_PERFORMANCES)) {
+      return CompletableFuture.failedFuture(
+          insufficientPrivileges(Constants.Permissions.MANAGE_PERFORMANCES));
+    }
+
+    ServiceResult<PerformanceInfo> result;
+    try {
+      result = autoCastService.proposeCasts(id);
+    } catch(EntityNotFoundException e) {
+      return CompletableFuture.failedFuture(e);
+    } catch(InvalidParameterException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    ResponseSchema<PerformanceInfo> response =
+        new ResponseSchema<>(result.getResult(), result.getWarnings());
+    return CompletableFuture.completedFuture(response);
+  }
+
   @Post
   public CompletableFuture<ResponseSchema<PerformanceInfo>> createCast(Principal principal,
       @RequestBody PerformanceInfo newPerformance) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePerformances()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_PERFORMANCES)) {
       return CompletableFuture.failedFuture(
           insufficientPrivileges(Constants.Permissions.MANAGE_PERFORMANCES));
     }
@@ -96,7 +129,7 @@ public class PerformanceManagement extends AsyncRestEndpoint {
   public CompletableFuture<ResponseSchema<PerformanceInfo>> editCast(Principal principal,
       @RequestBody PerformanceInfo performance) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePerformances()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_PERFORMANCES)) {
       return CompletableFuture.failedFuture(
           insufficientPrivileges(Constants.Permissions.MANAGE_PERFORMANCES));
     }
@@ -119,7 +152,7 @@ public class PerformanceManagement extends AsyncRestEndpoint {
   public CompletableFuture<Void> deletePerformance(Principal principal, @RequestParam(
       value=Constants.RequestParameters.PERFORMANCE_ID, required=true) int id) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePerformances()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_PERFORMANCES)) {
       return CompletableFuture.failedFuture(
           insufficientPrivileges(Constants.Permissions.MANAGE_PERFORMANCES));
     }
@@ -135,7 +168,9 @@ public class PerformanceManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(null);
   }
 
-  public PerformanceManagement(PerformanceServices performanceService) {
+  public PerformanceManagement(PerformanceServices performanceService,
+      AutoCastServices autoCastService) {
     this.performanceService = performanceService;
+    this.autoCastService = autoCastService;
   }
 }
@@ -2,17 +2,26 @@ package com.google.rolecall.restcontrollers;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.security.Principal;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.google.rolecall.Constants;
@@ -30,28 +39,86 @@ import com.google.rolecall.services.ProfilePictureServices;
 @Endpoint(Constants.Mappings.PROFILE_PICTURE_MANAGEMENT)
 public class ProfilePictureManagement extends AsyncRestEndpoint  {
 
+  private static final String IMMUTABLE_CACHE_CONTROL =
+      CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable";
+  private static final String PENDING_THUMBNAIL_CACHE_CONTROL =
+      CacheControl.maxAge(1, TimeUnit.MINUTES).cachePrivate().getHeaderValue();
+
+  // Request attributes of Tomcat's sendfile support. The end offset is exclusive.
+  private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
   private final ProfilePictureServices profilePictureServices;
 
-  @Get(path = "/{filename}")
-  public CompletableFuture<ResponseEntity<InputStreamResource>> getProfilePicture(
-      @PathVariable String filename) {
+  /*
+   * Asset file names are either an unused id or the SHA-256 of the content, so a name never
+   * refers to different bytes and the picture can be cached for a year and marked immutable.
+   * For the same reason the ETag derived from the name is a strong validator. Conditional
+   * requests are answered with 304 and Range requests with 206.
+   * With size the closest JPEG thumbnail is returned, or briefly the original while the
+   * thumbnails are still being generated.
+   *
+   * Not @Get since a file on local disk is handed to the container's sendfile, which only
+   * happens when the response is committed on the request thread. Other resources, ranges and
+   * HEAD requests are written by Spring as before.
+   */
+  @GetMapping(path = "/{filename}")
+  public ResponseEntity<Resource> getProfilePicture(
+      @PathVariable String filename,
+      @RequestParam(value = Constants.RequestParameters.SIZE, required = false) Integer size,
+      ServletWebRequest webRequest) throws Exception {
     String extension = FilenameUtils.getExtension(filename);
     if (extension == null) {
-      return CompletableFuture.failedFuture(
-          new InvalidParameterException("Filename cannot be empty."));
+      throw new InvalidParameterException("Filename cannot be empty.");
     }
+    Resource resource = null;
+    MediaType mediaType = MediaType.IMAGE_JPEG;
+    String cacheControl = IMMUTABLE_CACHE_CONTROL;
     try {
-      InputStream stream = profilePictureServices
-          .getProfilePicture(filename).getInputStream();
-      MediaType mediaType = FileType.valueOf(
-          extension.toUpperCase()).responseType;
-      return CompletableFuture.completedFuture(ResponseEntity.ok().contentType(mediaType)
-          .body(new InputStreamResource(stream)));
-    } catch(FileNotFoundException e) {
-      return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
-    } catch(Exception e) {
-      return CompletableFuture.failedFuture(e);
+      if (size != null) {
+        resource = profilePictureServices.getProfilePictureThumbnail(filename, size)
+            .orElse(null);
+        if (resource == null) {
+          cacheControl = PENDING_THUMBNAIL_CACHE_CONTROL;
+        }
+      }
+      if (resource == null) {
+        resource = profilePictureServices.getProfilePicture(filename);
+        mediaType = FileType.valueOf(extension.toUpperCase()).responseType;
+      }
+    } catch (FileNotFoundException e) {
+      return ResponseEntity.notFound().build();
+    }
+
+    long contentLength = resource.contentLength();
+    String eTag = String.format("\"%s-%s-%d\"", filename, size, contentLength);
+    long lastModified = resource.isFile() ? resource.lastModified() : -1;
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(mediaType)
+        .contentLength(contentLength)
+        .header(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+    HttpServletRequest request = webRequest.getRequest();
+    if (resource.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))
+        && HttpMethod.GET.matches(request.getMethod())
+        && request.getHeader(HttpHeaders.RANGE) == null) {
+      // Sets ETag and Last-Modified, and the status when the client's copy is current.
+      if (webRequest.checkNotModified(eTag, lastModified)) {
+        return null;
+      }
+      request.setAttribute(SENDFILE_FILENAME, resource.getFile().getCanonicalPath());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, contentLength);
+      return response.build();
     }
+
+    response.eTag(eTag);
+    if (lastModified >= 0) {
+      response.lastModified(lastModified);
+    }
+    return response.body(resource);
   }
 
   @Get(path = "/url/{filename}")
@@ -72,6 +139,19 @@ public class ProfilePictureManagement extends AsyncRestEndpoint  {
     }
   }
 
+  /* Signed urls for every requested picture, so a roster resolves its avatars in one call. */
+  @Post(path = "/urls")
+  public CompletableFuture<ResponseSchema<Map<String, String>>> getProfilePictureUrls(
+      @RequestBody List<String> filenames) {
+    Map<String, String> urls;
+    try {
+      urls = profilePictureServices.getProfilePictureUrls(filenames);
+    } catch(Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return CompletableFuture.completedFuture(new ResponseSchema<Map<String, String>>(urls));
+  }
+
   @Post
   public CompletableFuture<ResponseSchema<UserAssetInfo>> uploadFile(Principal principal,
       @RequestParam(Constants.RequestParameters.USER_ID) int ownerId,
@@ -5,6 +5,7 @@ import com.google.rolecall.jsonobjects.ResponseSchema;
 import com.google.rolecall.jsonobjects.SectionInfo;
 import com.google.rolecall.models.Section;
 import com.google.rolecall.models.User;
+import com.google.rolecall.models.User.Permission;
 import com.google.rolecall.restcontrollers.Annotations.Delete;
 import com.google.rolecall.restcontrollers.Annotations.Endpoint;
 import com.google.rolecall.restcontrollers.Annotations.Get;
@@ -12,33 +13,49 @@ import com.google.rolecall.restcontrollers.Annotations.Patch;
 import com.google.rolecall.restcontrollers.Annotations.Post;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.ResponseCacheServices;
 import com.google.rolecall.services.SectionServices;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.security.Principal;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 /** Endpoints for manipulating Sections and Positions. */
 @Endpoint(Constants.Mappings.SECTION_MANAGEMENT)
 public class SectionManagement extends AsyncRestEndpoint {
 
   private final SectionServices sectionService;
+  private final ResponseCacheServices responseCache;
 
   /**
-   * Gets all {@link Section} objects stored in the database without {@link Position} objects.
-   * 
-   * @return List of {@link SectionInfo} objects excluding children {@link Position}.
+   * Gets all {@link Section} objects as JSON rendered once per change to the data.
+   *
+   * @param acceptEncoding gzip to receive the JSON compressed.
+   * @return JSON of the response from {@link #getAllSections}.
    */
   @Get
-  public CompletableFuture<ResponseSchema<List<SectionInfo>>> getAllUsers() {
-    List<Section> allSections = sectionService.getAllSections();
+  public CompletableFuture<ResponseEntity<byte[]>> getAllSectionsJson(
+      @RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false) String acceptEncoding) {
+    try {
+      return CompletableFuture.completedFuture(responseCache.getResponse(
+          Constants.Mappings.SECTION_MANAGEMENT, acceptEncoding, () -> getAllSections().get()));
+    } catch(Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
 
-    List<SectionInfo> sections = allSections.stream().map(s ->
-        s.toSectionInfo()
-        ).collect(Collectors.toList());
+  /**
+   * Gets all {@link Section} objects stored in the database.
+   * 
+   * @return List of {@link SectionInfo} objects.
+   */
+  public CompletableFuture<ResponseSchema<List<SectionInfo>>> getAllSections() {
+    List<SectionInfo> sections = sectionService.getAllSectionInfos();
 
     ResponseSchema<List<SectionInfo>> response = new ResponseSchema<>(sections);
     return CompletableFuture.completedFuture(response);
@@ -54,17 +71,17 @@ public class SectionManagement extends AsyncRestEndpoint {
   @Get(Constants.RequestParameters.SECTION_ID)
   public CompletableFuture<ResponseSchema<SectionInfo>> getSingleSection(
       @RequestParam(value=Constants.RequestParameters.SECTION_ID, required=true) int id) {
-    Section section;
+    SectionInfo section;
 
     try {
-      section = sectionService.getSection(id);
+      section = sectionService.getSectionInfo(id);
     } catch(EntityNotFoundException e) {
       return CompletableFuture.failedFuture(e);
     } catch(InvalidParameterException e) {
       return CompletableFuture.failedFuture(e);
     }
 
-    ResponseSchema<SectionInfo> response = new ResponseSchema<>(section.toSectionInfo());
+    ResponseSchema<SectionInfo> response = new ResponseSchema<>(section);
     return CompletableFuture.completedFuture(response);
   }
 
@@ -82,7 +99,7 @@ public class SectionManagement extends AsyncRestEndpoint {
   public CompletableFuture<ResponseSchema<SectionInfo>> createNewSection(Principal principal,
       @RequestBody SectionInfo newSection) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePieces()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_BALLETS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_BALLETS));
     }
 
@@ -111,7 +128,7 @@ public class SectionManagement extends AsyncRestEndpoint {
   public CompletableFuture<ResponseSchema<SectionInfo>> editSection(Principal principal,
       @RequestBody SectionInfo newSection) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePieces()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_BALLETS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_BALLETS));
     }
 
@@ -140,7 +157,7 @@ public class SectionManagement extends AsyncRestEndpoint {
   public CompletableFuture<Void> deleteSection(Principal principal,
       @RequestParam(value=Constants.RequestParameters.SECTION_ID, required=true) int id) {
     User currentUser = getUser(principal);
-    if(!currentUser.isAdmin() && !currentUser.canManagePieces()) {
+    if(!currentUser.hasPermission(Permission.MANAGE_BALLETS)) {
       return CompletableFuture.failedFuture(insufficientPrivileges(Constants.Permissions.MANAGE_BALLETS));
     }
 
@@ -155,7 +172,9 @@ public class SectionManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(null);
   }
 
-  public SectionManagement(SectionServices sectionService) {
+  public SectionManagement(SectionServices sectionService,
+      ResponseCacheServices responseCache) {
     this.sectionService = sectionService;
+    this.responseCache = responseCache;
   }
 }
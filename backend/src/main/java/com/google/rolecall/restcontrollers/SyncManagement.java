@@ -0,0 +1,45 @@
+package com.google.rolecall.restcontrollers;
+
+import com.google.rolecall.Constants;
+import com.google.rolecall.jsonobjects.ResponseSchema;
+import com.google.rolecall.jsonobjects.SyncInfo;
+import com.google.rolecall.restcontrollers.Annotations.Endpoint;
+import com.google.rolecall.restcontrollers.Annotations.Get;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.SyncServices;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/** Delta sync of performances, casts, sections, users and unavailabilities. */
+@Endpoint(Constants.Mappings.SYNC)
+public class SyncManagement extends AsyncRestEndpoint {
+
+  private final SyncServices syncService;
+
+  /**
+   * Gets everything changed after a version, oldest first. Clients start from 0, then pass the
+   * returned version as since until hasMore is false.
+   *
+   * @param since Version returned by the previous call, or 0.
+   * @param limit Most changes to return.
+   * @return Current state or tombstone of each changed entity, once per entity.
+   */
+  @Get
+  public CompletableFuture<ResponseSchema<SyncInfo>> getChanges(
+      @RequestParam(value=Constants.RequestParameters.SINCE, defaultValue="0") long since,
+      @RequestParam(value=Constants.RequestParameters.LIMIT, required=false) Integer limit) {
+    SyncInfo changes;
+    try {
+      changes = syncService.getChangesSince(since, limit);
+    } catch(InvalidParameterException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    ResponseSchema<SyncInfo> response = new ResponseSchema<>(changes);
+    return CompletableFuture.completedFuture(response);
+  }
+
+  public SyncManagement(SyncServices syncService) {
+    this.syncService = syncService;
+  }
+}
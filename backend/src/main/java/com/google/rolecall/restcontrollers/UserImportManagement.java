@@ -0,0 +1,57 @@
+package com.google.rolecall.restcontrollers;
+
+import com.google.rolecall.Constants;
+import com.google.rolecall.jsonobjects.ResponseSchema;
+import com.google.rolecall.jsonobjects.UserImportRowInfo;
+import com.google.rolecall.restcontrollers.Annotations.Endpoint;
+import com.google.rolecall.restcontrollers.Annotations.Post;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.UserImportServices;
+import com.google.rolecall.services.UserImportServices.Format;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+/* Endpoint for creating many users from a single CSV or NDJSON upload. */
+@Endpoint(Constants.Mappings.USER_IMPORT)
+public class UserImportManagement extends AsyncRestEndpoint {
+
+  private final UserImportServices userImportService;
+
+  @Post
+  public CompletableFuture<ResponseSchema<List<UserImportRowInfo>>> importUsers(
+      Principal principal, @RequestParam(Constants.RequestParameters.FILE) MultipartFile file) {
+    if(!getUser(principal).isAdmin()) {
+      return  CompletableFuture.failedFuture(insufficientPrivileges(Constants.Roles.ADMIN));
+    }
+    if (file == null || file.isEmpty()) {
+      return CompletableFuture.failedFuture(
+          new InvalidParameterException("File is required."));
+    }
+
+    String extension = FilenameUtils.getExtension(file.getOriginalFilename());
+    Format format = "ndjson".equalsIgnoreCase(extension) || "jsonl".equalsIgnoreCase(extension)
+        ? Format.NDJSON : Format.CSV;
+
+    List<UserImportRowInfo> results;
+    try (InputStream upload = file.getInputStream()) {
+      results = userImportService.importUsers(upload, format);
+    } catch(Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    ResponseSchema<List<UserImportRowInfo>> response =
+        new ResponseSchema<List<UserImportRowInfo>>(results);
+    return CompletableFuture.completedFuture(response);
+  }
+
+  @Autowired
+  public UserImportManagement(UserImportServices userImportService) {
+    this.userImportService = userImportService;
+  }
+}
@@ -11,13 +11,17 @@ import com.google.rolecall.restcontrollers.Annotations.Patch;
 import com.google.rolecall.restcontrollers.Annotations.Post;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.ResponseCacheServices;
 import com.google.rolecall.services.UserServices;
 import java.security.Principal;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 /** Endpoints for manipulating User objects. */
@@ -25,13 +29,30 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class UserManagement extends AsyncRestEndpoint {
   
   private final UserServices userService;
+  private final ResponseCacheServices responseCache;
+
+  /**
+   * Gets all {@link User} objects as JSON rendered once per change to the data.
+   *
+   * @param acceptEncoding gzip to receive the JSON compressed.
+   * @return JSON of the response from {@link #getAllUsers}.
+   */
+  @Get
+  public CompletableFuture<ResponseEntity<byte[]>> getAllUsersJson(
+      @RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false) String acceptEncoding) {
+    try {
+      return CompletableFuture.completedFuture(responseCache.getResponse(
+          Constants.Mappings.USER_MANAGEMENT, acceptEncoding, () -> getAllUsers().get()));
+    } catch(Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
 
   /**
    * Gets all {@link User} objects stored in the database.
    * 
    * @return List of {@link UserInfo} objects.
    */
-  @Get
   public CompletableFuture<ResponseSchema<List<UserInfo>>> getAllUsers() {
     List<UserInfo> allUsers = userService.getAllUsers().stream().map(u->u.toUserInfo())
         .collect(Collectors.toList());
@@ -145,7 +166,8 @@ public class UserManagement extends AsyncRestEndpoint {
     return CompletableFuture.completedFuture(null);
   }
 
-  public UserManagement(UserServices userService) {
+  public UserManagement(UserServices userService, ResponseCacheServices responseCache) {
     this.userService = userService;
+    this.responseCache = responseCache;
   }
 }
@@ -0,0 +1,184 @@
+package com.google.rolecall.services;
+
+import java.io.FileNotFoundException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.rolecall.models.PendingAssetDeletion;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.repos.PendingAssetDeletionRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.StorageService;
+
+/*
+ * Deletes stored files in the background. Callers record a deletion in their own transaction
+ * and a scheduled worker removes the files in batches, retrying failures with exponential
+ * backoff, so requests never wait on storage deletes and no released file is left behind.
+ * The worker claims a batch in one short transaction, deletes the files outside of it and
+ * records the results in another, so no row is locked while storage answers. A deletion that
+ * keeps failing is dropped after the maximum number of attempts, leaving the file for the
+ * orphaned asset scan to queue again.
+ */
+@Service("assetCleanupServices")
+@Lazy(false)
+public class AssetCleanupServices {
+
+  private static final int DEFAULT_BATCH_SIZE = 50;
+  private static final long DEFAULT_INITIAL_BACKOFF_MS = 30_000;
+  private static final long DEFAULT_MAX_BACKOFF_MS = 60L * 60 * 1000;
+  private static final int DEFAULT_MAX_ATTEMPTS = 20;
+  private static final long DEFAULT_CLAIM_MS = 5L * 60 * 1000;
+
+  private final PendingAssetDeletionRepository deletionRepo;
+  private final StorageService storage;
+  private final TransactionTemplate transactions;
+  private final int batchSize;
+  private final long initialBackoffMs;
+  private final long maxBackoffMs;
+  private final int maxAttempts;
+  private final long claimMs;
+  private Logger logger = Logger.getLogger(AssetCleanupServices.class.getName());
+
+  /* Queues the file for deletion once the surrounding transaction commits. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void scheduleDeletion(AssetType type, String fileName) {
+    deletionRepo.save(new PendingAssetDeletion(type, fileName));
+  }
+
+  /**
+   * Withdraws a queued deletion before the same file is stored again. Waits only while a
+   * worker claims or finishes the row, never on storage. A file a worker is deleting right now
+   * is refused, since the delete could otherwise land after the new write.
+   *
+   * @throws InvalidParameterException When a worker is deleting the file.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void cancelDeletion(AssetType type, String fileName) throws InvalidParameterException {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    List<PendingAssetDeletion> queued = deletionRepo.lockByFile(type, fileName);
+    for (PendingAssetDeletion deletion : queued) {
+      if (deletion.isClaimedAt(now)) {
+        throw new InvalidParameterException(String.format(
+            "%s/%s is being deleted. Try again shortly.", type.location, fileName));
+      }
+    }
+    deletionRepo.deleteAllInBatch(queued);
+  }
+
+  @Scheduled(fixedDelayString = "${rolecall.asset.deletion.interval-ms:10000}",
+      initialDelayString = "${rolecall.asset.deletion.interval-ms:10000}")
+  public void deletePendingAssets() {
+    try {
+      deleteDue(System.currentTimeMillis());
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Deleting pending assets stopped: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Deletes one batch of due files. Files that are already gone count as deleted.
+   *
+   * @return Number of queued deletions completed.
+   */
+  int deleteDue(long now) {
+    Timestamp claimedUntil = new Timestamp(now + claimMs);
+    List<PendingAssetDeletion> claimed = transactions.execute(status -> {
+      List<PendingAssetDeletion> due = deletionRepo.findDue(new Timestamp(now),
+          PageRequest.of(0, batchSize));
+      due.forEach(deletion -> deletion.claim(claimedUntil));
+      return due;
+    });
+    if (claimed == null || claimed.isEmpty()) {
+      return 0;
+    }
+
+    List<Integer> finishedIds = new ArrayList<>();
+    Map<Integer, String> errors = new HashMap<>();
+    int deleted = 0;
+    for (PendingAssetDeletion deletion : claimed) {
+      try {
+        storage.delete(deletion.getType(), deletion.getFileName());
+        deleted++;
+      } catch (FileNotFoundException e) {
+        // Already deleted.
+        deleted++;
+      } catch (InvalidParameterException e) {
+        logger.log(Level.SEVERE, String.format("Dropping deletion of %s/%s: %s",
+            deletion.getType().location, deletion.getFileName(), e.getMessage()));
+      } catch (Exception e) {
+        if (deletion.getAttempts() + 1 < maxAttempts) {
+          errors.put(deletion.getId(), e.getMessage());
+          continue;
+        }
+        logger.log(Level.SEVERE, String.format("Giving up deleting %s/%s after %d attempts: %s",
+            deletion.getType().location, deletion.getFileName(), maxAttempts, e.getMessage()));
+      }
+      finishedIds.add(deletion.getId());
+    }
+
+    transactions.executeWithoutResult(status -> {
+      if (!finishedIds.isEmpty()) {
+        deletionRepo.deleteClaimed(finishedIds, claimedUntil);
+      }
+      if (!errors.isEmpty()) {
+        retryLater(errors, claimedUntil, now);
+      }
+    });
+    return deleted;
+  }
+
+  /* Records failed attempts on the rows still held by the claim. */
+  private void retryLater(Map<Integer, String> errors, Timestamp claimedUntil, long now) {
+    for (PendingAssetDeletion deletion : deletionRepo.findAllById(errors.keySet())) {
+      if (!claimedUntil.equals(deletion.getClaimedUntil())) {
+        continue;
+      }
+      deletion.retryAt(new Timestamp(now + backoffMillis(deletion.getAttempts())),
+          errors.get(deletion.getId()));
+      logger.log(Level.WARNING, String.format("Deleting %s/%s failed %d times: %s",
+          deletion.getType().location, deletion.getFileName(), deletion.getAttempts(),
+          deletion.getLastError()));
+    }
+  }
+
+  /* Doubles from the initial backoff with each failed attempt, up to the maximum. */
+  long backoffMillis(int previousAttempts) {
+    long delay = initialBackoffMs;
+    for (int i = 0; i < previousAttempts && delay < maxBackoffMs; i++) {
+      delay *= 2;
+    }
+    return Math.min(delay, maxBackoffMs);
+  }
+
+  public AssetCleanupServices(PendingAssetDeletionRepository deletionRepo,
+      StorageService storage, PlatformTransactionManager transactionManager, Environment env) {
+    this.deletionRepo = deletionRepo;
+    this.storage = storage;
+    this.transactions = new TransactionTemplate(transactionManager);
+    this.batchSize = env.getProperty("rolecall.asset.deletion.batch-size", Integer.class,
+        DEFAULT_BATCH_SIZE);
+    this.initialBackoffMs = env.getProperty("rolecall.asset.deletion.initial-backoff-ms",
+        Long.class, DEFAULT_INITIAL_BACKOFF_MS);
+    this.maxBackoffMs = env.getProperty("rolecall.asset.deletion.max-backoff-ms", Long.class,
+        DEFAULT_MAX_BACKOFF_MS);
+    this.maxAttempts = env.getProperty("rolecall.asset.deletion.max-attempts", Integer.class,
+        DEFAULT_MAX_ATTEMPTS);
+    this.claimMs = env.getProperty("rolecall.asset.deletion.claim-ms", Long.class,
+        DEFAULT_CLAIM_MS);
+  }
+}
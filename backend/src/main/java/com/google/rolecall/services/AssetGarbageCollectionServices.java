@@ -0,0 +1,247 @@
+package com.google.rolecall.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.rolecall.models.AssetBlob;
+import com.google.rolecall.models.AssetScanCursor;
+import com.google.rolecall.models.UserAsset;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.repos.AssetBlobRepository;
+import com.google.rolecall.repos.AssetScanCursorRepository;
+import com.google.rolecall.repos.PendingAssetDeletionRepository;
+import com.google.rolecall.repos.UserAssetRepository;
+import com.google.rolecall.util.StorageService;
+import com.google.rolecall.util.StoredFile;
+
+/*
+ * Finds stored files that no UserAsset refers to, such as files left by failed uploads or by
+ * users deleted together with their assets, and queues them with AssetCleanupServices. Storage
+ * is listed one page at a time outside any transaction, then each page is checked against the
+ * asset table in one short transaction, with the position saved after every page so a run
+ * resumes where the last one stopped. Files younger than the grace period are never touched since their asset may not be
+ * committed yet.
+ */
+@Service("assetGarbageCollectionServices")
+@Lazy(false)
+public class AssetGarbageCollectionServices implements MeterBinder {
+
+  static final String SCAN_NAME = "orphanedAssets";
+
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int DEFAULT_PAGES_PER_RUN = 20;
+  private static final long DEFAULT_GRACE_PERIOD_MS = 24L * 60 * 60 * 1000;
+  private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+  private static final Pattern ASSET_ID = Pattern.compile("[0-9]{1,9}");
+
+  private final AssetScanCursorRepository cursorRepo;
+  private final UserAssetRepository assetRepo;
+  private final AssetBlobRepository blobRepo;
+  private final PendingAssetDeletionRepository deletionRepo;
+  private final AssetCleanupServices assetCleanup;
+  private final StorageService storage;
+  private final TransactionTemplate transactions;
+  private final int pageSize;
+  private final int pagesPerRun;
+  private final long gracePeriodMs;
+  private final AtomicLong scannedFiles = new AtomicLong();
+  private final AtomicLong orphanedFiles = new AtomicLong();
+  private final AtomicLong reclaimedBytes = new AtomicLong();
+  private final AtomicLong completedPasses = new AtomicLong();
+  private Logger logger = Logger.getLogger(AssetGarbageCollectionServices.class.getName());
+
+  /* Reconciles up to pagesPerRun pages, stopping early at the end of a full pass. */
+  @Scheduled(fixedDelayString = "${rolecall.asset.gc.interval-ms:3600000}",
+      initialDelayString = "${rolecall.asset.gc.interval-ms:3600000}")
+  public void collectOrphanedAssets() {
+    for (int i = 0; i < pagesPerRun; i++) {
+      boolean passComplete;
+      try {
+        passComplete = reconcileNextPage();
+      } catch (Exception e) {
+        logger.log(Level.WARNING, "Orphaned asset scan stopped: " + e.getMessage());
+        return;
+      }
+      if (passComplete) {
+        completedPasses.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  /*
+   * Reconciles the page after the cursor and advances it. Returns true at the end of a pass.
+   * Storage is listed before the cursor and blob counts are locked, so a slow listing never holds
+   * up uploads; a page another instance reconciled in the meantime is skipped.
+   */
+  boolean reconcileNextPage() throws IOException {
+    AssetType[] types = AssetType.values();
+    AssetScanCursor start = cursorRepo.findById(SCAN_NAME)
+        .orElseGet(() -> new AssetScanCursor(SCAN_NAME, types[0]));
+    AssetType type = start.getType() == null ? types[0] : start.getType();
+    String after = start.getLastFileName();
+
+    List<StoredFile> page = storage.list(type, after, pageSize);
+
+    Boolean passComplete = transactions.execute(status -> {
+      AssetScanCursor cursor = cursorRepo.lockByScanName(SCAN_NAME)
+          .orElseGet(() -> cursorRepo.save(new AssetScanCursor(SCAN_NAME, types[0])));
+      AssetType current = cursor.getType() == null ? types[0] : cursor.getType();
+      if (current != type || !Objects.equals(cursor.getLastFileName(), after)) {
+        return false;
+      }
+      reconcile(type, page, System.currentTimeMillis());
+
+      if (page.size() >= pageSize) {
+        cursor.moveTo(type, page.get(page.size() - 1).getName());
+        return false;
+      }
+      if (type.ordinal() + 1 < types.length) {
+        cursor.moveTo(types[type.ordinal() + 1], null);
+        return false;
+      }
+      cursor.moveTo(types[0], null);
+      return true;
+    });
+    return Boolean.TRUE.equals(passComplete);
+  }
+
+  private void reconcile(AssetType type, List<StoredFile> files, long now) {
+    scannedFiles.addAndGet(files.size());
+    Map<String, StoredFile> orphans = new LinkedHashMap<>();
+    for (StoredFile file : files) {
+      if (file.getLastModified() < now - gracePeriodMs) {
+        orphans.put(file.getName(), file);
+      }
+    }
+    if (orphans.isEmpty()) {
+      return;
+    }
+
+    Map<String, Set<String>> originalsByFile = new HashMap<>();
+    Set<String> candidates = new HashSet<>();
+    for (String name : orphans.keySet()) {
+      Set<String> originals = originalNames(type, name);
+      originalsByFile.put(name, originals);
+      candidates.addAll(originals);
+    }
+
+    // Lock before reading references so an upload of the same content waits for this page.
+    List<AssetBlob> blobs = blobRepo.lockByFileNames(candidates);
+    Set<String> referenced = referencedFileNames(candidates);
+    orphans.keySet().removeIf(
+        name -> !Collections.disjoint(originalsByFile.get(name), referenced));
+    if (orphans.isEmpty()) {
+      return;
+    }
+    orphans.keySet().removeAll(deletionRepo.findPendingFileNames(type, orphans.keySet()));
+
+    if (type == AssetType.PROFILEPICTURE) {
+      // Counts left behind by assets removed without releasing them, such as with their owner.
+      blobRepo.deleteAllInBatch(blobs.stream()
+          .filter(blob -> orphans.containsKey(blob.getFileName()))
+          .collect(Collectors.toList()));
+    }
+    for (StoredFile orphan : orphans.values()) {
+      assetCleanup.scheduleDeletion(type, orphan.getName());
+      orphanedFiles.incrementAndGet();
+      reclaimedBytes.addAndGet(orphan.getSize());
+    }
+  }
+
+  /* Names of the profile pictures a stored file belongs to. */
+  static Set<String> originalNames(AssetType type, String fileName) {
+    if (type == AssetType.PROFILEPICTURE) {
+      return Set.of(fileName);
+    }
+    // Thumbnails are named after their original with a .jpg extension added.
+    return Set.of(FilenameUtils.getBaseName(fileName));
+  }
+
+  /* Which of the names belong to an existing UserAsset, by content hash or legacy id. */
+  private Set<String> referencedFileNames(Set<String> fileNames) {
+    Set<String> contentHashes = new HashSet<>();
+    Set<Integer> ids = new HashSet<>();
+    for (String fileName : fileNames) {
+      String baseName = FilenameUtils.getBaseName(fileName);
+      if (CONTENT_HASH.matcher(baseName).matches()) {
+        contentHashes.add(baseName);
+      } else if (ASSET_ID.matcher(baseName).matches()) {
+        ids.add(Integer.parseInt(baseName));
+      }
+    }
+
+    Set<String> referenced = new HashSet<>();
+    if (!contentHashes.isEmpty()) {
+      for (UserAsset asset : assetRepo.findByContentHashIn(contentHashes)) {
+        referenced.add(asset.getFileName());
+      }
+    }
+    if (!ids.isEmpty()) {
+      for (UserAsset asset : assetRepo.findByContentHashIsNullAndIdIn(ids)) {
+        referenced.add(asset.getFileName());
+      }
+    }
+    referenced.retainAll(fileNames);
+    return referenced;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("rolecall.asset.gc.scanned", scannedFiles, AtomicLong::get)
+        .register(registry);
+    FunctionCounter.builder("rolecall.asset.gc.orphans", orphanedFiles, AtomicLong::get)
+        .register(registry);
+    FunctionCounter.builder("rolecall.asset.gc.reclaimed", reclaimedBytes, AtomicLong::get)
+        .baseUnit("bytes")
+        .register(registry);
+    FunctionCounter.builder("rolecall.asset.gc.passes", completedPasses, AtomicLong::get)
+        .register(registry);
+  }
+
+  public long getReclaimedBytes() {
+    return reclaimedBytes.get();
+  }
+
+  public AssetGarbageCollectionServices(AssetScanCursorRepository cursorRepo,
+      UserAssetRepository assetRepo, AssetBlobRepository blobRepo,
+      PendingAssetDeletionRepository deletionRepo, AssetCleanupServices assetCleanup,
+      StorageService storage, PlatformTransactionManager transactionManager, Environment env) {
+    this.cursorRepo = cursorRepo;
+    this.assetRepo = assetRepo;
+    this.blobRepo = blobRepo;
+    this.deletionRepo = deletionRepo;
+    this.assetCleanup = assetCleanup;
+    this.storage = storage;
+    this.transactions = new TransactionTemplate(transactionManager);
+    this.pageSize = env.getProperty("rolecall.asset.gc.page-size", Integer.class,
+        DEFAULT_PAGE_SIZE);
+    this.pagesPerRun = env.getProperty("rolecall.asset.gc.pages-per-run", Integer.class,
+        DEFAULT_PAGES_PER_RUN);
+    this.gracePeriodMs = env.getProperty("rolecall.asset.gc.grace-period-ms", Long.class,
+        DEFAULT_GRACE_PERIOD_MS);
+  }
+}
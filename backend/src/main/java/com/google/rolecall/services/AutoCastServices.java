@@ -0,0 +1,261 @@
+package com.google.rolecall.services;
+
+import com.google.rolecall.jsonobjects.PerformanceCastInfo;
+import com.google.rolecall.jsonobjects.PerformanceCastMemberInfo;
+import com.google.rolecall.jsonobjects.PerformanceInfo;
+import com.google.rolecall.jsonobjects.PerformancePositionInfo;
+import com.google.rolecall.jsonobjects.PerformanceSectionInfo;
+import com.google.rolecall.models.Performance;
+import com.google.rolecall.models.PerformanceCastMember;
+import com.google.rolecall.models.PerformanceSection;
+import com.google.rolecall.models.Position;
+import com.google.rolecall.models.Unavailability;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.CastMemberRepository;
+import com.google.rolecall.repos.PerformanceCastMemberRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.AutoCaster;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * Proposes casts for the open parts of a performance. Each position of a piece is filled up to
+ * its size, in every cast number the piece's saved casts use, from the active users who dance
+ * that position in a saved cast, or any active dancer when nobody does. Users unavailable on the
+ * day are left out, nobody is proposed twice in one cast number, and users cast the least in
+ * performances of the surrounding season are preferred. Nothing is saved: the proposal is a
+ * performance edit the caller can review and send back.
+ */
+@Service("autoCastServices")
+@Transactional(rollbackFor = Exception.class)
+public class AutoCastServices {
+
+  private final PerformanceServices performanceService;
+  private final UserServices userService;
+  private final UnavailabilityServices unavailabilityService;
+  private final CastMemberRepository castMemberRepo;
+  private final PerformanceCastMemberRepository performanceCastMemberRepo;
+  private final long maxNodes;
+  private final long seasonMillis;
+
+  /* A part to fill: one order of a position in one cast number of a piece. */
+  private static class Part {
+    private final PerformanceSection performanceSection;
+    private final Position position;
+    private final int castNumber;
+    private final int order;
+
+    Part(PerformanceSection performanceSection, Position position, int castNumber, int order) {
+      this.performanceSection = performanceSection;
+      this.position = position;
+      this.castNumber = castNumber;
+      this.order = order;
+    }
+  }
+
+  /**
+   * Proposes members for the parts of a performance nobody is cast in yet.
+   *
+   * @param performanceId Performance to cast.
+   * @return Edit of the performance adding the proposed members, with a warning for every part
+   *     left open.
+   */
+  public ServiceResult<PerformanceInfo> proposeCasts(int performanceId)
+      throws EntityNotFoundException, InvalidParameterException {
+    Performance performance = performanceService.getPerformance(performanceId);
+    List<PerformanceSection> program = performance.getProgram();
+
+    Set<Integer> sectionIds = program.stream().map(s -> s.getSection().getId())
+        .collect(Collectors.toSet());
+    Map<Integer, Set<Integer>> dancersByPosition = new HashMap<>();
+    Map<Integer, Set<Integer>> castNumbersBySection = new HashMap<>();
+    Map<Integer, Integer> sectionByPosition = new HashMap<>();
+    for (PerformanceSection performanceSection : program) {
+      for (Position position : performanceSection.getSection().getPositions()) {
+        sectionByPosition.put(position.getId(), performanceSection.getSection().getId());
+      }
+    }
+    if (!sectionIds.isEmpty()) {
+      for (Object[] row : castMemberRepo.findPositionCastNumberUsers(sectionIds)) {
+        Integer positionId = (Integer) row[0];
+        dancersByPosition.computeIfAbsent(positionId, id -> new HashSet<>())
+            .add((Integer) row[2]);
+        castNumbersBySection.computeIfAbsent(sectionByPosition.get(positionId),
+            id -> new TreeSet<>()).add((Integer) row[1]);
+      }
+    }
+
+    // Dense indexes of the users that can be cast.
+    List<User> users = userService.getAllUsers().stream().filter(User::isActive)
+        .collect(Collectors.toList());
+    Map<Integer, Integer> indexes = new HashMap<>();
+    for (User user : users) {
+      indexes.put(user.getId(), indexes.size());
+    }
+    BitSet available = new BitSet(users.size());
+    BitSet dancers = new BitSet(users.size());
+    available.set(0, users.size());
+    for (User user : users) {
+      if (user.isDancer()) {
+        dancers.set(indexes.get(user.getId()));
+      }
+    }
+    Date day = new Date(performance.getDate().getTime());
+    for (Unavailability unavailability :
+        unavailabilityService.getUnavailabilityByDateRange(day, day)) {
+      Integer index = indexes.get(unavailability.getUser().getId());
+      if (index != null) {
+        available.clear(index);
+      }
+    }
+
+    AutoCaster caster = new AutoCaster(seasonLoad(performance, indexes), maxNodes);
+    List<Part> parts = new ArrayList<>();
+    for (PerformanceSection performanceSection : program) {
+      Set<Integer> castNumbers = castNumbersBySection.getOrDefault(
+          performanceSection.getSection().getId(), Set.of(performanceSection.getPrimaryCast()));
+
+      Map<Integer, Map<Integer, Set<Integer>>> takenOrders = new HashMap<>();
+      for (PerformanceCastMember member : performanceSection.getPerformanceCastMembers()) {
+        Integer index = indexes.get(member.getUser().getId());
+        if (index != null) {
+          caster.reserve(member.getCastNumber(), index);
+        }
+        takenOrders.computeIfAbsent(member.getPosition().getId(), id -> new HashMap<>())
+            .computeIfAbsent(member.getCastNumber(), n -> new HashSet<>())
+            .add(member.getOrder());
+      }
+
+      for (Position position : performanceSection.getSection().getPositions()) {
+        BitSet allowed = candidates(dancersByPosition.get(position.getId()), indexes, dancers);
+        allowed.and(available);
+        int size = position.getSize() == null ? 1 : position.getSize();
+        for (int castNumber : castNumbers) {
+          Set<Integer> taken = takenOrders.getOrDefault(position.getId(), Map.of())
+              .getOrDefault(castNumber, Set.of());
+          for (int order = 0, open = size - taken.size(); open > 0; order++) {
+            if (!taken.contains(order)) {
+              caster.addSlot(castNumber, allowed);
+              parts.add(new Part(performanceSection, position, castNumber, order));
+              open--;
+            }
+          }
+        }
+      }
+    }
+
+    return toProposal(performance, parts, caster.solve(), users);
+  }
+
+  /* Users who dance the position in a saved cast, or every dancer when nobody does. */
+  private BitSet candidates(Set<Integer> userIds, Map<Integer, Integer> indexes,
+      BitSet dancers) {
+    if (userIds == null) {
+      return (BitSet) dancers.clone();
+    }
+    BitSet candidates = new BitSet(indexes.size());
+    for (Integer userId : userIds) {
+      Integer index = indexes.get(userId);
+      if (index != null) {
+        candidates.set(index);
+      }
+    }
+    return candidates;
+  }
+
+  /* Parts each user is cast in by other performances within the season around this one. */
+  private int[] seasonLoad(Performance performance, Map<Integer, Integer> indexes) {
+    int[] load = new int[indexes.size()];
+    long time = performance.getDate().getTime();
+    for (Object[] row : performanceCastMemberRepo.countByUserBetween(
+        new Timestamp(time - seasonMillis), new Timestamp(time + seasonMillis),
+        performance.getId())) {
+      Integer index = indexes.get((Integer) row[0]);
+      if (index != null) {
+        load[index] = ((Long) row[1]).intValue();
+      }
+    }
+    return load;
+  }
+
+  private ServiceResult<PerformanceInfo> toProposal(Performance performance, List<Part> parts,
+      int[] dancers, List<User> users) {
+    ServiceResult<PerformanceInfo> result = new ServiceResult<>();
+    Map<PerformanceSection, Map<Position, Map<Integer, List<PerformanceCastMemberInfo>>>>
+        proposed = new LinkedHashMap<>();
+    for (int slot = 0; slot < parts.size(); slot++) {
+      Part part = parts.get(slot);
+      if (dancers[slot] == AutoCaster.UNFILLED) {
+        result.addWarning(String.format("No dancer available for %s in cast %d of %s",
+            part.position.getName(), part.castNumber,
+            part.performanceSection.getSection().getName()));
+        continue;
+      }
+      proposed.computeIfAbsent(part.performanceSection, s -> new LinkedHashMap<>())
+          .computeIfAbsent(part.position, p -> new LinkedHashMap<>())
+          .computeIfAbsent(part.castNumber, n -> new ArrayList<>())
+          .add(PerformanceCastMemberInfo.newBuilder()
+              .setOrder(part.order)
+              .setUserId(users.get(dancers[slot]).getId())
+              .setPerforming(part.castNumber == part.performanceSection.getPrimaryCast())
+              .build());
+    }
+
+    List<PerformanceSectionInfo> sections = new ArrayList<>();
+    for (PerformanceSection performanceSection : proposed.keySet()) {
+      List<PerformancePositionInfo> positions = new ArrayList<>();
+      for (Map.Entry<Position, Map<Integer, List<PerformanceCastMemberInfo>>> position :
+          proposed.get(performanceSection).entrySet()) {
+        List<PerformanceCastInfo> casts = position.getValue().entrySet().stream()
+            .map(cast -> PerformanceCastInfo.newBuilder()
+                .setCastNumber(cast.getKey())
+                .setPerformanceCastMembers(cast.getValue())
+                .build())
+            .collect(Collectors.toList());
+        positions.add(PerformancePositionInfo.newBuilder()
+            .setPositionId(position.getKey().getId())
+            .setPositionOrder(position.getKey().getOrder())
+            .setPerformanceCasts(casts)
+            .build());
+      }
+      sections.add(PerformanceSectionInfo.newBuilder()
+          .setId(performanceSection.getId())
+          .setPositions(positions)
+          .build());
+    }
+
+    result.setResult(PerformanceInfo.newBuilder()
+        .setId(performance.getId())
+        .setPerformanceSections(sections)
+        .build());
+    return result;
+  }
+
+  public AutoCastServices(PerformanceServices performanceService, UserServices userService,
+      UnavailabilityServices unavailabilityService, CastMemberRepository castMemberRepo,
+      PerformanceCastMemberRepository performanceCastMemberRepo, Environment env) {
+    this.performanceService = performanceService;
+    this.userService = userService;
+    this.unavailabilityService = unavailabilityService;
+    this.castMemberRepo = castMemberRepo;
+    this.performanceCastMemberRepo = performanceCastMemberRepo;
+    this.maxNodes = env.getProperty("rolecall.autocast.max-nodes", Long.class, 50000L);
+    this.seasonMillis = TimeUnit.DAYS.toMillis(
+        env.getProperty("rolecall.autocast.season-days", Long.class, 182L));
+  }
+}
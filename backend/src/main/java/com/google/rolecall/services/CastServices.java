@@ -5,6 +5,7 @@ import com.google.rolecall.jsonobjects.CastInfo;
 import com.google.rolecall.jsonobjects.CastMemberInfo;
 import com.google.rolecall.models.Cast;
 import com.google.rolecall.models.CastMember;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.Position;
 import com.google.rolecall.models.Section;
 import com.google.rolecall.models.SubCast;
@@ -13,14 +14,18 @@ import com.google.rolecall.models.User;
 import com.google.rolecall.repos.CastRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.VersionedCache;
 
 // import java.sql.Date;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +36,8 @@ public class CastServices {
   private final CastRepository castRepo;
   private final UserServices userService;
   private final SectionServices sectionService;
+  private final ChangeLogServices changeLog;
+  private final VersionedCache<CastInfo> castInfoCache;
   // private final UnavailabilityServices unavailabilityService;
 
   public Cast getCast(Integer id) throws EntityNotFoundException, InvalidParameterException {
@@ -67,11 +74,27 @@ public class CastServices {
   //   });    
   // }
 
-  public List<Cast> getCastsBySectionId(int id) throws EntityNotFoundException, InvalidParameterException {
-    Section section = sectionService.getSection(id);
-    List<Cast> casts = castRepo.findAllBySection(section);
+  /* CastInfo of every Cast, rebuilding only those that changed since they were last cached. */
+  public List<CastInfo> getAllCastInfos() {
+    return getCastInfos(castRepo.findAllIds());
+  }
+
+  public List<CastInfo> getCastInfosBySectionId(int id) throws EntityNotFoundException,
+      InvalidParameterException {
+    List<Integer> ids = castRepo.findIdsBySectionId(id);
+    if(ids.isEmpty()) {
+      // Fails when the section does not exist.
+      sectionService.getSection(id);
+    }
+    return getCastInfos(ids);
+  }
 
-    return casts;
+  private List<CastInfo> getCastInfos(List<Integer> ids) {
+    return castInfoCache.getAll(ids, changeLog.getVersions(ChangeType.CAST, ids), missing -> {
+      Map<Integer, CastInfo> infos = new HashMap<>();
+      castRepo.findAllWithMembersByIdIn(missing).forEach(c -> infos.put(c.getId(), c.toCastInfo()));
+      return infos;
+    });
   }
 
   public ServiceResult<Cast> createCast(CastInfo newCast) throws InvalidParameterException,
@@ -80,6 +103,7 @@ public class CastServices {
     List<String> warnings = verifySubCasts(cast);
 
     cast = castRepo.save(cast);
+    changeLog.recordChange(ChangeType.CAST, cast.getId());
 
     ServiceResult<Cast> result = new ServiceResult<>(cast, warnings);
     return result;
@@ -101,6 +125,7 @@ public class CastServices {
     }
 
     cast = castRepo.save(cast);
+    changeLog.recordChange(ChangeType.CAST, cast.getId());
 
     ServiceResult<Cast> result = new ServiceResult<>(cast, warnings);
     return result;
@@ -269,6 +294,34 @@ public class CastServices {
     return warnings;
   }
 
+  /**
+   * Copies a {@link Cast} with its {@link SubCast} and {@link CastMember} rows into a new Cast of
+   * the same section. The rows are copied with INSERT ... SELECT, so the number of statements
+   * does not grow with the size of the cast.
+   *
+   * @param id Id of the Cast to copy.
+   * @param name Name of the copy, or null for the source name followed by " (copy)".
+   * @return The new {@link Cast}.
+   * @throws EntityNotFoundException When there is no Cast with the id.
+   */
+  public Cast cloneCast(int id, String name) throws EntityNotFoundException {
+    Optional<String> sourceName = castRepo.findNameById(id);
+    if(sourceName.isEmpty()) {
+      throw new EntityNotFoundException(String.format("No Cast with id %d", id));
+    }
+
+    int subCasts = castRepo.lockSubCastCount(id);
+    int members = castRepo.lockCastMemberCount(id);
+    int copyId = castRepo.reserveIds(1 + subCasts + members);
+    castRepo.copyCast(id, copyId,
+        name == null || name.isBlank() ? sourceName.get() + " (copy)" : name);
+    castRepo.copySubCasts(id, copyId);
+    castRepo.copyCastMembers(id, copyId, copyId + subCasts);
+    changeLog.recordChange(ChangeType.CAST, copyId);
+
+    return castRepo.findAllWithMembersByIdIn(List.of(copyId)).get(0);
+  }
+
   public void deleteCast(int id) throws EntityNotFoundException {
     Optional<Cast> query = castRepo.findById(id);
 
@@ -281,14 +334,18 @@ public class CastServices {
     section.removeCast(cast);
 
     castRepo.delete(cast);
+    changeLog.recordDeletion(ChangeType.CAST, id);
   }
 
   public CastServices(CastRepository castRepo, SectionServices sectionService,
-      UserServices userService) {
+      UserServices userService, ChangeLogServices changeLog,
+      @Qualifier("castInfoCache") VersionedCache<CastInfo> castInfoCache) {
       // UserServices userService, UnavailabilityServices unavailabilityService) {
     this.castRepo = castRepo;
     this.userService = userService;
     this.sectionService = sectionService;
+    this.changeLog = changeLog;
+    this.castInfoCache = castInfoCache;
     // this.unavailabilityService = unavailabilityService;
   }
 }
@@ -0,0 +1,339 @@
+package com.google.rolecall.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.google.rolecall.jsonobjects.ChangeEventInfo;
+import com.google.rolecall.models.ChangeRecord;
+import com.google.rolecall.repos.ChangeRecordRepository;
+
+/*
+ * Feed of committed changes pushed to clients as server sent events, so they refetch only what
+ * changed instead of polling the list endpoints. Each event is numbered with the version the
+ * change log recorded for it, so an event id can be passed to /api/sync as since.
+ *
+ * The change log sends changes committed by this instance as soon as they commit. Every
+ * instance also polls the change log, so subscribers see changes committed by any instance
+ * within the poll interval, and events are always sent in version order. A client reconnecting
+ * with Last-Event-ID is replayed what it missed from the change log; one that fell further
+ * behind than its buffer is sent a reset event telling it to reload everything. Every
+ * subscriber has a bounded buffer written by the event executor; one that fills it is
+ * disconnected rather than slowing the others, and reconnects with Last-Event-ID.
+ */
+@Service("changeEventServices")
+@Lazy(false)
+public class ChangeEventServices {
+
+  static final String CHANGE_EVENT = "change";
+  static final String RESET_EVENT = "reset";
+
+  private static final int DEFAULT_BUFFER_SIZE = 100;
+  private static final long DEFAULT_TIMEOUT_MS = 30L * 60 * 1000;
+  private static final int POLL_PAGE_SIZE = 500;
+
+  private final ChangeRecordRepository recordRepo;
+  private final TaskExecutor eventExecutor;
+  private final int bufferSize;
+  private final long timeoutMs;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  // Changes committed here that arrived before an earlier version was sent, by version.
+  private final TreeMap<Long, ChangeEventInfo> waiting = new TreeMap<>();
+  // Latest version sent to subscribers, or -1 until read from the change log.
+  private long lastVersion = -1;
+  private Logger logger = Logger.getLogger(ChangeEventServices.class.getName());
+
+  /**
+   * Opens a stream of change events.
+   *
+   * @param lastEventId Id of the last event the client received, or null on first connect.
+   * @return Emitter that first replays the events after lastEventId.
+   */
+  public SseEmitter subscribe(String lastEventId) {
+    if (getLastVersion() < 0) {
+      pollChanges();
+    }
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    Long since = parseVersion(lastEventId);
+    Subscriber subscriber = new Subscriber(emitter, since != null);
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(e -> subscriber.close());
+
+    long upTo;
+    synchronized (this) {
+      upTo = lastVersion;
+      subscribers.add(subscriber);
+    }
+    if (since == null) {
+      if (lastEventId != null) {
+        subscriber.replay(List.of(resetEvent(upTo)));
+      }
+      return emitter;
+    }
+
+    // Events sent while the replay is read are held by the subscriber and follow it.
+    List<SseEventBuilder> replay = new ArrayList<>();
+    try {
+      List<ChangeRecord> missed = since < upTo ? recordRepo.findByVersionGreaterThanOrderByVersion(
+          since, PageRequest.of(0, bufferSize + 1)) : List.of();
+      for (ChangeRecord change : missed) {
+        if (change.getVersion() <= upTo) {
+          replay.add(changeEvent(eventOf(change)));
+        }
+      }
+      if (since > upTo || replay.size() > bufferSize) {
+        replay = List.of(resetEvent(upTo));
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Unable to replay change events: " + e.getMessage());
+      replay = List.of(resetEvent(upTo));
+    }
+    subscriber.replay(replay);
+    return emitter;
+  }
+
+  /* Comment lines keep idle connections open through proxies and detect closed clients. */
+  @Scheduled(fixedDelayString = "${rolecall.events.heartbeat-ms:15000}")
+  public synchronized void sendHeartbeats() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(SseEmitter.event().comment("heartbeat"));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rolecall.events.poll-ms:1000}")
+  public void pollCommittedChanges() {
+    try {
+      pollChanges();
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Polling the change log failed: " + e.getMessage());
+    }
+  }
+
+  int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  synchronized long getLastVersion() {
+    return lastVersion;
+  }
+
+  /* Sends changes this instance committed, in version order. */
+  synchronized void publish(Collection<ChangeRecord> changes) {
+    for (ChangeRecord change : changes) {
+      waiting.put(change.getVersion(), eventOf(change));
+    }
+    sendWaiting();
+  }
+
+  /*
+   * Sends every change committed after the last one sent, whichever instance committed it.
+   * Versions follow commit order, so nothing committed later can have a smaller version.
+   */
+  void pollChanges() {
+    long since = getLastVersion();
+    if (since < 0) {
+      Long current = recordRepo.currentVersion();
+      synchronized (this) {
+        if (lastVersion < 0) {
+          lastVersion = current == null ? 0 : current;
+          sendWaiting();
+        }
+      }
+      return;
+    }
+
+    List<ChangeRecord> committed;
+    do {
+      committed = recordRepo.findByVersionGreaterThanOrderByVersion(since,
+          PageRequest.of(0, POLL_PAGE_SIZE));
+      synchronized (this) {
+        for (ChangeRecord change : committed) {
+          if (change.getVersion() > lastVersion) {
+            send(eventOf(change));
+          }
+        }
+        sendWaiting();
+        since = lastVersion;
+      }
+    } while (committed.size() == POLL_PAGE_SIZE);
+  }
+
+  /* Sends waiting changes up to the first gap, which the next poll fills from the change log. */
+  private void sendWaiting() {
+    if (lastVersion < 0) {
+      return;
+    }
+    while (!waiting.isEmpty()) {
+      long version = waiting.firstKey();
+      if (version > lastVersion + 1) {
+        return;
+      }
+      ChangeEventInfo event = waiting.pollFirstEntry().getValue();
+      if (version == lastVersion + 1) {
+        send(event);
+      }
+    }
+  }
+
+  private void send(ChangeEventInfo event) {
+    lastVersion = event.version();
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(changeEvent(event));
+    }
+  }
+
+  /* Version named by an event id, or null. */
+  private Long parseVersion(String eventId) {
+    if (eventId == null) {
+      return null;
+    }
+    try {
+      long version = Long.parseLong(eventId);
+      return version < 0 ? null : version;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private ChangeEventInfo eventOf(ChangeRecord change) {
+    return ChangeEventInfo.newBuilder()
+        .setType(change.getType().name())
+        .setId(change.getEntityId())
+        .setVersion(change.getVersion())
+        .build();
+  }
+
+  private SseEventBuilder changeEvent(ChangeEventInfo event) {
+    return SseEmitter.event()
+        .id(Long.toString(event.version()))
+        .name(CHANGE_EVENT)
+        .data(event, MediaType.APPLICATION_JSON);
+  }
+
+  private SseEventBuilder resetEvent(long version) {
+    return SseEmitter.event()
+        .id(Long.toString(version))
+        .name(RESET_EVENT)
+        .data(version);
+  }
+
+  /* One open stream and the events waiting to be written to it. */
+  private class Subscriber {
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEventBuilder> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // Events sent while the replay is read, or null once it is queued. Guarded by the service.
+    private List<SseEventBuilder> held;
+    private volatile boolean closed;
+
+    /* Queues an event, disconnecting the subscriber when it is too far behind. */
+    void offer(SseEventBuilder event) {
+      if (closed) {
+        return;
+      }
+      if (held != null) {
+        if (held.size() < bufferSize) {
+          held.add(event);
+        } else {
+          logger.log(Level.INFO, "Disconnecting slow change event subscriber");
+          disconnect();
+        }
+        return;
+      }
+      if (!buffer.offer(event)) {
+        logger.log(Level.INFO, "Disconnecting slow change event subscriber");
+        disconnect();
+        return;
+      }
+      scheduleDrain();
+    }
+
+    /* Queues the replay ahead of the events held while it was read. */
+    void replay(List<SseEventBuilder> events) {
+      synchronized (ChangeEventServices.this) {
+        List<SseEventBuilder> live = held == null ? List.of() : held;
+        held = null;
+        events.forEach(this::offer);
+        live.forEach(this::offer);
+      }
+    }
+
+    private void scheduleDrain() {
+      if (!draining.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        eventExecutor.execute(this::drain);
+      } catch (TaskRejectedException e) {
+        draining.set(false);
+        disconnect();
+      }
+    }
+
+    private void drain() {
+      try {
+        SseEventBuilder event;
+        while (!closed && (event = buffer.poll()) != null) {
+          emitter.send(event);
+        }
+      } catch (IOException | IllegalStateException e) {
+        // The client went away. The container completes the emitter.
+        close();
+      } finally {
+        draining.set(false);
+      }
+      if (!closed && !buffer.isEmpty()) {
+        scheduleDrain();
+      }
+    }
+
+    private void disconnect() {
+      close();
+      emitter.complete();
+    }
+
+    void close() {
+      closed = true;
+      buffer.clear();
+      subscribers.remove(this);
+    }
+
+    Subscriber(SseEmitter emitter, boolean replaying) {
+      this.emitter = emitter;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+      this.held = replaying ? new ArrayList<>() : null;
+    }
+  }
+
+  public ChangeEventServices(ChangeRecordRepository recordRepo,
+      @Qualifier("eventExecutor") TaskExecutor eventExecutor, Environment env) {
+    this.recordRepo = recordRepo;
+    this.eventExecutor = eventExecutor;
+    this.bufferSize = env.getProperty("rolecall.events.buffer-size", Integer.class,
+        DEFAULT_BUFFER_SIZE);
+    this.timeoutMs = env.getProperty("rolecall.events.timeout-ms", Long.class,
+        DEFAULT_TIMEOUT_MS);
+  }
+}
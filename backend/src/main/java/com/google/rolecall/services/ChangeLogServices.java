@@ -0,0 +1,134 @@
+package com.google.rolecall.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.rolecall.models.ChangeRecord;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.repos.ChangeRecordRepository;
+import com.google.rolecall.util.VersionedCache;
+
+/*
+ * Records writes to performances, casts, sections, users and unavailabilities for delta sync
+ * and the change event feed. Changes are collected for the transaction and written just before
+ * it commits: the global sequence is advanced once for all of them, and its row lock is held
+ * until commit, so versions are assigned in commit order and a client reading above a version
+ * never misses a change committed later with a smaller one. Once the change commits, cached
+ * infos of changed entities are invalidated and the change event feed is sent the same versions.
+ */
+@Service("changeLogServices")
+public class ChangeLogServices {
+
+  private final ChangeRecordRepository recordRepo;
+  private final ChangeEventServices changeEvents;
+  private final List<VersionedCache<?>> infoCaches;
+
+  @Transactional
+  public void recordChange(ChangeType type, Integer id) {
+    record(type, List.of(id), false);
+  }
+
+  @Transactional
+  public void recordChanges(ChangeType type, Collection<Integer> ids) {
+    record(type, ids, false);
+  }
+
+  @Transactional
+  public void recordDeletion(ChangeType type, Integer id) {
+    record(type, List.of(id), true);
+  }
+
+  /* Version of the latest committed change, advanced by every recorded write. */
+  @Transactional(readOnly = true)
+  public Long getCurrentVersion() {
+    return recordRepo.currentVersion();
+  }
+
+  /**
+   * Current versions of existing entities, for checking cached infos. Entities that were
+   * deleted or never recorded have none.
+   *
+   * @return Version of each id, keyed by id.
+   */
+  @Transactional(readOnly = true)
+  public Map<Integer, Long> getVersions(ChangeType type, Collection<Integer> ids) {
+    Map<Integer, Long> versions = new HashMap<>();
+    List<String> recordIds = ids.stream()
+        .map(id -> ChangeRecord.idOf(type, id))
+        .collect(Collectors.toList());
+    for (ChangeRecord record : recordRepo.findAllById(recordIds)) {
+      if (!record.isDeleted()) {
+        versions.put(record.getEntityId(), record.getVersion());
+      }
+    }
+    return versions;
+  }
+
+  private void record(ChangeType type, Collection<Integer> ids, boolean deleted) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      pending = new PendingChanges();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    for (Integer id : ids) {
+      // The last write to an entity in the transaction decides whether it still exists.
+      pending.changes.put(ChangeRecord.idOf(type, id), new ChangeRecord(type, id, null, deleted));
+    }
+  }
+
+  /* Changes made by one transaction, written as it commits. */
+  private class PendingChanges implements TransactionSynchronization {
+    private final Map<String, ChangeRecord> changes = new LinkedHashMap<>();
+    private final List<ChangeRecord> committed = new ArrayList<>();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      recordRepo.reserveVersions(changes.size());
+      long version = recordRepo.lastReservedVersion() - changes.size();
+      for (ChangeRecord change : changes.values()) {
+        recordRepo.record(change.getId(), change.getType().name(), change.getEntityId(),
+            ++version, change.isDeleted());
+        committed.add(new ChangeRecord(change.getType(), change.getEntityId(), version,
+            change.isDeleted()));
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      for (ChangeRecord change : changes.values()) {
+        for (VersionedCache<?> cache : infoCaches) {
+          if (cache.getType() == change.getType()) {
+            cache.invalidate(change.getEntityId());
+          }
+        }
+      }
+      changeEvents.publish(committed);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResource(ChangeLogServices.this);
+    }
+  }
+
+  public ChangeLogServices(ChangeRecordRepository recordRepo,
+      ChangeEventServices changeEvents, List<VersionedCache<?>> infoCaches) {
+    this.recordRepo = recordRepo;
+    this.changeEvents = changeEvents;
+    this.infoCaches = infoCaches;
+  }
+}
@@ -0,0 +1,115 @@
+package com.google.rolecall.services;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.threeten.bp.Duration;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.batching.BatchingSettings;
+import com.google.api.gax.batching.FlowControlSettings;
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import com.google.cloud.pubsub.v1.Publisher;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.TopicName;
+import com.google.rolecall.Constants;
+import com.google.rolecall.util.CPSNotification;
+import com.google.rolecall.util.NotificationPublisher;
+
+/*
+ * Publishes to Cloud Pub/Sub through one long lived Publisher per topic. Messages are batched
+ * by count, size or a short delay, and the outstanding messages are capped so a slow topic
+ * drops notifications instead of growing without bound.
+ */
+@Profile({ "prod", "qa" })
+@Service("CloudNotificationPublisher")
+public class CloudNotificationPublisher implements NotificationPublisher {
+  private static final long BATCH_ELEMENTS = 100;
+  private static final long BATCH_BYTES = 1024 * 1024;
+  private static final Duration BATCH_DELAY = Duration.ofMillis(50);
+  private static final long MAX_OUTSTANDING_ELEMENTS = 10_000;
+  private static final long MAX_OUTSTANDING_BYTES = 16 * 1024 * 1024;
+
+  private final Map<String, Publisher> publishers = new ConcurrentHashMap<>();
+  private Logger logger = Logger.getLogger(CloudNotificationPublisher.class.getName());
+
+  @Override
+  public CompletableFuture<String> publish(CPSNotification notification) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    String topic = Constants.Notifications.TOPIC_ID + "_" + notification.getProfile();
+    Publisher publisher;
+    try {
+      publisher = publishers.computeIfAbsent(topic, this::createPublisher);
+    } catch (IllegalStateException e) {
+      logger.log(Level.WARNING, e.getMessage());
+      result.completeExceptionally(e);
+      return result;
+    }
+    PubsubMessage message = PubsubMessage.newBuilder()
+        .setData(ByteString.copyFromUtf8(notification.toJson()))
+        .build();
+    ApiFuture<String> published = publisher.publish(message);
+    ApiFutures.addCallback(published, new ApiFutureCallback<String>() {
+      @Override
+      public void onFailure(Throwable t) {
+        logger.log(Level.WARNING, String.format("Notification to %s on %s was not published: %s",
+            notification.getEmail(), topic, t.getMessage()));
+        result.completeExceptionally(t);
+      }
+
+      @Override
+      public void onSuccess(String messageId) {
+        result.complete(messageId);
+      }
+    }, MoreExecutors.directExecutor());
+    return result;
+  }
+
+  private Publisher createPublisher(String topic) {
+    BatchingSettings batching = BatchingSettings.newBuilder()
+        .setElementCountThreshold(BATCH_ELEMENTS)
+        .setRequestByteThreshold(BATCH_BYTES)
+        .setDelayThreshold(BATCH_DELAY)
+        .setFlowControlSettings(FlowControlSettings.newBuilder()
+            .setMaxOutstandingElementCount(MAX_OUTSTANDING_ELEMENTS)
+            .setMaxOutstandingRequestBytes(MAX_OUTSTANDING_BYTES)
+            .setLimitExceededBehavior(LimitExceededBehavior.ThrowException)
+            .build())
+        .build();
+    try {
+      return Publisher.newBuilder(TopicName.of(Constants.Notifications.PROJECT_ID, topic))
+          .setBatchingSettings(batching)
+          .build();
+    } catch (Exception e) {
+      throw new IllegalStateException(String.format(
+          "Unable to create publisher for %s: %s", topic, e.getMessage()), e);
+    }
+  }
+
+  /* Sends whatever is still batched before the application stops. */
+  @PreDestroy
+  public void shutdown() {
+    for (Publisher publisher : publishers.values()) {
+      publisher.shutdown();
+    }
+    for (Publisher publisher : publishers.values()) {
+      try {
+        publisher.awaitTermination(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+}
@@ -2,6 +2,13 @@ package com.google.rolecall.services;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,21 +17,46 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.BucketInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobListOption;
 import com.google.cloud.storage.Storage.SignUrlOption;
 import com.google.rolecall.models.UserAsset.AssetType;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.SizeLimitedInputStream;
+import com.google.rolecall.util.SizeLimitedInputStream.SizeLimitExceededException;
 import com.google.rolecall.util.StorageService;
+import com.google.rolecall.util.StoredFile;
 
 @Profile({ "prod", "qa" })
 @Service("CloudStorageService")
 public class CloudStorageService implements StorageService {
+  // Small files such as thumbnails are sent in one request instead of a resumable session.
+  private static final long SINGLE_REQUEST_UPLOAD_BYTES = 256 * 1024;
+  private static final int UPLOAD_CHUNK_BYTES = 1024 * 1024;
+  private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+  private static final long SIGNED_URL_DAYS = 1;
+  private static final long SIGNED_URL_REFRESH_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final int DEFAULT_SIGNED_URL_CACHE_SIZE = 10_000;
+
+  private static class SignedUrl {
+    final String url;
+    final long expiresAt;
+
+    SignedUrl(String url, long expiresAt) {
+      this.url = url;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  // Least recently used signed urls, bounded by count. Guarded by itself.
+  private final LinkedHashMap<String, SignedUrl> signedUrls;
+
   private Storage storage;
   private String bucketName;
 
@@ -40,19 +72,59 @@ public class CloudStorageService implements StorageService {
   }
 
   @Override
-  public void store(MultipartFile file, AssetType type, String filename) throws IOException, InvalidParameterException {
-    if (file.isEmpty()) {
+  public void store(InputStream content, long length, AssetType type, String filename)
+      throws IOException, InvalidParameterException {
+    if (length == 0) {
       throw new InvalidParameterException("File cannot be empty.");
     }
-    try {
-      storage.create(BlobInfo.newBuilder(bucketName,
-          String.format("%s/%s", type.location, filename)).build(),
-          file.getBytes());
+    BlobInfo blobInfo = BlobInfo.newBuilder(bucketName,
+        String.format("%s/%s", type.location, filename)).build();
+    try (InputStream in = new SizeLimitedInputStream(content, length)) {
+      if (length <= SINGLE_REQUEST_UPLOAD_BYTES) {
+        byte[] bytes = in.readAllBytes();
+        checkLength(bytes.length, length);
+        storage.create(blobInfo, bytes);
+        return;
+      }
+      // Resumable upload sent in chunks. The blob is only created once the writer is closed,
+      // and closing finalizes whatever was sent, so only a complete upload is closed. A failed
+      // one is abandoned and the bucket discards the unfinished session.
+      WriteChannel writer = storage.writer(blobInfo);
+      boolean complete = false;
+      try {
+        writer.setChunkSize(UPLOAD_CHUNK_BYTES);
+        byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+        long written = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+          while (chunk.hasRemaining()) {
+            writer.write(chunk);
+          }
+          written += read;
+        }
+        checkLength(written, length);
+        complete = true;
+      } finally {
+        if (complete) {
+          writer.close();
+        }
+      }
+    } catch (SizeLimitExceededException e) {
+      throw e;
     } catch (Exception e) {
       throw new IOException("Unable to store file in the bucket.", e);
     }
   }
 
+  /* Fails when the content ended before the length the caller promised. */
+  private static void checkLength(long read, long length) throws IOException {
+    if (read != length) {
+      throw new IOException(String.format(
+          "Expected %d bytes but the content ended after %d.", length, read));
+    }
+  }
+
   @Override
   public Resource loadAsResource(AssetType type, String filename) throws FileNotFoundException {
     Blob blob = storage.get(
@@ -71,7 +143,39 @@ public class CloudStorageService implements StorageService {
         if (blob == null || !blob.exists()) {
           throw new FileNotFoundException("No file found for " + filename + ".");
         }
-        return storage.signUrl(blob.toBuilder().setContentType("text/plain").build(), 1, TimeUnit.DAYS, SignUrlOption.withV4Signature()).toString();
+        return signUrl(type, filename, System.currentTimeMillis());
+  }
+
+  @Override
+  public Map<String, String> loadAsUrls(AssetType type, Collection<String> filenames) {
+    Map<String, String> urls = new LinkedHashMap<>();
+    long now = System.currentTimeMillis();
+    for (String filename : filenames) {
+      urls.put(filename, signUrl(type, filename, now));
+    }
+    return urls;
+  }
+
+  /*
+   * Signing only needs the bucket and object name, so it happens locally without fetching blob
+   * metadata. A signed url is reused until an hour before it expires, and the least recently
+   * used ones are dropped once the cache is full.
+   */
+  String signUrl(AssetType type, String filename, long now) {
+    String path = String.format("%s/%s", type.location, filename);
+    synchronized (signedUrls) {
+      SignedUrl cached = signedUrls.get(path);
+      if (cached != null && now < cached.expiresAt - SIGNED_URL_REFRESH_MILLIS) {
+        return cached.url;
+      }
+    }
+    String url = storage.signUrl(
+        BlobInfo.newBuilder(bucketName, path).setContentType("text/plain").build(),
+        SIGNED_URL_DAYS, TimeUnit.DAYS, SignUrlOption.withV4Signature()).toString();
+    synchronized (signedUrls) {
+      signedUrls.put(path, new SignedUrl(url, now + TimeUnit.DAYS.toMillis(SIGNED_URL_DAYS)));
+    }
+    return url;
   }
   
   @Override
@@ -82,11 +186,64 @@ public class CloudStorageService implements StorageService {
       throw new FileNotFoundException("No file found for " + filename + ".");
     }
     storage.delete(blob.getBlobId());
+    synchronized (signedUrls) {
+      signedUrls.remove(String.format("%s/%s", type.location, filename));
+    }
+  }
+
+  /*
+   * Objects are listed in name order, so the listing starts at startAfter and stops once the
+   * page is full. Thumbnail folders under the type are left out.
+   */
+  @Override
+  public List<StoredFile> list(AssetType type, String startAfter, int pageSize)
+      throws IOException {
+    String prefix = type.location + "/";
+    List<BlobListOption> options = new ArrayList<>();
+    options.add(BlobListOption.prefix(prefix));
+    options.add(BlobListOption.currentDirectory());
+    options.add(BlobListOption.pageSize(pageSize));
+    if (startAfter != null) {
+      options.add(BlobListOption.startOffset(prefix + startAfter));
+    }
+
+    List<StoredFile> listed = new ArrayList<>(pageSize);
+    try {
+      for (Blob blob : storage.list(bucketName, options.toArray(new BlobListOption[0]))
+          .iterateAll()) {
+        String name = blob.getName().substring(prefix.length());
+        if (blob.isDirectory() || name.isEmpty()
+            || (startAfter != null && name.compareTo(startAfter) <= 0)) {
+          continue;
+        }
+        // Listings may leave out the update time. Without any time the file cannot be told
+        // apart from one still being uploaded, so it is left for a later pass.
+        Long modified = blob.getUpdateTime() != null ? blob.getUpdateTime() : blob.getCreateTime();
+        if (modified == null) {
+          continue;
+        }
+        listed.add(new StoredFile(name, blob.getSize() == null ? 0 : blob.getSize(), modified));
+        if (listed.size() >= pageSize) {
+          break;
+        }
+      }
+    } catch (Exception e) {
+      throw new IOException("Unable to list files in the bucket.", e);
+    }
+    return listed;
   }
 
   @Autowired
   public CloudStorageService(Storage storage, Environment env) {
     this.storage = storage;
     this.bucketName = env.getProperty("rolecall.asset.resource.bucket");
+    int maxSignedUrls = env.getProperty("rolecall.asset.signed-url.cache-size", Integer.class,
+        DEFAULT_SIGNED_URL_CACHE_SIZE);
+    this.signedUrls = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, SignedUrl> eldest) {
+        return size() > maxSignedUrls;
+      }
+    };
   }
 }
@@ -7,8 +7,7 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.gax.rpc.ApiException;
 import com.google.cloud.secretmanager.v1.AccessSecretVersionResponse;
-import com.google.cloud.secretmanager.v1.SecretManagerServiceClient;
-import com.google.cloud.secretmanager.v1.SecretVersionName;
+import com.google.rolecall.config.SecretPrefetcher;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.Collections;
@@ -23,7 +22,7 @@ import org.springframework.stereotype.Service;
 public class GoogleAuthServices {
 
   private final Environment env;
-  private GoogleIdTokenVerifier verifier;
+  private volatile GoogleIdTokenVerifier verifier;
   private Logger logger = Logger.getLogger(GoogleAuthServices.class.getName());
 
   /**
@@ -43,7 +42,7 @@ public class GoogleAuthServices {
 
     GoogleIdToken idToken = null;
     try {
-      idToken = verifier.verify(encodedToken);
+      idToken = getVerifier().verify(encodedToken);
     } catch (GeneralSecurityException e) {
       logger.log(Level.SEVERE, e.getMessage());
       throw new RuntimeException("Unable to verify with Google.");
@@ -61,6 +60,21 @@ public class GoogleAuthServices {
     return false;
   }
 
+  /* Builds the verifier on first use so its secret lookup stays off the startup path. */
+  private GoogleIdTokenVerifier getVerifier() {
+    if (verifier == null) {
+      synchronized (this) {
+        if (verifier == null) {
+          verifier =
+              new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new JacksonFactory())
+                  .setAudience(Collections.singletonList(getClientId()))
+                  .build();
+        }
+      }
+    }
+    return verifier;
+  }
+
   /** Gets the client id from the secret manager */
   private String getClientId() {
     String id;
@@ -87,17 +101,10 @@ public class GoogleAuthServices {
 
   AccessSecretVersionResponse getSecretResponse(String projectId, String secretName)
       throws Exception {
-    SecretManagerServiceClient client = SecretManagerServiceClient.create();
-    SecretVersionName name = SecretVersionName.of(projectId, secretName, "latest");
-
-    return client.accessSecretVersion(name);
+    return SecretPrefetcher.fetch(projectId, secretName);
   }
 
   public GoogleAuthServices(Environment env) {
     this.env = env;
-    verifier =
-        new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new JacksonFactory())
-            .setAudience(Collections.singletonList(getClientId()))
-            .build();
   }
 }
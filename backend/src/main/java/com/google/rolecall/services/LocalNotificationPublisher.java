@@ -0,0 +1,42 @@
+package com.google.rolecall.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.google.rolecall.util.CPSNotification;
+import com.google.rolecall.util.NotificationPublisher;
+
+/* In process stand in for Pub/Sub that keeps the most recent notifications for inspection. */
+@Profile({ "dev" })
+@Service("LocalNotificationPublisher")
+public class LocalNotificationPublisher implements NotificationPublisher {
+  static final int MAX_RETAINED = 1000;
+
+  private final Deque<CPSNotification> published = new ArrayDeque<>();
+  private final AtomicLong messageIds = new AtomicLong();
+  private Logger logger = Logger.getLogger(LocalNotificationPublisher.class.getName());
+
+  @Override
+  public synchronized CompletableFuture<String> publish(CPSNotification notification) {
+    if (published.size() >= MAX_RETAINED) {
+      published.removeFirst();
+    }
+    published.addLast(notification);
+    logger.log(Level.FINE, "Notification: " + notification.toJson());
+    return CompletableFuture.completedFuture(Long.toString(messageIds.incrementAndGet()));
+  }
+
+  /* Oldest first. */
+  public synchronized List<CPSNotification> getPublished() {
+    return new ArrayList<>(published);
+  }
+}
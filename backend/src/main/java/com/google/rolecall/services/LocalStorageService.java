@@ -3,9 +3,21 @@ package com.google.rolecall.services;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,16 +26,25 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import com.google.rolecall.models.UserAsset.AssetType;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.AssetIndex;
+import com.google.rolecall.util.ShardedDirectoryLayout;
+import com.google.rolecall.util.SizeLimitedInputStream;
 import com.google.rolecall.util.StorageService;
+import com.google.rolecall.util.StoredFile;
 
 @Profile({ "dev" })
 @Service("LocalStorageService")
 public class LocalStorageService implements StorageService {
+  private static final String INDEX_FILE = ".asset-index";
+
   private final Path root;
+  private final ShardedDirectoryLayout layout;
+  // Null until init has opened it, meanwhile lookups go to the filesystem.
+  private volatile AssetIndex index;
+  private Logger logger = Logger.getLogger(LocalStorageService.class.getName());
 
   @Override
   public void init() throws IOException {
@@ -35,44 +56,54 @@ public class LocalStorageService implements StorageService {
         throw new IOException("Could not initialize storage.");
       }
     }
-    // else {
-    //   System.out.println("Root directory exists: " + root.toRealPath().toString());
-    // }
     for (AssetType type : AssetType.values()) {
-      Path subDir = Path.of(root.toString(), type.location);
-      if (!Files.exists(subDir)) {
-        Files.createDirectories(subDir);
-          // System.out.println(type.toString() + " directory created: " + subDir.toString());
-        }
-        // else {
-        //   System.out.println(type.toString() + " directory exists: " + subDir.toString());
-        // }
-    }    
+      Files.createDirectories(layout.typeDirectory(type));
+    }
+    int moved = layout.migrateFlatFiles();
+    if (moved > 0) {
+      logger.log(Level.INFO, String.format("Moved %d asset files into shards.", moved));
+    }
+    openIndex();
   }
 
   @Override
-  public void store(MultipartFile file, AssetType type, String filename) throws IOException, InvalidParameterException {
-    if (file.isEmpty()) {
+  public void store(InputStream content, long length, AssetType type, String filename)
+      throws IOException, InvalidParameterException {
+    if (length == 0) {
       throw new InvalidParameterException("File cannot be empty.");
     }
-    Path filePath = Path.of(root.toString(), type.location, filename);
-    if (!filePath.toAbsolutePath().getParent().equals(Path.of(root.toString(), type.location))) {
-      throw new InvalidParameterException("File must be in parent directory");
-    }
-    InputStream inputStream = file.getInputStream();
-    try {
-      Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+    Path filePath = layout.resolve(type, filename);
+    Files.createDirectories(filePath.getParent());
+    // Copy next to the destination and move it into place so a failed upload leaves nothing.
+    Path partial = Files.createTempFile(filePath.getParent(), filename, ".partial");
+    try (InputStream inputStream = new SizeLimitedInputStream(content, length)) {
+      long size = Files.copy(inputStream, partial, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(partial, filePath, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      AssetIndex current = index;
+      if (current != null) {
+        current.put(type, filename, size, Files.getLastModifiedTime(filePath).toMillis());
+      }
     } finally {
-      inputStream.close();
+      Files.deleteIfExists(partial);
     }
   }
 
+  /*
+   * Answered from the index without touching the filesystem. The returned resource reports
+   * the indexed size and modification time, which the response headers are built from.
+   */
   @Override
   public Resource loadAsResource(AssetType type, String filename)
       throws InvalidParameterException, FileNotFoundException {
-    Path filePath = Path.of(root.toString(), type.location, filename);
-    if (!filePath.toAbsolutePath().getParent().equals(Path.of(root.toString(), type.location))) {
-      throw new InvalidParameterException("File must be in parent directory.");
+    Path filePath = layout.resolve(type, filename);
+    AssetIndex current = index;
+    if (current != null && AssetIndex.isIndexable(filename)) {
+      AssetIndex.Entry entry = current.get(type, filename);
+      if (entry == null) {
+        throw new FileNotFoundException("No file found for " + filename + ".");
+      }
+      return new IndexedFileResource(filePath, entry);
     }
     Resource resource = new FileSystemResource(filePath);
     if (!resource.exists()) {
@@ -86,21 +117,141 @@ public class LocalStorageService implements StorageService {
     throw new NotImplementedException();
   }
 
+  @Override
+  public Map<String, String> loadAsUrls(AssetType type, Collection<String> filenames)
+      throws NotImplementedException {
+    throw new NotImplementedException();
+  }
+
   @Override
   public void delete(AssetType type, String filename)
       throws InvalidParameterException, FileNotFoundException, IOException {
-    Path filePath = Path.of(root.toString(), type.location, filename);
-    if (!filePath.toAbsolutePath().getParent().equals(Path.of(root.toString(), type.location))) {
-      throw new InvalidParameterException("File must be in parent directory.");
-    }
-    if (!Files.exists(filePath)) {
+    Path filePath = layout.resolve(type, filename);
+    try {
+      Files.delete(filePath);
+    } catch (NoSuchFileException e) {
       throw new FileNotFoundException("No file found for " + filename + ".");
+    } finally {
+      AssetIndex current = index;
+      if (current != null) {
+        current.remove(type, filename);
+      }
+    }
+  }
+
+  /*
+   * Files are listed shard by shard and in name order within a shard, so a page only reads
+   * the shards from the one holding startAfter onward. Memory stays bounded by the page.
+   */
+  @Override
+  public List<StoredFile> list(AssetType type, String startAfter, int pageSize)
+      throws IOException {
+    List<StoredFile> listed = new ArrayList<>(pageSize);
+    String startShard = startAfter == null ? null : ShardedDirectoryLayout.shardOf(startAfter);
+    for (int shard = 0; shard < ShardedDirectoryLayout.SHARD_COUNT; shard++) {
+      String shardName = ShardedDirectoryLayout.shardName(shard);
+      if (startShard != null && shardName.compareTo(startShard) < 0) {
+        continue;
+      }
+      Path shardDirectory = layout.shardDirectory(type, shardName);
+      if (!Files.isDirectory(shardDirectory)) {
+        continue;
+      }
+      String after = shardName.equals(startShard) ? startAfter : null;
+      for (Path file : smallestNames(shardDirectory, after, pageSize - listed.size())) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        listed.add(new StoredFile(file.getFileName().toString(), attributes.size(),
+            attributes.lastModifiedTime().toMillis()));
+      }
+      if (listed.size() >= pageSize) {
+        break;
+      }
+    }
+    return listed;
+  }
+
+  /* Up to limit files of the directory named after startAfter, smallest first. */
+  private static List<Path> smallestNames(Path directory, String startAfter, int limit)
+      throws IOException {
+    PriorityQueue<Path> page = new PriorityQueue<>(
+        Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+        Files::isRegularFile)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (startAfter != null && name.compareTo(startAfter) <= 0) {
+          continue;
+        }
+        page.add(file);
+        if (page.size() > limit) {
+          page.poll();
+        }
+      }
+    }
+    List<Path> smallest = new ArrayList<>(page);
+    smallest.sort(Comparator.comparing((Path path) -> path.getFileName().toString()));
+    return smallest;
+  }
+
+  /* Reuses the index left by a clean shutdown, otherwise rebuilds it from the shards. */
+  private void openIndex() throws IOException {
+    Path indexPath = root.resolve(INDEX_FILE);
+    AssetIndex opened = AssetIndex.open(indexPath);
+    if (opened == null) {
+      opened = AssetIndex.create(indexPath);
+      for (AssetType type : AssetType.values()) {
+        String startAfter = null;
+        List<StoredFile> page;
+        do {
+          page = list(type, startAfter, 1000);
+          for (StoredFile file : page) {
+            opened.put(type, file.getName(), file.getSize(), file.getLastModified());
+            startAfter = file.getName();
+          }
+        } while (page.size() == 1000);
+      }
+      logger.log(Level.INFO, String.format("Indexed %d asset files.", opened.size()));
+    }
+    index = opened;
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    AssetIndex current = index;
+    index = null;
+    if (current != null) {
+      current.close();
+    }
+  }
+
+  /* File whose size and modification time come from the index instead of the filesystem. */
+  private static class IndexedFileResource extends FileSystemResource {
+    private final AssetIndex.Entry entry;
+
+    IndexedFileResource(Path filePath, AssetIndex.Entry entry) {
+      super(filePath);
+      this.entry = entry;
+    }
+
+    @Override
+    public boolean exists() {
+      return true;
+    }
+
+    @Override
+    public long contentLength() {
+      return entry.getSize();
+    }
+
+    @Override
+    public long lastModified() {
+      return entry.getLastModified();
     }
-    Files.delete(filePath);
   }
 
   @Autowired
   public LocalStorageService(Environment env) {
     root = Path.of(env.getProperty("rolecall.asset.resource.directory")).toAbsolutePath();
+    layout = new ShardedDirectoryLayout(root);
   }
 }
@@ -0,0 +1,217 @@
+package com.google.rolecall.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.rolecall.models.PendingNotification;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.PendingNotificationRepository;
+import com.google.rolecall.util.CPSNotification;
+import com.google.rolecall.util.NotificationPublisher;
+import com.google.rolecall.util.TokenBucket;
+
+/*
+ * Sends cast notifications once the change they describe is committed.
+ *
+ * Cast changes are queued in the database in the transaction that makes them, keeping only the
+ * latest message per user and subject. Once a user has had no new message for a digest window,
+ * or at the latest MAX_DELAY_WINDOWS windows after their oldest message, a scheduled worker
+ * sends everything queued for them as one digest. Publishing is rate limited by a token bucket.
+ * The worker claims a user's rows before publishing and deletes them only after the topic
+ * accepts the digest, so a restart neither loses nor resends digests. If a worker stops
+ * between the two, its claim expires and the digest is sent again with the same id for the
+ * subscriber to drop.
+ */
+@Service("notificationServices")
+@Lazy(false)
+public class NotificationServices {
+
+  private static final long DEFAULT_DIGEST_WINDOW_MS = 30_000;
+  private static final int MAX_DELAY_WINDOWS = 4;
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final double DEFAULT_RATE_PER_SECOND = 50;
+  private static final long DEFAULT_BURST = 100;
+  private static final long DEFAULT_PUBLISH_TIMEOUT_MS = 10_000;
+  private static final long DEFAULT_CLAIM_MS = 60_000;
+  private static final String DIGEST_SEPARATOR = "\n\n";
+
+  private final NotificationPublisher publisher;
+  private final PendingNotificationRepository pendingRepo;
+  private final TransactionTemplate transactions;
+  private final TokenBucket rateLimit;
+  private final String profile;
+  private final long digestWindowMs;
+  private final int batchSize;
+  private final long publishTimeoutMs;
+  private final long claimMs;
+  private Logger logger = Logger.getLogger(NotificationServices.class.getName());
+
+  /**
+   * Queues the message for each user's next digest, replacing any message still queued for
+   * them about the same subject. Committed or rolled back together with the caller.
+   *
+   * @param subject What the message is about, such as "performance:12".
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void queueForDigest(String subject, Collection<User> recipients, String message) {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (User user : recipients) {
+      pendingRepo.queue(PendingNotification.idOf(user.getId(), subject), user.getId(),
+          user.getEmail(), user.getPhoneNumber(), profile, message, now);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${rolecall.notifications.flush-interval-ms:1000}")
+  public void publishDueNotifications() {
+    try {
+      publishDue(System.currentTimeMillis());
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Sending notification digests stopped: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Sends the digests due by now, as many as the rate limit allows. Rows are claimed in one
+   * short transaction and deleted in another once the topic accepts them, so no row is locked
+   * while waiting for the topic and queueing new messages never waits on a slow publish.
+   *
+   * @return Number of digests the topic accepted.
+   */
+  int publishDue(long now) {
+    Timestamp claimedUntil = new Timestamp(now + claimMs);
+    List<List<PendingNotification>> claimed =
+        transactions.execute(status -> claimDigests(now, claimedUntil));
+    if (claimed == null || claimed.isEmpty()) {
+      return 0;
+    }
+
+    List<Map.Entry<List<PendingNotification>, CompletableFuture<String>>> published =
+        new ArrayList<>();
+    for (List<PendingNotification> queued : claimed) {
+      published.add(Map.entry(queued, publisher.publish(digestOf(queued))));
+    }
+
+    List<String> sentIds = new ArrayList<>();
+    List<String> failedIds = new ArrayList<>();
+    int sent = 0;
+    long deadline = System.currentTimeMillis() + publishTimeoutMs;
+    for (Map.Entry<List<PendingNotification>, CompletableFuture<String>> digest : published) {
+      List<String> ids = digest.getKey().stream()
+          .map(PendingNotification::getId)
+          .collect(Collectors.toList());
+      try {
+        digest.getValue().get(
+            Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (ExecutionException | TimeoutException e) {
+        logger.log(Level.WARNING, String.format("Digest for user %d not sent, will retry: %s",
+            digest.getKey().get(0).getUserId(), e.getMessage()));
+        failedIds.addAll(ids);
+        continue;
+      } catch (InterruptedException e) {
+        // Unanswered digests stay claimed and are sent again once the claim expires.
+        Thread.currentThread().interrupt();
+        break;
+      }
+      sentIds.addAll(ids);
+      sent++;
+    }
+
+    transactions.executeWithoutResult(status -> {
+      if (!sentIds.isEmpty()) {
+        pendingRepo.deleteClaimed(sentIds, claimedUntil);
+      }
+      if (!failedIds.isEmpty()) {
+        pendingRepo.releaseClaim(failedIds, claimedUntil);
+      }
+    });
+    return sent;
+  }
+
+  /* Claims the queued messages of every due user, one digest per user. */
+  private List<List<PendingNotification>> claimDigests(long now, Timestamp claimedUntil) {
+    int limit = Math.min(batchSize, rateLimit.available());
+    if (limit == 0) {
+      return List.of();
+    }
+    Timestamp at = new Timestamp(now);
+    List<Integer> recipients = pendingRepo.findDueRecipients(
+        new Timestamp(now - digestWindowMs),
+        new Timestamp(now - MAX_DELAY_WINDOWS * digestWindowMs),
+        at, PageRequest.of(0, limit));
+
+    List<List<PendingNotification>> claimed = new ArrayList<>();
+    for (Integer userId : recipients) {
+      List<PendingNotification> queued = pendingRepo.lockUnclaimedByUserId(userId, at);
+      if (queued.isEmpty()) {
+        // Being claimed by another instance.
+        continue;
+      }
+      if (!rateLimit.tryAcquire()) {
+        break;
+      }
+      pendingRepo.claim(queued.stream().map(PendingNotification::getId)
+          .collect(Collectors.toList()), claimedUntil);
+      claimed.add(queued);
+    }
+    return claimed;
+  }
+
+  /* One notification holding every queued message, oldest first. */
+  static CPSNotification digestOf(List<PendingNotification> queued) {
+    PendingNotification latest = queued.get(0);
+    for (PendingNotification notification : queued) {
+      if (notification.getLastQueued().after(latest.getLastQueued())) {
+        latest = notification;
+      }
+    }
+    String message = queued.stream()
+        .map(PendingNotification::getMessage)
+        .collect(Collectors.joining(DIGEST_SEPARATOR));
+    String id = latest.getUserId() + "-" + latest.getLastQueued().getTime();
+    return new CPSNotification(id, latest.getEmail(), latest.getPhone(), message,
+        latest.getProfile());
+  }
+
+  public NotificationServices(NotificationPublisher publisher,
+      PendingNotificationRepository pendingRepo, PlatformTransactionManager transactionManager,
+      Environment env) {
+    this.publisher = publisher;
+    this.pendingRepo = pendingRepo;
+    this.transactions = new TransactionTemplate(transactionManager);
+    String[] profiles = env.getActiveProfiles();
+    this.profile = profiles.length > 0 ? profiles[0] : "default";
+    this.digestWindowMs = env.getProperty("rolecall.notifications.digest-window-ms", Long.class,
+        DEFAULT_DIGEST_WINDOW_MS);
+    this.batchSize = env.getProperty("rolecall.notifications.batch-size", Integer.class,
+        DEFAULT_BATCH_SIZE);
+    this.publishTimeoutMs = env.getProperty("rolecall.notifications.publish-timeout-ms",
+        Long.class, DEFAULT_PUBLISH_TIMEOUT_MS);
+    // A claim must outlive the publish timeout, or a slow digest could be claimed twice.
+    this.claimMs = Math.max(publishTimeoutMs, env.getProperty(
+        "rolecall.notifications.claim-ms", Long.class, DEFAULT_CLAIM_MS));
+    this.rateLimit = new TokenBucket(
+        env.getProperty("rolecall.notifications.burst", Long.class, DEFAULT_BURST),
+        env.getProperty("rolecall.notifications.rate-per-second", Double.class,
+            DEFAULT_RATE_PER_SECOND));
+  }
+}
@@ -5,6 +5,7 @@ import com.google.rolecall.jsonobjects.PerformanceCastMemberInfo;
 import com.google.rolecall.jsonobjects.PerformanceInfo;
 import com.google.rolecall.jsonobjects.PerformancePositionInfo;
 import com.google.rolecall.jsonobjects.PerformanceSectionInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.Performance;
 import com.google.rolecall.models.Performance.Status;
 import com.google.rolecall.models.PerformanceCastMember;
@@ -13,16 +14,19 @@ import com.google.rolecall.models.Position;
 import com.google.rolecall.models.Section;
 //import com.google.rolecall.models.Unavailability;
 import com.google.rolecall.models.User;
+import com.google.rolecall.repos.PerformanceCastMemberRepository;
 import com.google.rolecall.repos.PerformanceRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
-//import com.google.rolecall.util.CPSNotification;
+import com.google.rolecall.util.CastAssignments;
 
 //import java.sql.Date;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -34,8 +38,11 @@ public class PerformanceServices {
   @Autowired
   //private org.springframework.core.env.Environment environment;
   private final PerformanceRepository performanceRepo;
+  private final PerformanceCastMemberRepository performanceCastMemberRepo;
   private final SectionServices sectionService;
   private final UserServices userService;
+  private final NotificationServices notificationServices;
+  private final ChangeLogServices changeLog;
   //private final UnavailabilityServices unavailabilityService;
 
   public Performance getPerformance(Integer id)
@@ -85,9 +92,11 @@ public class PerformanceServices {
   public ServiceResult<Performance> createPerformance(PerformanceInfo newPerformance)
       throws InvalidParameterException, EntityNotFoundException {
     Performance performance = buildNewPerformance(newPerformance);
-    List<String> warnings = verifyPerformance(performance);
 
     performance = performanceRepo.save(performance);
+    performance = copyCastMembersFromCasts(performance, newPerformance.performanceSections());
+    List<String> warnings = verifyPerformance(performance);
+    changeLog.recordChange(ChangeType.PERFORMANCE, performance.getId());
 
     ServiceResult<Performance> result = new ServiceResult<>(performance, warnings);
     return result;
@@ -95,35 +104,23 @@ public class PerformanceServices {
 
   public ServiceResult<Performance> editPerformance(PerformanceInfo performanceInfo)
       throws InvalidParameterException, EntityNotFoundException {
+    // Only changes to a published cast are news. Publishing tells the whole cast.
+    Performance existing = getPerformance(performanceInfo.id());
+    CastAssignments before = existing.getStatus().equals(Performance.Status.PUBLISHED)
+        ? CastAssignments.of(existing)
+        : CastAssignments.empty();
+
     Performance performance = updatePerformance(performanceInfo);
-    List<String> warnings = verifyPerformance(performance);
 
     performance = performanceRepo.save(performance);
-    // Deactivate for now. This significantly slows down this method.
-    // // CPS Notification
-    // if (performance.getStatus().equals(Performance.Status.PUBLISHED)) {
-    //   String[] profiles = this.environment.getActiveProfiles();
-    //   String profile = profiles[0];
-    //   String message = performance.getDescription();
-
-    //   // get all performers
-    //   List<PerformanceSectionInfo> sections = performanceInfo.performanceSections();
-    //   for (PerformanceSectionInfo section : sections) {
-    //     List<PerformancePositionInfo> positions = section.positions();
-    //     for (PerformancePositionInfo position : positions) {
-    //       List<PerformanceCastInfo> casts = position.performanceCasts();
-    //       for (PerformanceCastInfo cast : casts) {
-    //         List<PerformanceCastMemberInfo> members = cast.performanceCastMembers();
-    //         for (PerformanceCastMemberInfo member : members) {
-    //           Integer userId = member.userId();
-    //           User castUser = userService.getUser(userId);
-    //           CPSNotification notification = new CPSNotification(castUser, message, profile);
-    //           notification.send();
-    //         }
-    //       }
-    //     }
-    //   }
-    // }
+    performance = copyCastMembersFromCasts(performance, performanceInfo.performanceSections());
+    List<String> warnings = verifyPerformance(performance);
+    changeLog.recordChange(ChangeType.PERFORMANCE, performance.getId());
+    // CPS Notification, queued with the edit and sent in each user's next digest.
+    if (performance.getStatus().equals(Performance.Status.PUBLISHED)) {
+      notificationServices.queueForDigest("performance:" + performance.getId(),
+          before.changedUsers(CastAssignments.of(performance)), performance.getDescription());
+    }
 
     ServiceResult<Performance> result = new ServiceResult<>(performance, warnings);
     return result;
@@ -139,6 +136,7 @@ public class PerformanceServices {
     // }
 
     performanceRepo.deleteById(id);
+    changeLog.recordDeletion(ChangeType.PERFORMANCE, id);
   }
 
   // Helper Methods
@@ -179,7 +177,7 @@ public class PerformanceServices {
       section.addPerformanceSection(performanceSection);
       performance.addPerformanceSection(performanceSection);
 
-      if (info.positions() != null) {
+      if (info.positions() != null && info.castIds() == null) {
         performanceSection = addNewCastMembers(performanceSection, info.positions());
       }
     }
@@ -208,7 +206,7 @@ public class PerformanceServices {
           .setSectionPosition(info.sectionPosition())
           .build();
 
-      if (info.positions() != null) {
+      if (info.positions() != null && info.castIds() == null) {
         performanceSection = updateCastMembers(performanceSection, info.positions());
       }
 
@@ -222,6 +220,81 @@ public class PerformanceServices {
     return performance;
   }
 
+  /**
+   * Replaces the cast members of every performance section given castIds with the members of
+   * those casts. Rows are copied in the database with a fixed number of statements per section
+   * instead of resolving each member's user and position, and positions sent for the same
+   * section are ignored.
+   *
+   * @param performance Saved performance.
+   * @return The performance loaded again with the copied members.
+   * @throws InvalidParameterException When a cast does not exist or is of another section.
+   */
+  private Performance copyCastMembersFromCasts(
+      Performance performance, List<PerformanceSectionInfo> program)
+      throws InvalidParameterException, EntityNotFoundException {
+    if (program == null) {
+      return performance;
+    }
+
+    // Read everything needed from the entities first, copying clears the persistence context.
+    Map<PerformanceSection, List<Integer>> copies = new LinkedHashMap<>();
+    for (PerformanceSectionInfo info : program) {
+      if (info.castIds() == null || (info.delete() != null && info.delete())) {
+        continue;
+      }
+      copies.put(findPerformanceSection(performance, info), new ArrayList<>(new HashSet<>(
+          info.castIds())));
+    }
+    if (copies.isEmpty()) {
+      return performance;
+    }
+
+    Integer performanceId = performance.getId();
+    for (Map.Entry<PerformanceSection, List<Integer>> copy : copies.entrySet()) {
+      PerformanceSection performanceSection = copy.getKey();
+      List<Integer> castIds = copy.getValue();
+      Integer performanceSectionId = performanceSection.getId();
+      Integer sectionId = performanceSection.getSection().getId();
+      int primaryCast = performanceSection.getPrimaryCast();
+
+      if (!castIds.isEmpty()
+          && performanceCastMemberRepo.countCastsOfSection(sectionId, castIds) != castIds.size()) {
+        throw new InvalidParameterException(String.format(
+            "Casts %s must exist and belong to section %d", castIds, sectionId));
+      }
+      performanceCastMemberRepo.deleteAllByPerformanceSectionId(performanceSectionId);
+      if (castIds.isEmpty()) {
+        continue;
+      }
+      int members = performanceCastMemberRepo.lockCastMemberCount(castIds);
+      if (members > 0) {
+        int firstId = performanceCastMemberRepo.reserveIds(members);
+        performanceCastMemberRepo.copyCastMembers(performanceId, performanceSectionId,
+            primaryCast, castIds, firstId - 1);
+      }
+    }
+
+    return getPerformance(performanceId);
+  }
+
+  /* The saved performance section an info describes, by id or else by its section position. */
+  private PerformanceSection findPerformanceSection(
+      Performance performance, PerformanceSectionInfo info)
+      throws InvalidParameterException, EntityNotFoundException {
+    if (info.id() != null) {
+      return performance.getPerformanceSectionById(info.id());
+    }
+    for (PerformanceSection performanceSection : performance.getProgram()) {
+      if (info.sectionPosition() != null
+          && performanceSection.getSectionPosition() == info.sectionPosition()) {
+        return performanceSection;
+      }
+    }
+    throw new InvalidParameterException(
+        "Performance Sections copied from casts require a section position");
+  }
+
   private PerformanceSection addNewCastMembers(
       PerformanceSection performanceSection, List<PerformancePositionInfo> performancePositions)
       throws InvalidParameterException, EntityNotFoundException {
@@ -455,12 +528,18 @@ public class PerformanceServices {
 
   public PerformanceServices(
       PerformanceRepository performanceRepo,
+      PerformanceCastMemberRepository performanceCastMemberRepo,
       SectionServices sectionService,
-      UserServices userService) {
+      UserServices userService,
+      NotificationServices notificationServices,
+      ChangeLogServices changeLog) {
       //UnavailabilityServices unavailabilityService) {
     this.performanceRepo = performanceRepo;
+    this.performanceCastMemberRepo = performanceCastMemberRepo;
     this.sectionService = sectionService;
     this.userService = userService;
+    this.notificationServices = notificationServices;
+    this.changeLog = changeLog;
     //this.unavailabilityService = unavailabilityService;
   }
 }
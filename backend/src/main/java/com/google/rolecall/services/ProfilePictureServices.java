@@ -1,36 +1,124 @@
 package com.google.rolecall.services;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.google.rolecall.models.UserAsset;
 import com.google.rolecall.models.UserAsset.AssetType;
 import com.google.rolecall.models.UserAsset.FileType;
+import com.google.rolecall.repos.AssetBlobRepository;
 import com.google.rolecall.repos.UserAssetRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.ImageResizer;
+import com.google.rolecall.util.SizeLimitedInputStream;
+import com.google.rolecall.util.SizeLimitedInputStream.SizeLimitExceededException;
 import com.google.rolecall.util.StorageService;
 
 @Service("profilePictureServices")
 @Transactional(rollbackFor = Exception.class)
 public class ProfilePictureServices {
 
+  /* Thumbnail side lengths in pixels and where each is stored, smallest first. */
+  static final Map<Integer, AssetType> THUMBNAILS = new LinkedHashMap<>();
+  static {
+    THUMBNAILS.put(48, AssetType.PROFILEPICTURE_48);
+    THUMBNAILS.put(128, AssetType.PROFILEPICTURE_128);
+    THUMBNAILS.put(512, AssetType.PROFILEPICTURE_512);
+  }
+
+  private static final long DEFAULT_MAX_UPLOAD_BYTES = 20L * 1024 * 1024;
+  private static final int MAX_URL_BATCH = 500;
+
   private final UserAssetRepository assetRepo;
+  private final AssetBlobRepository blobRepo;
+  private final AssetCleanupServices assetCleanup;
   private final UserServices userServices;
   private final StorageService storage;
+  private final TaskExecutor thumbnailExecutor;
+  private final long maxUploadBytes;
+  // Originals whose thumbnails are queued or being generated.
+  private final Set<String> generating = ConcurrentHashMap.newKeySet();
+  private Logger logger = Logger.getLogger(ProfilePictureServices.class.getName());
 
-  public InputStreamResource getProfilePicture(String fileName)
+  public Resource getProfilePicture(String fileName)
       throws FileNotFoundException, IOException, InvalidParameterException {
-    return new InputStreamResource(storage.loadAsResource(
-        AssetType.PROFILEPICTURE, fileName).getInputStream());
+    return storage.loadAsResource(AssetType.PROFILEPICTURE, fileName);
+  }
+
+  /**
+   * Finds the smallest thumbnail at least size pixels wide, or the largest one when size is
+   * bigger than every thumbnail.
+   *
+   * @param fileName Name of the original picture.
+   * @param size Requested side length in pixels.
+   * @return The JPEG thumbnail, or empty when it has not been generated. Generation is then
+   *     queued again, since the job queued after the upload may have been dropped or failed.
+   */
+  public Optional<Resource> getProfilePictureThumbnail(String fileName, int size)
+      throws IOException, InvalidParameterException {
+    AssetType thumbnail = null;
+    for (Map.Entry<Integer, AssetType> entry : THUMBNAILS.entrySet()) {
+      thumbnail = entry.getValue();
+      if (entry.getKey() >= size) {
+        break;
+      }
+    }
+    try {
+      return Optional.of(storage.loadAsResource(thumbnail, thumbnailName(fileName)));
+    } catch (FileNotFoundException e) {
+      queueThumbnails(fileName);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Signs urls for many profile pictures at once. Files are not checked for existence.
+   *
+   * @param fileNames Names of the pictures.
+   * @return Signed url for each name, in the given order.
+   * @throws InvalidParameterException When there are too many names or one is not a file name.
+   */
+  public Map<String, String> getProfilePictureUrls(List<String> fileNames)
+      throws InvalidParameterException {
+    if (fileNames.size() > MAX_URL_BATCH) {
+      throw new InvalidParameterException(String.format(
+          "Cannot request more than %d urls at once.", MAX_URL_BATCH));
+    }
+    for (String fileName : fileNames) {
+      if (fileName == null || fileName.isEmpty()
+          || !FilenameUtils.getName(fileName).equals(fileName)) {
+        throw new InvalidParameterException(String.format("Invalid filename: %s.", fileName));
+      }
+    }
+    return storage.loadAsUrls(AssetType.PROFILEPICTURE, new LinkedHashSet<>(fileNames));
   }
 
   public String getProfilePictureUrl(String fileName) 
@@ -40,8 +128,10 @@ public class ProfilePictureServices {
 }
   
 
-  // Creates a new UsserAsset, copies the file locally, sets the new asset to
-  // the new profilePicture, and attempts to delete the old profile picture.
+  /*
+   * Creates a new UserAsset, stores the file unless identical content is already stored, sets
+   * the new asset to the new profilePicture, and attempts to delete the old profile picture.
+   */
   public UserAsset createProfilePicture(Integer ownerId, MultipartFile image)
       throws EntityNotFoundException, InvalidParameterException, IOException {
     String fileExtension = FilenameUtils.getExtension(image.getOriginalFilename());
@@ -52,36 +142,64 @@ public class ProfilePictureServices {
       throw new InvalidParameterException(String.format(
           "Profile picture cannot have type: %s.", fileExtension));
     }
+    if (image.getSize() > maxUploadBytes) {
+      throw new InvalidParameterException(String.format(
+          "Profile picture cannot be larger than %d bytes.", maxUploadBytes));
+    }
 
-    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, fileType);
+    // The multipart upload is already spooled locally, so reading it twice costs a local read
+    // and lets a duplicate skip the upload to storage entirely.
+    String contentHash;
+    try (InputStream content = new SizeLimitedInputStream(image.getInputStream(),
+        maxUploadBytes)) {
+      contentHash = sha256Hex(content);
+    } catch (SizeLimitExceededException e) {
+      throw new InvalidParameterException(e.getMessage());
+    }
+
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, fileType, contentHash);
     userServices.addNewProfilePictureToUser(ownerId, asset);
     assetRepo.saveAndFlush(asset);
-    try {
-      storage.store(image, AssetType.PROFILEPICTURE, asset.getFileName());
-    } catch (Exception e) {
-      // Delete asset if not stored.
-      assetRepo.delete(asset);
-      assetRepo.flush();
-      throw e;
+    if (blobRepo.acquire(asset.getFileName(), image.getSize()) == 1) {
+      // Content released earlier may still be queued for deletion.
+      assetCleanup.cancelDeletion(AssetType.PROFILEPICTURE, asset.getFileName());
+      for (AssetType thumbnail : THUMBNAILS.values()) {
+        assetCleanup.cancelDeletion(thumbnail, thumbnailName(asset.getFileName()));
+      }
+      try (InputStream content = new SizeLimitedInputStream(image.getInputStream(),
+          maxUploadBytes)) {
+        storage.store(content, image.getSize(), AssetType.PROFILEPICTURE, asset.getFileName());
+      } catch (Exception e) {
+        // Delete asset if not stored.
+        assetRepo.delete(asset);
+        assetRepo.flush();
+        if (e instanceof SizeLimitExceededException) {
+          throw new InvalidParameterException(e.getMessage());
+        }
+        throw e;
+      }
+      generateThumbnailsAfterCommit(asset.getFileName());
     }
 
     String previousPicture = userServices.getUser(ownerId).getPictureFile();
     //userServices.setProfilePicture(ownerId, asset);
-    // Attempt to delete and ignore failure.
-    if (previousPicture != null) {
-      try {
-        String[] splitName = previousPicture.split("[\\/\\.]");
-        int previousAssetId = Integer.parseInt(splitName[splitName.length - 2]);
-        deleteProfilePicture(previousAssetId);
-      } catch (Exception e) {
-        System.out.println("Failed to delete >" + previousPicture
-            + "< for user " + ownerId + ": " + e.getMessage());
+    // Only the rows are removed here. The files are deleted in the background after commit.
+    if (previousPicture != null && !previousPicture.isEmpty()) {
+      for (UserAsset previous : assetRepo.findByOwnerId(ownerId)) {
+        if (!previous.getId().equals(asset.getId())
+            && previous.getFileName().equals(previousPicture)) {
+          deleteProfilePicture(previous.getId());
+        }
       }
     }
 
     return asset;
   }
 
+  /*
+   * Deletes the asset, and queues its file for deletion once no other asset shares the same
+   * content.
+   */
   public void deleteProfilePicture(Integer id) throws EntityNotFoundException,
       InvalidParameterException, IOException {
     if (id == null) {
@@ -92,21 +210,112 @@ public class ProfilePictureServices {
       throw new EntityNotFoundException(String.format("assetid %d does not exist", id));
     }
     UserAsset asset = queryResult.get();
-    try {
-      storage.delete(AssetType.PROFILEPICTURE, asset.getFileName());
-    } catch (Exception e) {
-      throw new IOException("File could not be found or deleted.");
+    if (asset.getContentHash() == null || releaseBlob(asset.getFileName())) {
+      assetCleanup.scheduleDeletion(AssetType.PROFILEPICTURE, asset.getFileName());
+      for (AssetType thumbnail : THUMBNAILS.values()) {
+        assetCleanup.scheduleDeletion(thumbnail, thumbnailName(asset.getFileName()));
+      }
     }
     userServices.removeProfilePictureFromUser(asset.getOwner().getId(), asset);
     assetRepo.delete(asset);
     assetRepo.flush();
   }
 
+  /* Drops one reference and reports whether it was the last one. */
+  private boolean releaseBlob(String fileName) {
+    blobRepo.release(fileName);
+    return blobRepo.deleteIfUnreferenced(fileName) == 1;
+  }
+
+  /*
+   * Resizes on the bounded thumbnail executor once the new asset is committed so the upload
+   * returns without waiting. Until a thumbnail exists the original picture is served instead.
+   */
+  private void generateThumbnailsAfterCommit(String fileName) {
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        queueThumbnails(fileName);
+      }
+    });
+  }
+
+  /* Queues generation unless it is already queued. A full queue drops it until the next miss. */
+  private void queueThumbnails(String fileName) {
+    if (!generating.add(fileName)) {
+      return;
+    }
+    try {
+      thumbnailExecutor.execute(() -> {
+        try {
+          generateThumbnails(fileName);
+        } finally {
+          generating.remove(fileName);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      generating.remove(fileName);
+      logger.log(Level.WARNING, "Thumbnail queue full, skipped " + fileName);
+    }
+  }
+
+  /* Reads the stored original back so the upload is never held in memory between threads. */
+  private void generateThumbnails(String fileName) {
+    try {
+      BufferedImage image;
+      try (InputStream original = storage.loadAsResource(AssetType.PROFILEPICTURE, fileName)
+          .getInputStream()) {
+        image = ImageResizer.decode(original);
+      } catch (FileNotFoundException e) {
+        // Requested by a miss for a picture that does not exist.
+        return;
+      }
+      for (Map.Entry<Integer, AssetType> entry : THUMBNAILS.entrySet()) {
+        byte[] thumbnail = ImageResizer.squareJpeg(image, entry.getKey());
+        storage.store(new ByteArrayInputStream(thumbnail), thumbnail.length, entry.getValue(),
+            thumbnailName(fileName));
+      }
+    } catch (Exception e) {
+      logger.log(Level.WARNING, String.format(
+          "Unable to generate thumbnails for %s: %s", fileName, e.getMessage()));
+    }
+  }
+
+  static String sha256Hex(InputStream content) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = content.read(buffer)) != -1) {
+      digest.update(buffer, 0, read);
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  /* Keeps the original extension, since pictures of different types can share a hash. */
+  static String thumbnailName(String fileName) {
+    return fileName + ".jpg";
+  }
+
   @Autowired
-  public ProfilePictureServices(UserAssetRepository assetRepo,
-      StorageService storage, UserServices userServices) {
+  public ProfilePictureServices(UserAssetRepository assetRepo, AssetBlobRepository blobRepo,
+      AssetCleanupServices assetCleanup, StorageService storage, UserServices userServices,
+      @Qualifier("thumbnailExecutor") TaskExecutor thumbnailExecutor, Environment env) {
     this.assetRepo = assetRepo;
+    this.blobRepo = blobRepo;
+    this.assetCleanup = assetCleanup;
     this.storage = storage;
     this.userServices = userServices;
+    this.thumbnailExecutor = thumbnailExecutor;
+    this.maxUploadBytes = env.getProperty("rolecall.asset.max-bytes", Long.class,
+        DEFAULT_MAX_UPLOAD_BYTES);
   }
 }
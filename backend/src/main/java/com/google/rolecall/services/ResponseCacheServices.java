@@ -0,0 +1,97 @@
+package com.google.rolecall.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Serialized JSON of list responses that are the same for every caller, kept per endpoint with
+ * the change log version it was rendered at, so a read between writes copies stored bytes
+ * instead of building and serializing the list. The version is read before rendering, so the
+ * bytes are at least as new as the version they are stored under, and every recorded write
+ * advances it so the next read renders again. The bytes are also kept gzipped for clients that
+ * accept it.
+ */
+@Service("responseCacheServices")
+public class ResponseCacheServices {
+
+  private static final String GZIP = "gzip";
+
+  /* Builds the response body on a cache miss. */
+  @FunctionalInterface
+  public interface Renderer {
+    Object render() throws Exception;
+  }
+
+  private final ChangeLogServices changeLog;
+  private final ObjectMapper objectMapper;
+  private final Map<String, RenderedResponse> responses = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the rendered response for an endpoint, rendering it when data changed since.
+   *
+   * @param key Identifies the endpoint.
+   * @param acceptEncoding Accept-Encoding header of the request, or null.
+   * @param renderer Builds the body to serialize as JSON.
+   * @return JSON bytes, gzipped when the client accepts it.
+   * @throws Exception The exception thrown by the renderer or serializing its body.
+   */
+  public ResponseEntity<byte[]> getResponse(String key, String acceptEncoding,
+      Renderer renderer) throws Exception {
+    Long version = changeLog.getCurrentVersion();
+    RenderedResponse rendered = responses.get(key);
+    if (rendered == null || version == null || rendered.version < version) {
+      rendered = render(version == null ? -1 : version, renderer.render());
+      if (version != null) {
+        // Keep whichever of concurrent renders saw the newer data.
+        responses.merge(key, rendered,
+            (previous, next) -> previous.version > next.version ? previous : next);
+      }
+    }
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+          .contentLength(rendered.gzipped.length)
+          .body(rendered.gzipped);
+    }
+    return response.contentLength(rendered.json.length).body(rendered.json);
+  }
+
+  private RenderedResponse render(long version, Object body) throws IOException {
+    byte[] json = objectMapper.writeValueAsBytes(body);
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+      out.write(json);
+    }
+    return new RenderedResponse(version, json, gzipped.toByteArray());
+  }
+
+  private static class RenderedResponse {
+    private final long version;
+    private final byte[] json;
+    private final byte[] gzipped;
+
+    RenderedResponse(long version, byte[] json, byte[] gzipped) {
+      this.version = version;
+      this.json = json;
+      this.gzipped = gzipped;
+    }
+  }
+
+  public ResponseCacheServices(ChangeLogServices changeLog, ObjectMapper objectMapper) {
+    this.changeLog = changeLog;
+    this.objectMapper = objectMapper;
+  }
+}
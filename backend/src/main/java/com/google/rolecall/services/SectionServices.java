@@ -2,6 +2,7 @@ package com.google.rolecall.services;
 
 import com.google.rolecall.jsonobjects.PositionInfo;
 import com.google.rolecall.jsonobjects.SectionInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.Position;
 import com.google.rolecall.models.Section;
 import com.google.rolecall.repos.CastRepository;
@@ -12,12 +13,16 @@ import com.google.rolecall.repos.SectionRepository;
 import com.google.rolecall.repos.SubCastRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.VersionedCache;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +43,8 @@ public class SectionServices {
   private final SubCastRepository subCastRepo;
   private final PerformanceSectionRepository performanceSectionRepo;
   private final PerformanceCastMemberRepository performanceCastMemberRepo;
+  private final ChangeLogServices changeLog;
+  private final VersionedCache<SectionInfo> sectionInfoCache;
 
   /** 
    * Queries for and returns a list of every {@link Section} object in the Database.
@@ -71,6 +78,37 @@ public class SectionServices {
     return queryResult.get();
   }
 
+  /**
+   * Returns the {@link SectionInfo} of every {@link Section}, rebuilding only those that changed
+   * since they were last cached.
+   *
+   * @return A list of all {@link SectionInfo} objects ordered by id.
+   */
+  public List<SectionInfo> getAllSectionInfos() {
+    return getSectionInfos(sectionRepo.findAllIds());
+  }
+
+  /**
+   * Returns the {@link SectionInfo} of a {@link Section} by id, from the cache when unchanged.
+   *
+   * @param id The id unique to a {@link Section} object.
+   * @return A {@link SectionInfo} object associated with id.
+   * @throws EntityNotFoundException when there is not a Section containing the id.
+   */
+  public SectionInfo getSectionInfo(Integer id) throws EntityNotFoundException,
+      InvalidParameterException {
+    if(id == null) {
+      throw new InvalidParameterException("Cannot find Section with null id");
+    }
+
+    List<SectionInfo> infos = getSectionInfos(List.of(id));
+    if(infos.isEmpty()) {
+      throw new EntityNotFoundException(String.format("sectionid %d does not exist", id));
+    }
+
+    return infos.get(0);
+  }
+
   /** 
    * Creates a new {@link Section} and {@link Positions} and adds it to the database.
    * 
@@ -127,6 +165,7 @@ public class SectionServices {
     }
     Section savedSection = sectionRepo.save(section);
     updateSuperBalletChildren(savedSection, siblingIndexArray, isParentSuper);
+    publishChanged(savedSection.getId(), siblingIndexArray);
     return savedSection;
   }
 
@@ -226,6 +265,7 @@ public class SectionServices {
           if(positionToDelete.getSiblingId() > 0) {
             try {
               sectionRepo.deleteById(positionToDelete.getSiblingId());
+              changeLog.recordDeletion(ChangeType.SECTION, positionToDelete.getSiblingId());
             } catch(IllegalArgumentException e) {
             }
           }
@@ -275,6 +315,7 @@ public class SectionServices {
     }
     Section savedSection = sectionRepo.save(section);
     updateSuperBalletChildren(savedSection, siblingIndexArray, isParentSuper);
+    publishChanged(savedSection.getId(), siblingIndexArray);
     return savedSection;
   }
 
@@ -306,12 +347,14 @@ public class SectionServices {
         if(childId > 0) {
           try {
             sectionRepo.deleteById(childId);
+            changeLog.recordDeletion(ChangeType.SECTION, childId);
           } catch(IllegalArgumentException e) {
           }
         }
       }
     }  
     sectionRepo.deleteById(id);
+    changeLog.recordDeletion(ChangeType.SECTION, id);
   }
 
   // Utility functions
@@ -355,6 +398,27 @@ public class SectionServices {
     }
   }
 
+  private List<SectionInfo> getSectionInfos(List<Integer> ids) {
+    return sectionInfoCache.getAll(ids, changeLog.getVersions(ChangeType.SECTION, ids),
+        missing -> {
+          Map<Integer, SectionInfo> infos = new HashMap<>();
+          sectionRepo.findAllById(missing).forEach(s -> infos.put(s.getId(), s.toSectionInfo()));
+          return infos;
+        });
+  }
+
+  /* Change events for a saved section and the Super Ballet children created with it. */
+  private void publishChanged(Integer sectionId, Integer[] siblingIndexArray) {
+    List<Integer> changed = new ArrayList<>();
+    changed.add(sectionId);
+    for(Integer siblingId: siblingIndexArray) {
+      if(siblingId != null && siblingId != -1) {
+        changed.add(siblingId);
+      }
+    }
+    changeLog.recordChanges(ChangeType.SECTION, changed);
+  }
+
   private void updateSuperBalletChildren(Section section, Integer[] siblingIndexArray,
       boolean isParentSuper) throws InvalidParameterException {
     if(isParentSuper) {
@@ -397,6 +461,7 @@ public class SectionServices {
               .setSize(-1)
               .build();
           positionRepo.save(updatedSibling);
+          changeLog.recordChange(ChangeType.SECTION, sibling.getSection().getId());
         } catch (InvalidParameterException e) {
           return SiblingError.OTHER_ERROR;
         }
@@ -426,6 +491,7 @@ public class SectionServices {
               .setType(sibling.getType())
               .build();
           sectionRepo.save(updatedSibling);
+          changeLog.recordChange(ChangeType.SECTION, sectionId);
         } catch (InvalidParameterException e) {
           return SiblingError.OTHER_ERROR;
         }
@@ -436,12 +502,16 @@ public class SectionServices {
 
   public SectionServices(SectionRepository sectionRepo, PositionRepository positionRepo,
       CastRepository castRepo, SubCastRepository subCastRepo, PerformanceSectionRepository performanceSectionRepo,
-      PerformanceCastMemberRepository performanceCastMemberRepo) {
+      PerformanceCastMemberRepository performanceCastMemberRepo,
+      ChangeLogServices changeLog,
+      @Qualifier("sectionInfoCache") VersionedCache<SectionInfo> sectionInfoCache) {
     this.sectionRepo = sectionRepo;
     this.positionRepo = positionRepo;
     this.castRepo = castRepo;
     this.subCastRepo = subCastRepo;
     this.performanceSectionRepo = performanceSectionRepo;
     this.performanceCastMemberRepo = performanceCastMemberRepo;
+    this.changeLog = changeLog;
+    this.sectionInfoCache = sectionInfoCache;
   }
 }
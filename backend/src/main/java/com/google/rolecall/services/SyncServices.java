@@ -0,0 +1,169 @@
+package com.google.rolecall.services;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.rolecall.jsonobjects.SyncChangeInfo;
+import com.google.rolecall.jsonobjects.SyncInfo;
+import com.google.rolecall.models.Cast;
+import com.google.rolecall.models.ChangeRecord;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.models.Performance;
+import com.google.rolecall.models.Section;
+import com.google.rolecall.models.Unavailability;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.CastRepository;
+import com.google.rolecall.repos.ChangeRecordRepository;
+import com.google.rolecall.repos.PerformanceRepository;
+import com.google.rolecall.repos.SectionRepository;
+import com.google.rolecall.repos.UnavailabilityRepository;
+import com.google.rolecall.repos.UserRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+
+/*
+ * Answers "what changed since version N" from the records written by ChangeLogServices. Each
+ * page loads the changed entities with one query per type and returns their current state,
+ * or a tombstone for those deleted since.
+ */
+@Service("syncServices")
+@Transactional(readOnly = true)
+public class SyncServices {
+
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int MAX_PAGE_SIZE = 5000;
+
+  private final ChangeRecordRepository recordRepo;
+  private final PerformanceRepository performanceRepo;
+  private final CastRepository castRepo;
+  private final SectionRepository sectionRepo;
+  private final UserRepository userRepo;
+  private final UnavailabilityRepository unavailabilityRepo;
+  private final int defaultPageSize;
+
+  /**
+   * Returns the changes after a version, oldest first.
+   *
+   * @param since Last version the client has, 0 for everything.
+   * @param limit Most changes to return, or null for the default.
+   * @return Changes and the version to pass as since for the next page.
+   * @throws InvalidParameterException When since is negative or limit is out of range.
+   */
+  public SyncInfo getChangesSince(long since, Integer limit) throws InvalidParameterException {
+    if (since < 0) {
+      throw new InvalidParameterException("Sync version cannot be negative");
+    }
+    int pageSize = limit == null ? defaultPageSize : limit;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new InvalidParameterException(
+          String.format("Sync limit must be between 1 and %d", MAX_PAGE_SIZE));
+    }
+
+    // One extra record tells whether another page follows.
+    List<ChangeRecord> records = new ArrayList<>(recordRepo
+        .findByVersionGreaterThanOrderByVersion(since, PageRequest.of(0, pageSize + 1)));
+    boolean hasMore = records.size() > pageSize;
+    if (hasMore) {
+      records = records.subList(0, pageSize);
+    }
+
+    Map<ChangeType, Set<Integer>> idsByType = new EnumMap<>(ChangeType.class);
+    for (ChangeRecord record : records) {
+      if (!record.isDeleted()) {
+        idsByType.computeIfAbsent(record.getType(), type -> new HashSet<>())
+            .add(record.getEntityId());
+      }
+    }
+    Map<Integer, Performance> performances = load(performanceRepo,
+        idsByType.get(ChangeType.PERFORMANCE), Performance::getId);
+    Map<Integer, Cast> casts = load(castRepo, idsByType.get(ChangeType.CAST), Cast::getId);
+    Map<Integer, Section> sections = load(sectionRepo, idsByType.get(ChangeType.SECTION),
+        Section::getId);
+    Map<Integer, User> users = load(userRepo, idsByType.get(ChangeType.USER), User::getId);
+    Map<Integer, Unavailability> unavailabilities = load(unavailabilityRepo,
+        idsByType.get(ChangeType.UNAVAILABILITY), Unavailability::getId);
+
+    List<SyncChangeInfo> changes = new ArrayList<>(records.size());
+    for (ChangeRecord record : records) {
+      Integer id = record.getEntityId();
+      SyncChangeInfo.Builder change = SyncChangeInfo.newBuilder()
+          .setType(record.getType().name())
+          .setId(id)
+          .setVersion(record.getVersion());
+      // An entity missing here was deleted after the record was read.
+      boolean deleted = record.isDeleted();
+      switch (record.getType()) {
+        case PERFORMANCE:
+          deleted |= !performances.containsKey(id);
+          if (!deleted) {
+            change.setPerformance(performances.get(id).toPerformanceInfo());
+          }
+          break;
+        case CAST:
+          deleted |= !casts.containsKey(id);
+          if (!deleted) {
+            change.setCast(casts.get(id).toCastInfo());
+          }
+          break;
+        case SECTION:
+          deleted |= !sections.containsKey(id);
+          if (!deleted) {
+            change.setSection(sections.get(id).toSectionInfo());
+          }
+          break;
+        case USER:
+          deleted |= !users.containsKey(id);
+          if (!deleted) {
+            change.setUser(users.get(id).toUserInfo());
+          }
+          break;
+        case UNAVAILABILITY:
+          deleted |= !unavailabilities.containsKey(id);
+          if (!deleted) {
+            change.setUnavailability(unavailabilities.get(id).toUnavailabilityInfo());
+          }
+          break;
+      }
+      changes.add(change.setDeleted(deleted).build());
+    }
+
+    return SyncInfo.newBuilder()
+        .setVersion(records.isEmpty() ? since : records.get(records.size() - 1).getVersion())
+        .setHasMore(hasMore)
+        .setChanges(changes)
+        .build();
+  }
+
+  private static <T> Map<Integer, T> load(CrudRepository<T, Integer> repo, Set<Integer> ids,
+      Function<T, Integer> getId) {
+    Map<Integer, T> entities = new HashMap<>();
+    if (ids != null) {
+      repo.findAllById(ids).forEach(entity -> entities.put(getId.apply(entity), entity));
+    }
+    return entities;
+  }
+
+  public SyncServices(ChangeRecordRepository recordRepo, PerformanceRepository performanceRepo,
+      CastRepository castRepo, SectionRepository sectionRepo, UserRepository userRepo,
+      UnavailabilityRepository unavailabilityRepo, Environment env) {
+    this.recordRepo = recordRepo;
+    this.performanceRepo = performanceRepo;
+    this.castRepo = castRepo;
+    this.sectionRepo = sectionRepo;
+    this.userRepo = userRepo;
+    this.unavailabilityRepo = unavailabilityRepo;
+    this.defaultPageSize = env.getProperty("rolecall.sync.page-size", Integer.class,
+        DEFAULT_PAGE_SIZE);
+  }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Optional;
 
 import com.google.rolecall.jsonobjects.UnavailabilityInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.Unavailability;
 import com.google.rolecall.models.User;
 import com.google.rolecall.repos.UnavailabilityRepository;
@@ -19,6 +20,7 @@ public class UnavailabilityServices {
   
   private final UnavailabilityRepository unavailabilityRepo;
   private final UserServices userService;
+  private final ChangeLogServices changeLog;
 
   public Unavailability getUnavailability(Integer id) throws EntityNotFoundException,
       InvalidParameterException {
@@ -77,7 +79,9 @@ public class UnavailabilityServices {
     User user = userService.getUser(info.userId());
     user.addUnavailability(unavailable);
 
-    return unavailabilityRepo.save(unavailable);
+    Unavailability savedUnavailable = unavailabilityRepo.save(unavailable);
+    changeLog.recordChange(ChangeType.UNAVAILABILITY, savedUnavailable.getId());
+    return savedUnavailable;
   }
 
   public Unavailability editUnavailability(UnavailabilityInfo info)
@@ -90,18 +94,22 @@ public class UnavailabilityServices {
         .setEndDate(info.endDate())
         .build();
 
-    return unavailabilityRepo.save(unavailable);
+    Unavailability savedUnavailable = unavailabilityRepo.save(unavailable);
+    changeLog.recordChange(ChangeType.UNAVAILABILITY, savedUnavailable.getId());
+    return savedUnavailable;
   }
 
   public void deleteUnavailability(Integer id) 
       throws InvalidParameterException, EntityNotFoundException {
     Unavailability unavailable = getUnavailability(id);
     unavailabilityRepo.delete(unavailable);
+    changeLog.recordDeletion(ChangeType.UNAVAILABILITY, id);
   }
 
   public UnavailabilityServices(UnavailabilityRepository unavailabilityRepo,
-      UserServices userService) {
+      UserServices userService, ChangeLogServices changeLog) {
     this.unavailabilityRepo = unavailabilityRepo;
     this.userService = userService;
+    this.changeLog = changeLog;
   }
 }
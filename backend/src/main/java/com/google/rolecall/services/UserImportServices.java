@@ -0,0 +1,264 @@
+package com.google.rolecall.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.rolecall.jsonobjects.UserImportRowInfo;
+import com.google.rolecall.jsonobjects.UserInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.UserRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.CsvRecordReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Imports many users at once from a CSV or newline delimited JSON upload. The upload is read
+ * one row at a time and written in fixed size batches so memory use does not grow with the file.
+ * Each batch is saved in one transaction together with its change records.
+ */
+@Service("userImportServices")
+public class UserImportServices {
+
+  public enum Format {
+    CSV,
+    NDJSON,
+  }
+
+  static final int BATCH_SIZE = 100;
+  private static final int BYTE_ORDER_MARK = '\uFEFF';
+
+  private final UserRepository userRepo;
+  private final UserServices userService;
+  private final ObjectMapper objectMapper;
+  private final ChangeLogServices changeLog;
+  private final TransactionTemplate transactions;
+
+  /**
+   * Reads users from an upload and saves every valid row that does not duplicate an existing
+   * email. CSV uploads require a header row naming {@link UserInfo} properties such as
+   * firstName, lastName and email. NDJSON uploads contain one {@link UserInfo} object per line.
+   *
+   * @param upload Stream containing the uploaded file.
+   * @param format Format of the upload.
+   * @return One {@link UserImportRowInfo} per non blank row, in upload order.
+   * @throws IOException When the upload cannot be read.
+   * @throws InvalidParameterException When a CSV upload has no header row.
+   */
+  public List<UserImportRowInfo> importUsers(InputStream upload, Format format)
+      throws IOException, InvalidParameterException {
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(upload, StandardCharsets.UTF_8));
+    // Spreadsheet exports often start with a byte order mark, which would join the first name.
+    reader.mark(1);
+    if (reader.read() != BYTE_ORDER_MARK) {
+      reader.reset();
+    }
+    ImportBatch batch = new ImportBatch();
+
+    if (format == Format.CSV) {
+      readCsv(reader, batch);
+    } else {
+      readNdjson(reader, batch);
+    }
+    batch.flush();
+
+    // Rows held for a batch are reported after rows rejected while reading.
+    batch.results.sort(Comparator.comparing(UserImportRowInfo::row));
+    return batch.results;
+  }
+
+  private void readCsv(BufferedReader reader, ImportBatch batch)
+      throws IOException, InvalidParameterException {
+    CsvRecordReader csv = new CsvRecordReader(reader);
+    List<String> header = csv.readRecord();
+    if (header == null || header.isEmpty()) {
+      throw new InvalidParameterException("User import requires a header row.");
+    }
+
+    int row = 1;
+    List<String> record;
+    while ((record = csv.readRecord()) != null) {
+      row++;
+      if (record.size() == 1 && record.get(0).isBlank()) {
+        continue;
+      }
+
+      Map<String, String> properties = new HashMap<>();
+      for (int i = 0; i < header.size() && i < record.size(); i++) {
+        String value = record.get(i).trim();
+        if (!value.isEmpty()) {
+          properties.put(header.get(i).trim(), value);
+        }
+      }
+
+      UserInfo info;
+      try {
+        info = objectMapper.convertValue(properties, UserInfo.class);
+      } catch (IllegalArgumentException e) {
+        batch.reject(row, properties.get("email"), "Row could not be read as a user.");
+        continue;
+      }
+      batch.add(row, info);
+    }
+  }
+
+  private void readNdjson(BufferedReader reader, ImportBatch batch) throws IOException {
+    int row = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      row++;
+      if (line.isBlank()) {
+        continue;
+      }
+
+      UserInfo info;
+      try {
+        info = objectMapper.readValue(line, UserInfo.class);
+      } catch (IOException e) {
+        batch.reject(row, null, "Row could not be read as a user.");
+        continue;
+      }
+      batch.add(row, info);
+    }
+  }
+
+  /* Rows waiting to be written together with the results reported so far. */
+  private class ImportBatch {
+    private final List<UserImportRowInfo> results = new ArrayList<>();
+    private final Set<String> seenEmails = new HashSet<>();
+    private final List<Integer> rows = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<UserInfo> infos = new ArrayList<>();
+
+    void reject(int row, String email, String error) {
+      results.add(UserImportRowInfo.newBuilder()
+          .setRow(row)
+          .setEmail(email)
+          .setError(error)
+          .build());
+    }
+
+    void add(int row, UserInfo info) {
+      String email = info.email();
+      if (email == null) {
+        reject(row, null, "User requires email address");
+        return;
+      } else if (!UserServices.validateEmail(email)) {
+        reject(row, email, "User requires valid email address");
+        return;
+      } else if (!seenEmails.add(User.normalizeEmail(email))) {
+        reject(row, email, String.format("Email %s appears earlier in the upload", email));
+        return;
+      }
+
+      User user;
+      try {
+        user = userService.buildUser(info);
+      } catch (InvalidParameterException e) {
+        reject(row, email, e.getMessage());
+        return;
+      }
+
+      rows.add(row);
+      users.add(user);
+      infos.add(info);
+      if (users.size() >= BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    /* Checks the pending emails with one query and inserts the new users together. */
+    void flush() {
+      if (users.isEmpty()) {
+        return;
+      }
+
+      List<String> emails = new ArrayList<>();
+      users.forEach(u -> emails.add(u.getEmailNormalized()));
+      Set<String> existing = new HashSet<>(userRepo.findExistingEmails(emails));
+
+      List<Integer> newRows = new ArrayList<>();
+      List<User> newUsers = new ArrayList<>();
+      List<UserInfo> newInfos = new ArrayList<>();
+      for (int i = 0; i < users.size(); i++) {
+        User user = users.get(i);
+        if (existing.contains(user.getEmailNormalized())) {
+          reject(rows.get(i), user.getEmail(),
+              String.format("A user with email %s already exists", user.getEmail()));
+        } else {
+          newRows.add(rows.get(i));
+          newUsers.add(user);
+          newInfos.add(infos.get(i));
+        }
+      }
+
+      try {
+        transactions.executeWithoutResult(status -> {
+          userRepo.saveAll(newUsers);
+          List<Integer> ids = new ArrayList<>();
+          newUsers.forEach(u -> ids.add(u.getId()));
+          changeLog.recordChanges(ChangeType.USER, ids);
+        });
+        for (int i = 0; i < newUsers.size(); i++) {
+          accept(newRows.get(i), newUsers.get(i));
+        }
+      } catch (DataIntegrityViolationException e) {
+        // Another request created one of these emails since the check. Retry one at a time
+        // with fresh entities, since the failed batch may have assigned ids to the old ones.
+        for (int i = 0; i < newInfos.size(); i++) {
+          String email = newUsers.get(i).getEmail();
+          try {
+            User user = userService.buildUser(newInfos.get(i));
+            User savedUser = transactions.execute(status -> {
+              User saved = userRepo.save(user);
+              changeLog.recordChange(ChangeType.USER, saved.getId());
+              return saved;
+            });
+            accept(newRows.get(i), savedUser);
+          } catch (DataIntegrityViolationException duplicate) {
+            reject(newRows.get(i), email,
+                String.format("A user with email %s already exists", email));
+          } catch (InvalidParameterException invalid) {
+            reject(newRows.get(i), email, invalid.getMessage());
+          }
+        }
+      }
+
+      rows.clear();
+      users.clear();
+      infos.clear();
+    }
+
+    private void accept(int row, User user) {
+      results.add(UserImportRowInfo.newBuilder()
+          .setRow(row)
+          .setEmail(user.getEmail())
+          .setUserId(user.getId())
+          .build());
+    }
+  }
+
+  public UserImportServices(UserRepository userRepo, UserServices userService,
+      ObjectMapper objectMapper, ChangeLogServices changeLog,
+      PlatformTransactionManager transactionManager) {
+    this.userRepo = userRepo;
+    this.userService = userService;
+    this.objectMapper = objectMapper;
+    this.changeLog = changeLog;
+    this.transactions = new TransactionTemplate(transactionManager);
+  }
+}
@@ -2,6 +2,7 @@ package com.google.rolecall.services;
 
 import com.google.rolecall.Constants;
 import com.google.rolecall.jsonobjects.UserInfo;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.User;
 import com.google.rolecall.models.UserAsset;
 import com.google.rolecall.repos.CastMemberRepository;
@@ -11,6 +12,7 @@ import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.E
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import org.springframework.stereotype.Service;
@@ -18,10 +20,16 @@ import org.springframework.stereotype.Service;
 /* Utility classes for accessing Users while mantaining database consistencies. */
 @Service("userServices")
 public class UserServices {
+
+  // Found at https://regexlib.com/REDetails.aspx?regexp_id=26
+  private static final Pattern EMAIL_PATTERN = Pattern.compile(
+      "^([a-zA-Z0-9_\\-\\.]+)@((\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.)"
+      + "|(([a-zA-Z0-9\\-]+\\.)+))([a-zA-Z]{2,4}|[0-9]{1,3})(\\]?)$");
   
   private final UserRepository userRepo;
   private final CastMemberRepository castMemberRepo;
   private final PerformanceCastMemberRepository performanceCastMemberRepo;
+  private final ChangeLogServices changeLog;
 
   public List<User> getAllUsers() {
     List<User> allUsers = new ArrayList<>();
@@ -62,7 +70,16 @@ public class UserServices {
           newUser.email()));
     }
     
-    User user = User.newBuilder()
+    User user = buildUser(newUser);
+
+    User savedUser = userRepo.save(user);
+    changeLog.recordChange(ChangeType.USER, savedUser.getId());
+    return savedUser;
+  }
+
+  /* Builds an unsaved {@link User} from client supplied information. */
+  User buildUser(UserInfo newUser) throws InvalidParameterException {
+    return User.newBuilder()
         .setFirstName(newUser.firstName())
         .setMiddleName(newUser.middleName())
         .setLastName(newUser.lastName())
@@ -88,8 +105,6 @@ public class UserServices {
         .setComments(newUser.comments())
         .setIsActive(newUser.isActive())
         .build();
-
-    return userRepo.save(user);
   }
 
   /**
@@ -128,7 +143,9 @@ public class UserServices {
         .setComments(newUser.comments())
         .setIsActive(newUser.isActive());
     try {
-      return userRepo.save(builder.build());
+      User savedUser = userRepo.save(builder.build());
+      changeLog.recordChange(ChangeType.USER, savedUser.getId());
+      return savedUser;
     } catch(InvalidParameterException e) { 
       // Unreachable unless an invalid object exists in the database
       throw new Error(String.format(
@@ -153,6 +170,7 @@ public class UserServices {
     }
 
     userRepo.deleteById(id);
+    changeLog.recordDeletion(ChangeType.USER, id);
   }
 
   public UserAsset addNewProfilePictureToUser(Integer id, UserAsset asset)
@@ -167,9 +185,13 @@ public class UserServices {
   public void removeProfilePictureFromUser(Integer id, UserAsset asset)
       throws EntityNotFoundException, InvalidParameterException {
     User user = getUser(id);
+    String pictureFile = user.getPictureFile();
     user.removeProfilePicture(asset);
     // Don't update user. User is updates separately.
     //userRepo.save(user);
+    if (!Objects.equals(pictureFile, user.getPictureFile())) {
+      changeLog.recordChange(ChangeType.USER, id);
+    }
   }
 
   // Don't update user. User is updated separately.
@@ -181,17 +203,16 @@ public class UserServices {
   // }
 
   /* Determines if an email has a valid email format. */
-  private boolean validateEmail(String email) {
-    // Found at https://regexlib.com/REDetails.aspx?regexp_id=26
-    String pattern = "^([a-zA-Z0-9_\\-\\.]+)@((\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.)"
-        + "|(([a-zA-Z0-9\\-]+\\.)+))([a-zA-Z]{2,4}|[0-9]{1,3})(\\]?)$";
-    return Pattern.matches(pattern, email);
+  static boolean validateEmail(String email) {
+    return EMAIL_PATTERN.matcher(email).matches();
   }
 
   public UserServices(UserRepository userRepo, CastMemberRepository castMemberRepo,
-      PerformanceCastMemberRepository performanceCastMemberRepo) {
+      PerformanceCastMemberRepository performanceCastMemberRepo,
+      ChangeLogServices changeLog) {
     this.userRepo = userRepo;
     this.castMemberRepo = castMemberRepo;
     this.performanceCastMemberRepo = performanceCastMemberRepo;
+    this.changeLog = changeLog;
   }
 }
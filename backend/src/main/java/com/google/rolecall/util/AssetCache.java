@@ -0,0 +1,155 @@
+package com.google.rolecall.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Least recently used cache of asset bytes bounded by the total number of bytes held. Concurrent
+ * misses for the same key share a single load. Hit, miss and eviction counts are published as
+ * rolecall.asset.cache metrics.
+ */
+public class AssetCache implements MeterBinder {
+
+  /* Loads the bytes for a key on a cache miss. */
+  @FunctionalInterface
+  public interface Loader {
+    byte[] load() throws Exception;
+  }
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private long weight = 0;
+
+  /**
+   * Returns the cached bytes for a key, loading them when absent. Only one load runs per key at
+   * a time; other callers wait for its result.
+   *
+   * @param key Identifies the asset.
+   * @param loader Reads the asset when it is not cached.
+   * @return Bytes of the asset.
+   * @throws Exception The exception thrown by the loader.
+   */
+  public byte[] get(String key, Loader loader) throws Exception {
+    byte[] cached;
+    synchronized (entries) {
+      cached = entries.get(key);
+    }
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+
+    CompletableFuture<byte[]> pending = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = loading.putIfAbsent(key, pending);
+    if (existing != null) {
+      return await(existing);
+    }
+
+    try {
+      byte[] value = loader.load();
+      // A concurrent invalidate removes the pending load, in which case the result is stale.
+      if (loading.remove(key, pending)) {
+        put(key, value);
+      }
+      pending.complete(value);
+      return value;
+    } catch (Exception e) {
+      loading.remove(key, pending);
+      pending.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /* Removes a key and abandons any load of it in progress. */
+  public void invalidate(String key) {
+    loading.remove(key);
+    synchronized (entries) {
+      byte[] removed = entries.remove(key);
+      if (removed != null) {
+        weight -= removed.length;
+      }
+    }
+  }
+
+  public long getWeight() {
+    synchronized (entries) {
+      return weight;
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("rolecall.asset.cache.hits", this, AssetCache::getHitCount)
+        .register(registry);
+    FunctionCounter.builder("rolecall.asset.cache.misses", this, AssetCache::getMissCount)
+        .register(registry);
+    FunctionCounter.builder("rolecall.asset.cache.evictions", this, AssetCache::getEvictionCount)
+        .register(registry);
+    Gauge.builder("rolecall.asset.cache.size", this, AssetCache::getWeight)
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("rolecall.asset.cache.hit.ratio", this, cache -> {
+      double total = cache.getHitCount() + cache.getMissCount();
+      return total == 0 ? 0 : cache.getHitCount() / total;
+    }).register(registry);
+  }
+
+  private void put(String key, byte[] value) {
+    if (value.length > maxBytes) {
+      return;
+    }
+    synchronized (entries) {
+      byte[] previous = entries.put(key, value);
+      weight += value.length - (previous == null ? 0 : previous.length);
+
+      Iterator<byte[]> eldest = entries.values().iterator();
+      while (weight > maxBytes && eldest.hasNext()) {
+        weight -= eldest.next().length;
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  private static byte[] await(CompletableFuture<byte[]> pending) throws Exception {
+    try {
+      return pending.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  public AssetCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+}
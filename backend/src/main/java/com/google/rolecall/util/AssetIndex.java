@@ -0,0 +1,326 @@
+package com.google.rolecall.util;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Size and modification time of every stored file, kept in a memory mapped open addressing
+ * hash table so lookups need no filesystem metadata calls and no heap per entry. Each slot is
+ * a fixed 128 bytes holding the asset type, the file name and its attributes. The table
+ * doubles into a new file once it is 70% full. The file is marked dirty while open and clean
+ * on close, and a dirty file is not trusted on the next open since it may have missed writes.
+ *
+ * Names longer than MAX_NAME_BYTES are not indexed and callers fall back to the filesystem.
+ */
+public class AssetIndex implements AutoCloseable {
+
+  /* Size and modification time of an indexed file. */
+  public static class Entry {
+    private final long size;
+    private final long lastModified;
+
+    public long getSize() {
+      return size;
+    }
+
+    /* Milliseconds since the epoch. */
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    Entry(long size, long lastModified) {
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private static final int MAGIC = 0x52434149;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 32;
+  private static final int SLOT_BYTES = 128;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final double MAX_LOAD = 0.7;
+
+  // Header offsets.
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int USED_OFFSET = 12;
+  private static final int LIVE_OFFSET = 16;
+  private static final int CLEAN_OFFSET = 20;
+
+  // Slot offsets.
+  private static final int STATE_OFFSET = 0;
+  private static final int TYPE_OFFSET = 1;
+  private static final int NAME_LENGTH_OFFSET = 2;
+  private static final int SIZE_OFFSET = 4;
+  private static final int MODIFIED_OFFSET = 12;
+  private static final int NAME_OFFSET = 20;
+
+  static final int MAX_NAME_BYTES = SLOT_BYTES - NAME_OFFSET;
+
+  private static final byte EMPTY = 0;
+  private static final byte LIVE = 1;
+  private static final byte DELETED = 2;
+
+  private final Path path;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int capacity;
+
+  /**
+   * Maps the index stored at path.
+   *
+   * @return The index, or null when there is no file or it was not closed cleanly.
+   */
+  public static AssetIndex open(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return null;
+    }
+    AssetIndex index = new AssetIndex(path);
+    index.map();
+    if (index.buffer.capacity() < HEADER_BYTES
+        || index.buffer.getInt(MAGIC_OFFSET) != MAGIC
+        || index.buffer.getInt(VERSION_OFFSET) != VERSION
+        || index.buffer.capacity() != HEADER_BYTES
+            + (long) index.buffer.getInt(CAPACITY_OFFSET) * SLOT_BYTES
+        || index.buffer.get(CLEAN_OFFSET) != 1) {
+      // Not marked clean, so left as is for the caller to replace.
+      index.channel.close();
+      return null;
+    }
+    index.capacity = index.buffer.getInt(CAPACITY_OFFSET);
+    index.markClean(false);
+    return index;
+  }
+
+  /* Creates an empty index at path, replacing any existing file. */
+  public static AssetIndex create(Path path) throws IOException {
+    Files.deleteIfExists(path);
+    initialize(path, INITIAL_CAPACITY);
+    AssetIndex index = new AssetIndex(path);
+    index.map();
+    index.capacity = INITIAL_CAPACITY;
+    index.markClean(false);
+    return index;
+  }
+
+  /* Whether a name fits in a slot. Absence from the index is only conclusive for these. */
+  public static boolean isIndexable(String name) {
+    return name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+  }
+
+  /* Null when absent or once the index is closed. */
+  public synchronized Entry get(AssetType type, String name) {
+    if (channel == null) {
+      return null;
+    }
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    if (key.length > MAX_NAME_BYTES) {
+      return null;
+    }
+    int slot = find(buffer, capacity, type, key);
+    if (slot < 0 || buffer.get(slotOffset(slot) + STATE_OFFSET) != LIVE) {
+      return null;
+    }
+    int offset = slotOffset(slot);
+    return new Entry(buffer.getLong(offset + SIZE_OFFSET),
+        buffer.getLong(offset + MODIFIED_OFFSET));
+  }
+
+  public synchronized void put(AssetType type, String name, long size, long lastModified)
+      throws IOException {
+    if (channel == null) {
+      return;
+    }
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    if (key.length > MAX_NAME_BYTES) {
+      return;
+    }
+    if (buffer.getInt(USED_OFFSET) + 1 > capacity * MAX_LOAD) {
+      grow();
+    }
+    int slot = find(buffer, capacity, type, key);
+    int offset = slotOffset(slot);
+    byte state = buffer.get(offset + STATE_OFFSET);
+    if (state != LIVE) {
+      if (state == EMPTY) {
+        buffer.putInt(USED_OFFSET, buffer.getInt(USED_OFFSET) + 1);
+      }
+      buffer.putInt(LIVE_OFFSET, buffer.getInt(LIVE_OFFSET) + 1);
+      writeKey(buffer, offset, type, key);
+    }
+    buffer.putLong(offset + SIZE_OFFSET, size);
+    buffer.putLong(offset + MODIFIED_OFFSET, lastModified);
+    buffer.put(offset + STATE_OFFSET, LIVE);
+  }
+
+  public synchronized void remove(AssetType type, String name) {
+    if (channel == null) {
+      return;
+    }
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    if (key.length > MAX_NAME_BYTES) {
+      return;
+    }
+    int slot = find(buffer, capacity, type, key);
+    if (slot >= 0 && buffer.get(slotOffset(slot) + STATE_OFFSET) == LIVE) {
+      // Tombstone so probes for later keys continue past this slot.
+      buffer.put(slotOffset(slot) + STATE_OFFSET, DELETED);
+      buffer.putInt(LIVE_OFFSET, buffer.getInt(LIVE_OFFSET) - 1);
+    }
+  }
+
+  public synchronized int size() {
+    return channel == null ? 0 : buffer.getInt(LIVE_OFFSET);
+  }
+
+  /* Flushes and marks the file clean so the next open can trust it. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    markClean(true);
+    channel.close();
+    channel = null;
+    buffer = null;
+  }
+
+  /* Rewrites the live entries into a file twice the size, dropping tombstones. */
+  private void grow() throws IOException {
+    int newCapacity = capacity * 2;
+    Path next = path.resolveSibling(path.getFileName() + ".grow");
+    Files.deleteIfExists(next);
+    initialize(next, newCapacity);
+    try (FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+          HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+      int live = 0;
+      for (int slot = 0; slot < capacity; slot++) {
+        int offset = slotOffset(slot);
+        if (buffer.get(offset + STATE_OFFSET) != LIVE) {
+          continue;
+        }
+        AssetType type = AssetType.values()[buffer.get(offset + TYPE_OFFSET)];
+        byte[] key = new byte[buffer.getShort(offset + NAME_LENGTH_OFFSET)];
+        for (int i = 0; i < key.length; i++) {
+          key[i] = buffer.get(offset + NAME_OFFSET + i);
+        }
+        int nextOffset = slotOffset(find(nextBuffer, newCapacity, type, key));
+        writeKey(nextBuffer, nextOffset, type, key);
+        nextBuffer.putLong(nextOffset + SIZE_OFFSET, buffer.getLong(offset + SIZE_OFFSET));
+        nextBuffer.putLong(nextOffset + MODIFIED_OFFSET,
+            buffer.getLong(offset + MODIFIED_OFFSET));
+        nextBuffer.put(nextOffset + STATE_OFFSET, LIVE);
+        live++;
+      }
+      nextBuffer.putInt(USED_OFFSET, live);
+      nextBuffer.putInt(LIVE_OFFSET, live);
+      nextBuffer.force();
+    }
+    channel.close();
+    Files.move(next, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    map();
+    capacity = newCapacity;
+    markClean(false);
+  }
+
+  /*
+   * Linear probe for the key. Returns its slot, or the first reusable slot when it is absent,
+   * or -1 when it is absent and the table has no reusable slot.
+   */
+  private static int find(MappedByteBuffer buffer, int capacity, AssetType type, byte[] key) {
+    int slot = Math.floorMod(hash(type, key), capacity);
+    int reusable = -1;
+    for (int probes = 0; probes < capacity; probes++) {
+      int offset = slotOffset(slot);
+      byte state = buffer.get(offset + STATE_OFFSET);
+      if (state == EMPTY) {
+        return reusable >= 0 ? reusable : slot;
+      } else if (state == DELETED) {
+        if (reusable < 0) {
+          reusable = slot;
+        }
+      } else if (matches(buffer, offset, type, key)) {
+        return slot;
+      }
+      slot = (slot + 1) % capacity;
+    }
+    return reusable;
+  }
+
+  private static boolean matches(MappedByteBuffer buffer, int offset, AssetType type,
+      byte[] key) {
+    if (buffer.get(offset + TYPE_OFFSET) != type.ordinal()
+        || buffer.getShort(offset + NAME_LENGTH_OFFSET) != key.length) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(offset + NAME_OFFSET + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeKey(MappedByteBuffer buffer, int offset, AssetType type,
+      byte[] key) {
+    buffer.put(offset + TYPE_OFFSET, (byte) type.ordinal());
+    buffer.putShort(offset + NAME_LENGTH_OFFSET, (short) key.length);
+    for (int i = 0; i < key.length; i++) {
+      buffer.put(offset + NAME_OFFSET + i, key[i]);
+    }
+  }
+
+  private static int hash(AssetType type, byte[] key) {
+    int hash = type.ordinal();
+    for (byte b : key) {
+      hash = 31 * hash + b;
+    }
+    // Spread the low bits used for the slot.
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int slotOffset(int slot) {
+    return HEADER_BYTES + slot * SLOT_BYTES;
+  }
+
+  private static void initialize(Path path, int capacity) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          HEADER_BYTES + (long) capacity * SLOT_BYTES);
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      buffer.putInt(VERSION_OFFSET, VERSION);
+      buffer.putInt(CAPACITY_OFFSET, capacity);
+      buffer.force();
+    }
+  }
+
+  private void map() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+  }
+
+  private void markClean(boolean clean) {
+    buffer.put(CLEAN_OFFSET, (byte) (clean ? 1 : 0));
+    buffer.force();
+  }
+
+  private AssetIndex(Path path) {
+    this.path = path;
+  }
+}
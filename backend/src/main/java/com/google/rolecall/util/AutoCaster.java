@@ -0,0 +1,162 @@
+package com.google.rolecall.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Fills casting slots with dancers by backtracking search over bitset candidate sets. Dancers are
+ * dense indexes 0..n-1 and every slot has the set of dancers allowed in it and a group: a dancer
+ * is cast at most once per group, which is how a performance avoids the same user appearing
+ * twice in one cast number. The most constrained slot is filled first and dancers with the
+ * least load are tried first, so the first complete answer found also spreads work across the
+ * company. Slots nobody can fill are left empty, and when the node budget runs out the
+ * assignment with the fewest empty slots found so far is returned.
+ */
+public class AutoCaster {
+
+  public static final int UNFILLED = -1;
+
+  private final int[] load;
+  private final long maxNodes;
+  private final List<BitSet> candidates = new ArrayList<>();
+  private final List<BitSet> slotGroups = new ArrayList<>();
+  private final Map<Integer, BitSet> groups = new HashMap<>();
+
+  private int[] assignment;
+  private boolean[] decided;
+  private int[] best;
+  private int bestUnfilled;
+  private long nodes;
+  private BitSet scratch;
+
+  /**
+   * @param load How much each dancer already works, indexed by dancer. Copied.
+   * @param maxNodes Search steps to take before settling for the best assignment found.
+   */
+  public AutoCaster(int[] load, long maxNodes) {
+    this.load = load.clone();
+    this.maxNodes = maxNodes;
+  }
+
+  /* Marks a dancer as already cast in a group, such as a member saved before auto-casting. */
+  public void reserve(int group, int dancer) {
+    group(group).set(dancer);
+  }
+
+  /**
+   * Adds a slot to fill.
+   *
+   * @param group Dancers are cast at most once per group.
+   * @param allowed Dancers that may fill the slot. Not modified.
+   * @return Index of the slot in the result of {@link #solve()}.
+   */
+  public int addSlot(int group, BitSet allowed) {
+    candidates.add(allowed);
+    slotGroups.add(group(group));
+    return candidates.size() - 1;
+  }
+
+  /**
+   * Searches for the assignment of dancers to slots.
+   *
+   * @return Dancer cast in each slot by slot index, or {@link #UNFILLED}.
+   */
+  public int[] solve() {
+    int slots = candidates.size();
+    assignment = new int[slots];
+    Arrays.fill(assignment, UNFILLED);
+    decided = new boolean[slots];
+    best = assignment.clone();
+    bestUnfilled = slots + 1;
+    nodes = 0;
+    scratch = new BitSet(load.length);
+
+    search(slots, 0);
+    return best;
+  }
+
+  /* Returns true to stop the search, when nothing better can be found or the budget is spent. */
+  private boolean search(int remaining, int unfilled) {
+    nodes++;
+    if (remaining == 0) {
+      if (unfilled < bestUnfilled) {
+        bestUnfilled = unfilled;
+        best = assignment.clone();
+      }
+      return unfilled == 0;
+    }
+    // Always finish the first descent so there is an answer, then honor the budget.
+    if (bestUnfilled <= candidates.size() && nodes > maxNodes) {
+      return true;
+    }
+
+    int slot = mostConstrainedSlot();
+    scratch.clear();
+    scratch.or(candidates.get(slot));
+    scratch.andNot(slotGroups.get(slot));
+    int[] options = leastLoadedFirst(scratch);
+
+    decided[slot] = true;
+    if (options.length == 0) {
+      boolean stop = unfilled + 1 < bestUnfilled && search(remaining - 1, unfilled + 1);
+      decided[slot] = false;
+      return stop;
+    }
+
+    BitSet group = slotGroups.get(slot);
+    for (int dancer : options) {
+      assignment[slot] = dancer;
+      group.set(dancer);
+      load[dancer]++;
+      boolean stop = search(remaining - 1, unfilled);
+      load[dancer]--;
+      group.clear(dancer);
+      if (stop) {
+        assignment[slot] = UNFILLED;
+        decided[slot] = false;
+        return true;
+      }
+    }
+    assignment[slot] = UNFILLED;
+    decided[slot] = false;
+    return false;
+  }
+
+  /* The open slot with the fewest dancers left to choose from. */
+  private int mostConstrainedSlot() {
+    int chosen = -1;
+    int fewest = Integer.MAX_VALUE;
+    for (int slot = 0; slot < candidates.size(); slot++) {
+      if (decided[slot]) {
+        continue;
+      }
+      scratch.clear();
+      scratch.or(candidates.get(slot));
+      scratch.andNot(slotGroups.get(slot));
+      int count = scratch.cardinality();
+      if (count < fewest) {
+        chosen = slot;
+        fewest = count;
+        if (count <= 1) {
+          break;
+        }
+      }
+    }
+    return chosen;
+  }
+
+  private int[] leastLoadedFirst(BitSet dancers) {
+    Integer[] ordered = dancers.stream().boxed().toArray(Integer[]::new);
+    Arrays.sort(ordered, (a, b) -> load[a] != load[b]
+        ? Integer.compare(load[a], load[b]) : Integer.compare(a, b));
+    return Arrays.stream(ordered).mapToInt(Integer::intValue).toArray();
+  }
+
+  private BitSet group(int group) {
+    return groups.computeIfAbsent(group, g -> new BitSet(load.length));
+  }
+}
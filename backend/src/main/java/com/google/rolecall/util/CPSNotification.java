@@ -1,49 +1,45 @@
 package com.google.rolecall.util;
 
-import com.google.rolecall.Constants;
-import com.google.rolecall.models.User;
-import com.google.pubsub.v1.PubsubMessage;
-import com.google.pubsub.v1.TopicName;
-import java.util.concurrent.TimeUnit;
-import com.google.cloud.pubsub.v1.Publisher;
 import com.google.gson.Gson;
-import com.google.protobuf.ByteString;
 
+/* Message sent to a cast member through the notification topic of a profile. */
 public class CPSNotification {
+	private static final Gson GSON = new Gson();
+
+	String id;
 	String email;
 	String phone;
 	String message;
 	String profile;
 
-	public CPSNotification(User user, String message, String profile) {
-		
-		this.profile = profile;		
-		this.email = user.getEmail();
-		this.phone = user.getPhoneNumber();
+	/* Digest of queued messages. The id is the same every time the same digest is sent. */
+	public CPSNotification(String id, String email, String phone, String message,
+			String profile) {
+		this.id = id;
+		this.email = email;
+		this.phone = phone;
 		this.message = message;
+		this.profile = profile;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getMessage() {
+		return message;
 	}
 
-	public void send() {
-		Publisher publisher = null;
-		try {
-			Gson gson = new Gson();
-			TopicName topicName = TopicName.of(Constants.Notifications.PROJECT_ID, Constants.Notifications.TOPIC_ID + "_" +this.profile);
-			publisher = Publisher.newBuilder(topicName).build();
-			PubsubMessage pubsubMessage = PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8(gson.toJson(this))).build();
-			publisher.publish(pubsubMessage);					
-		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			if (publisher != null) {				
-				publisher.shutdown();
-				try {
-					publisher.awaitTermination(1, TimeUnit.MINUTES);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-		}
+	public String getProfile() {
+		return profile;
+	}
 
+	public String toJson() {
+		return GSON.toJson(this);
 	}
 
 }
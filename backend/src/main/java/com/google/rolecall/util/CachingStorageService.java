@@ -0,0 +1,96 @@
+package com.google.rolecall.util;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/* Serves asset reads of any StorageService from an in memory AssetCache. */
+public class CachingStorageService implements StorageService {
+
+  private final StorageService delegate;
+  private final AssetCache cache;
+
+  @Override
+  public void init() throws IOException {
+    delegate.init();
+  }
+
+  @Override
+  public void store(InputStream content, long length, AssetType type, String filename)
+      throws IOException, InvalidParameterException {
+    // Cleared again afterwards, since a read during the write may have cached the old bytes.
+    cache.invalidate(key(type, filename));
+    try {
+      delegate.store(content, length, type, filename);
+    } finally {
+      cache.invalidate(key(type, filename));
+    }
+  }
+
+  @Override
+  public Resource loadAsResource(AssetType type, String filename)
+      throws FileNotFoundException, IOException, InvalidParameterException {
+    byte[] content;
+    try {
+      content = cache.get(key(type, filename), () -> {
+        try (InputStream stream = delegate.loadAsResource(type, filename).getInputStream()) {
+          return stream.readAllBytes();
+        }
+      });
+    } catch (IOException | InvalidParameterException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(String.format("Unable to read %s.", filename), e);
+    }
+    return new ByteArrayResource(content, filename);
+  }
+
+  @Override
+  public String loadAsUrl(AssetType type, String filename)
+      throws FileNotFoundException, InvalidParameterException {
+    return delegate.loadAsUrl(type, filename);
+  }
+
+  @Override
+  public Map<String, String> loadAsUrls(AssetType type, Collection<String> filenames)
+      throws InvalidParameterException {
+    return delegate.loadAsUrls(type, filenames);
+  }
+
+  @Override
+  public void delete(AssetType type, String filename)
+      throws FileNotFoundException, IOException, InvalidParameterException {
+    cache.invalidate(key(type, filename));
+    try {
+      delegate.delete(type, filename);
+    } finally {
+      cache.invalidate(key(type, filename));
+    }
+  }
+
+  @Override
+  public List<StoredFile> list(AssetType type, String startAfter, int pageSize)
+      throws IOException {
+    return delegate.list(type, startAfter, pageSize);
+  }
+
+  public StorageService getDelegate() {
+    return delegate;
+  }
+
+  private static String key(AssetType type, String filename) {
+    return String.format("%s/%s", type.location, filename);
+  }
+
+  public CachingStorageService(StorageService delegate, AssetCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+}
@@ -0,0 +1,92 @@
+package com.google.rolecall.util;
+
+import com.google.rolecall.models.Performance;
+import com.google.rolecall.models.PerformanceCastMember;
+import com.google.rolecall.models.PerformanceSection;
+import com.google.rolecall.models.User;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * What every user is cast as in a performance: the piece, position, cast number and whether
+ * that cast is performing. Comparing two snapshots finds the users whose part changed.
+ */
+public class CastAssignments {
+
+  private static class Assignment {
+    private final Integer sectionId;
+    private final Integer positionId;
+    private final Integer castNumber;
+    private final Boolean performing;
+
+    Assignment(PerformanceCastMember member) {
+      this.sectionId = member.getPerformanceSection().getSection().getId();
+      this.positionId = member.getPosition().getId();
+      this.castNumber = member.getCastNumber();
+      this.performing = member.isPerforming();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof Assignment)) {
+        return false;
+      }
+      Assignment other = (Assignment) object;
+      return Objects.equals(sectionId, other.sectionId)
+          && Objects.equals(positionId, other.positionId)
+          && Objects.equals(castNumber, other.castNumber)
+          && Objects.equals(performing, other.performing);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sectionId, positionId, castNumber, performing);
+    }
+  }
+
+  private final Map<Integer, User> users = new LinkedHashMap<>();
+  private final Map<Integer, Set<Assignment>> assignments = new HashMap<>();
+
+  /* Snapshot of the performance as it is now. */
+  public static CastAssignments of(Performance performance) {
+    CastAssignments snapshot = new CastAssignments();
+    for (PerformanceSection section : performance.getProgram()) {
+      for (PerformanceCastMember member : section.getPerformanceCastMembers()) {
+        User user = member.getUser();
+        snapshot.users.putIfAbsent(user.getId(), user);
+        snapshot.assignments.computeIfAbsent(user.getId(), id -> new HashSet<>())
+            .add(new Assignment(member));
+      }
+    }
+    return snapshot;
+  }
+
+  /* Snapshot with nobody cast, such as before a performance is published. */
+  public static CastAssignments empty() {
+    return new CastAssignments();
+  }
+
+  /* Users added, removed, or cast differently in after compared to this snapshot. */
+  public List<User> changedUsers(CastAssignments after) {
+    List<User> changed = new ArrayList<>();
+    for (Map.Entry<Integer, User> entry : after.users.entrySet()) {
+      if (!after.assignments.get(entry.getKey()).equals(
+          assignments.getOrDefault(entry.getKey(), Collections.emptySet()))) {
+        changed.add(entry.getValue());
+      }
+    }
+    for (Map.Entry<Integer, User> entry : users.entrySet()) {
+      if (!after.users.containsKey(entry.getKey())) {
+        changed.add(entry.getValue());
+      }
+    }
+    return changed;
+  }
+}
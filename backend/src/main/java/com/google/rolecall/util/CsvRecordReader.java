@@ -0,0 +1,70 @@
+package com.google.rolecall.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reads comma separated records one at a time from a character stream. Fields may be quoted
+ * with '"', in which case they can contain commas, line breaks and doubled '""' quotes.
+ */
+public class CsvRecordReader {
+
+  private final BufferedReader reader;
+
+  /**
+   * Reads the next record from the stream.
+   *
+   * @return the fields of the record, or null once the stream is exhausted.
+   * @throws IOException when the underlying stream cannot be read.
+   */
+  public List<String> readRecord() throws IOException {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean inQuotes = false;
+    boolean readAny = false;
+
+    int next;
+    while ((next = reader.read()) != -1) {
+      readAny = true;
+      char c = (char) next;
+      if (inQuotes) {
+        if (c != '"') {
+          field.append(c);
+          continue;
+        }
+        reader.mark(1);
+        int following = reader.read();
+        if (following == '"') {
+          field.append('"');
+        } else {
+          inQuotes = false;
+          if (following != -1) {
+            reader.reset();
+          }
+        }
+      } else if (c == '"') {
+        inQuotes = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        fields.add(field.toString());
+        return fields;
+      } else if (c != '\r') {
+        field.append(c);
+      }
+    }
+
+    if (!readAny) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  public CsvRecordReader(BufferedReader reader) {
+    this.reader = reader;
+  }
+}
@@ -1,24 +1,47 @@
 package com.google.rolecall.util;
 
+import com.google.rolecall.Constants;
 import com.google.rolecall.models.User;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 public class CustomUserDetail implements UserDetails {
 
+  // Immutable authority lists for every permission mask, shared across sessions.
+  private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = authoritiesByMask();
+
   private User user;
 
   private List<? extends GrantedAuthority> authorities;
 
   private CustomUserDetail(User user) {
     this.user = user;
-    this.authorities = Arrays.asList(user.getPermissions()).stream().map(role ->
-        new SimpleGrantedAuthority(role)).collect(Collectors.toList());
+    this.authorities = AUTHORITIES_BY_MASK.get(user.getPermissionMask());
+  }
+
+  private static List<List<GrantedAuthority>> authoritiesByMask() {
+    String[] permissions = Constants.Permissions.PERMISSIONS;
+    List<GrantedAuthority> single = new ArrayList<>();
+    for (String permission : permissions) {
+      single.add(new SimpleGrantedAuthority(permission));
+    }
+
+    List<List<GrantedAuthority>> all = new ArrayList<>(1 << permissions.length);
+    for (int mask = 0; mask < (1 << permissions.length); mask++) {
+      List<GrantedAuthority> granted = new ArrayList<>(Integer.bitCount(mask));
+      for (int i = 0; i < permissions.length; i++) {
+        if ((mask & (1 << i)) != 0) {
+          granted.add(single.get(i));
+        }
+      }
+      all.add(Collections.unmodifiableList(granted));
+    }
+    return all;
   }
 
   public static CustomUserDetail build(User user) {
@@ -0,0 +1,93 @@
+package com.google.rolecall.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/* Produces square JPEG thumbnails from uploaded images. */
+public class ImageResizer {
+
+  private static final float JPEG_QUALITY = 0.82f;
+
+  /**
+   * Decodes an uploaded image.
+   *
+   * @param content Stream of a JPG or PNG image.
+   * @return The decoded image.
+   * @throws IOException When the stream is not a readable image.
+   */
+  public static BufferedImage decode(InputStream content) throws IOException {
+    BufferedImage image = ImageIO.read(content);
+    if (image == null) {
+      throw new IOException("Unreadable image.");
+    }
+    return image;
+  }
+
+  /**
+   * Center crops an image to a square and scales it down to at most size pixels per side.
+   * Images are halved repeatedly before the final scale so downsizing large photos keeps detail.
+   * Transparent areas are filled with white.
+   *
+   * @param source Image to resize.
+   * @param size Side length of the thumbnail in pixels.
+   * @return JPEG encoded thumbnail.
+   * @throws IOException When encoding fails.
+   */
+  public static byte[] squareJpeg(BufferedImage source, int size) throws IOException {
+    int side = Math.min(source.getWidth(), source.getHeight());
+    BufferedImage current = source.getSubimage(
+        (source.getWidth() - side) / 2, (source.getHeight() - side) / 2, side, side);
+    int target = Math.min(side, size);
+
+    while (side / 2 >= target) {
+      side /= 2;
+      current = scale(current, side);
+    }
+    current = scale(current, target);
+
+    return encodeJpeg(current);
+  }
+
+  private static BufferedImage scale(BufferedImage source, int side) {
+    BufferedImage scaled = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+          RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(source, 0, 0, side, side, Color.WHITE, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
+  }
+
+  private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    param.setCompressionQuality(JPEG_QUALITY);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+      writer.setOutput(stream);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return output.toByteArray();
+  }
+
+  private ImageResizer() {
+  }
+}
@@ -0,0 +1,12 @@
+package com.google.rolecall.util;
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Delivers cast notifications. Implementations must not block the caller on delivery. The
+ * returned future completes with the message id once the topic has accepted the message, or
+ * exceptionally when it was not published.
+ */
+public interface NotificationPublisher {
+	CompletableFuture<String> publish(CPSNotification notification);
+}
@@ -0,0 +1,107 @@
+package com.google.rolecall.util;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+ * Where LocalStorageService keeps each file. Files of a type are spread over 256 directories
+ * named by the first byte of the SHA-256 of the file name, under a shards directory so they
+ * never mix with the thumbnail directories nested inside the profile picture directory:
+ *
+ *   <root>/profilepicture/shards/3f/<name>
+ *   <root>/profilepicture/48/shards/a0/<name>
+ *
+ * Files left in the older flat layout are moved into shards when storage starts.
+ */
+public class ShardedDirectoryLayout {
+
+  static final String SHARDS = "shards";
+  static final int SHARD_COUNT = 256;
+
+  private final Path root;
+
+  public Path getRoot() {
+    return root;
+  }
+
+  public Path typeDirectory(AssetType type) {
+    return root.resolve(type.location);
+  }
+
+  public Path shardDirectory(AssetType type, String shard) {
+    return typeDirectory(type).resolve(SHARDS).resolve(shard);
+  }
+
+  /**
+   * Path of a file in its shard.
+   *
+   * @throws InvalidParameterException When the name would leave the shard directory.
+   */
+  public Path resolve(AssetType type, String filename) throws InvalidParameterException {
+    if (filename == null || filename.isEmpty()) {
+      throw new InvalidParameterException("Filename cannot be empty.");
+    }
+    Path shardDirectory = shardDirectory(type, shardOf(filename));
+    Path filePath = shardDirectory.resolve(filename).normalize();
+    if (!shardDirectory.equals(filePath.getParent())) {
+      throw new InvalidParameterException("File must be in parent directory.");
+    }
+    return filePath;
+  }
+
+  /* Two hex digits naming the shard of a file. */
+  public static String shardOf(String filename) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte first = digest.digest(filename.getBytes(StandardCharsets.UTF_8))[0];
+    return String.format("%02x", first);
+  }
+
+  public static String shardName(int shard) {
+    return String.format("%02x", shard);
+  }
+
+  /**
+   * Moves files stored directly in each type directory into their shard. Safe to run again,
+   * and on a layout that is already sharded it only lists the type directories.
+   *
+   * @return Number of files moved.
+   */
+  public int migrateFlatFiles() throws IOException {
+    int moved = 0;
+    for (AssetType type : AssetType.values()) {
+      Path typeDirectory = typeDirectory(type);
+      if (!Files.isDirectory(typeDirectory)) {
+        continue;
+      }
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(typeDirectory,
+          Files::isRegularFile)) {
+        for (Path file : files) {
+          String filename = file.getFileName().toString();
+          Path shardDirectory = shardDirectory(type, shardOf(filename));
+          Files.createDirectories(shardDirectory);
+          Files.move(file, shardDirectory.resolve(filename),
+              StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          moved++;
+        }
+      }
+    }
+    return moved;
+  }
+
+  public ShardedDirectoryLayout(Path root) {
+    this.root = root.toAbsolutePath().normalize();
+  }
+}
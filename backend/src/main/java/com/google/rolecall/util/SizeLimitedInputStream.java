@@ -0,0 +1,63 @@
+package com.google.rolecall.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/* Input stream that fails as soon as more than a fixed number of bytes have been read. */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+  /* Thrown when a stream holds more bytes than its limit. */
+  public static class SizeLimitExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public SizeLimitExceededException(long limit) {
+      super(String.format("Content exceeds the limit of %d bytes.", limit));
+    }
+  }
+
+  private final long limit;
+  private long count = 0;
+
+  @Override
+  public int read() throws IOException {
+    int next = super.read();
+    if (next != -1) {
+      advance(1);
+    }
+    return next;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int read = super.read(buffer, offset, length);
+    if (read > 0) {
+      advance(read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    advance(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  private void advance(long read) throws SizeLimitExceededException {
+    count += read;
+    if (count > limit) {
+      throw new SizeLimitExceededException(limit);
+    }
+  }
+
+  public SizeLimitedInputStream(InputStream in, long limit) {
+    super(in);
+    this.limit = limit;
+  }
+}
@@ -2,9 +2,12 @@ package com.google.rolecall.util;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.core.io.Resource;
-import org.springframework.web.multipart.MultipartFile;
 
 import com.google.rolecall.models.UserAsset.AssetType;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
@@ -12,10 +15,23 @@ import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.I
 public interface StorageService {
   void init() throws IOException;
 
-	void store(MultipartFile file, AssetType type, String filename) throws IOException, InvalidParameterException;
+	/*
+	 * Streams length bytes of content into storage without holding them in memory. Content
+	 * longer than length fails with a SizeLimitExceededException and nothing is stored.
+	 */
+	void store(InputStream content, long length, AssetType type, String filename) throws IOException, InvalidParameterException;
 
-	Resource loadAsResource(AssetType type, String filename) throws FileNotFoundException, InvalidParameterException;
+	Resource loadAsResource(AssetType type, String filename) throws FileNotFoundException, IOException, InvalidParameterException;
 	String loadAsUrl(AssetType type, String filename) throws FileNotFoundException, InvalidParameterException;
+	/* Signs urls for many files without checking that each one exists. */
+	Map<String, String> loadAsUrls(AssetType type, Collection<String> filenames) throws InvalidParameterException;
 
 	void delete(AssetType type, String filename) throws FileNotFoundException, IOException, InvalidParameterException;
+
+	/*
+	 * Lists up to pageSize files of the type in a fixed order, starting after the file named
+	 * startAfter or from the first file when it is null. Fewer than pageSize files means the
+	 * listing is complete.
+	 */
+	List<StoredFile> list(AssetType type, String startAfter, int pageSize) throws IOException;
 }
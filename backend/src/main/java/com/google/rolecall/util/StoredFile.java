@@ -0,0 +1,28 @@
+package com.google.rolecall.util;
+
+/* Name, size and modification time of a file listed from a StorageService. */
+public class StoredFile {
+
+  private final String name;
+  private final long size;
+  private final long lastModified;
+
+  public String getName() {
+    return name;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /* Milliseconds since the epoch. */
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public StoredFile(String name, long size, long lastModified) {
+    this.name = name;
+    this.size = size;
+    this.lastModified = lastModified;
+  }
+}
@@ -0,0 +1,56 @@
+package com.google.rolecall.util;
+
+import java.util.function.LongSupplier;
+
+/*
+ * Rate limiter allowing bursts of up to capacity operations, refilled continuously at a fixed
+ * rate. Callers take a token per operation and stop when none are left instead of waiting.
+ */
+public class TokenBucket {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final long capacity;
+  private final double tokensPerNano;
+  private final LongSupplier nanoClock;
+  private double tokens;
+  private long lastRefill;
+
+  /* Takes a token if one is available. */
+  public synchronized boolean tryAcquire() {
+    refill();
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  /* Whole tokens available right now. */
+  public synchronized int available() {
+    refill();
+    return (int) Math.min(Integer.MAX_VALUE, (long) tokens);
+  }
+
+  private void refill() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    lastRefill = now;
+  }
+
+  public TokenBucket(long capacity, double tokensPerSecond) {
+    this(capacity, tokensPerSecond, System::nanoTime);
+  }
+
+  /* Starts full. */
+  TokenBucket(long capacity, double tokensPerSecond, LongSupplier nanoClock) {
+    if (capacity < 1 || tokensPerSecond <= 0) {
+      throw new IllegalArgumentException("Token bucket needs a positive capacity and rate.");
+    }
+    this.capacity = capacity;
+    this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+    this.nanoClock = nanoClock;
+    this.tokens = capacity;
+    this.lastRefill = nanoClock.getAsLong();
+  }
+}
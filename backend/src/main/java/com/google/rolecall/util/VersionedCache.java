@@ -0,0 +1,160 @@
+package com.google.rolecall.util;
+
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Least recently used cache of values built from one type of entity, keyed by entity id and
+ * bounded by the number of entries. Each value is stored with the change log version of the
+ * entity it was built from and only returned for that version, so a value built from a
+ * snapshot read before a commit can never be served after it. Entries are also invalidated
+ * once a change commits to free the space. Hit, miss and eviction counts are published as
+ * rolecall.info.cache metrics tagged with the type.
+ */
+public class VersionedCache<V> implements MeterBinder {
+
+  private final ChangeType type;
+  private final int maxEntries;
+  private final LinkedHashMap<Integer, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Returns the value for each id in order, building the ones not cached at their current
+   * version with a single call to the loader.
+   *
+   * @param ids Entities to return.
+   * @param versions Current version of each entity. Entities without one are never cached.
+   * @param loader Builds the values of the missing ids, keyed by id. Ids it leaves out no longer
+   *     exist and are skipped.
+   * @return Values of the ids that exist.
+   */
+  public List<V> getAll(List<Integer> ids, Map<Integer, Long> versions,
+      Function<List<Integer>, Map<Integer, V>> loader) {
+    Map<Integer, V> found = new LinkedHashMap<>();
+    List<Integer> missing = new ArrayList<>();
+    synchronized (entries) {
+      for (Integer id : ids) {
+        Entry<V> entry = entries.get(id);
+        if (entry != null && entry.version.equals(versions.get(id))) {
+          found.put(id, entry.value);
+        } else {
+          found.put(id, null);
+          missing.add(id);
+        }
+      }
+    }
+    hits.add(ids.size() - missing.size());
+    misses.add(missing.size());
+
+    if (!missing.isEmpty()) {
+      Map<Integer, V> loaded = loader.apply(missing);
+      for (Integer id : missing) {
+        V value = loaded.get(id);
+        found.put(id, value);
+        Long version = versions.get(id);
+        if (value != null && version != null) {
+          put(id, version, value);
+        }
+      }
+    }
+
+    List<V> values = new ArrayList<>(found.size());
+    for (V value : found.values()) {
+      if (value != null) {
+        values.add(value);
+      }
+    }
+    return values;
+  }
+
+  public void invalidate(Integer id) {
+    synchronized (entries) {
+      entries.remove(id);
+    }
+  }
+
+  public ChangeType getType() {
+    return type;
+  }
+
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String tag = type.name().toLowerCase();
+    FunctionCounter.builder("rolecall.info.cache.hits", this, VersionedCache::getHitCount)
+        .tag("type", tag)
+        .register(registry);
+    FunctionCounter.builder("rolecall.info.cache.misses", this, VersionedCache::getMissCount)
+        .tag("type", tag)
+        .register(registry);
+    FunctionCounter.builder("rolecall.info.cache.evictions", this,
+        VersionedCache::getEvictionCount)
+        .tag("type", tag)
+        .register(registry);
+    Gauge.builder("rolecall.info.cache.size", this, VersionedCache::getSize)
+        .tag("type", tag)
+        .register(registry);
+  }
+
+  private void put(Integer id, Long version, V value) {
+    synchronized (entries) {
+      Entry<V> previous = entries.get(id);
+      // A slow reader must not replace a value built from a newer version.
+      if (previous != null && previous.version > version) {
+        return;
+      }
+      entries.put(id, new Entry<>(version, value));
+
+      Iterator<Entry<V>> eldest = entries.values().iterator();
+      while (entries.size() > maxEntries && eldest.hasNext()) {
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  private static class Entry<V> {
+    private final Long version;
+    private final V value;
+
+    Entry(Long version, V value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+
+  public VersionedCache(ChangeType type, int maxEntries) {
+    this.type = type;
+    this.maxEntries = maxEntries;
+  }
+}
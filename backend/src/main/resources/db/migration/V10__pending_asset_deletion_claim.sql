@@ -0,0 +1,4 @@
+-- Deletions are claimed in a short transaction and the files deleted outside of it. A claimed
+-- row is skipped by other workers until claimedUntil passes.
+
+ALTER TABLE PendingAssetDeletion ADD COLUMN claimedUntil DATETIME(6);
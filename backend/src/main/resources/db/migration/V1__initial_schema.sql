@@ -0,0 +1,154 @@
+-- Schema as previously generated by Hibernate from the entities in com.google.rolecall.models.
+-- Databases created that way are baselined at this version and start from V2.
+
+CREATE TABLE hibernate_sequence (
+  next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO hibernate_sequence VALUES (1);
+
+CREATE TABLE User (
+  id INTEGER NOT NULL,
+  firstName VARCHAR(255) NOT NULL,
+  middleName VARCHAR(255),
+  lastName VARCHAR(255) NOT NULL,
+  suffix VARCHAR(255),
+  email VARCHAR(255) NOT NULL,
+  notificationEmail VARCHAR(255),
+  pictureFile VARCHAR(255),
+  phoneNumber VARCHAR(255),
+  dateJoined DATE,
+  isAdmin BIT NOT NULL,
+  isChoreographer BIT NOT NULL,
+  isDancer BIT NOT NULL,
+  isOther BIT NOT NULL,
+  canLogin BIT NOT NULL,
+  notifications BIT NOT NULL,
+  managePerformances BIT NOT NULL,
+  manageCasts BIT NOT NULL,
+  managePieces BIT NOT NULL,
+  manageRoles BIT NOT NULL,
+  manageRules BIT NOT NULL,
+  emergencyContactName VARCHAR(255),
+  emergencyContactNumber VARCHAR(255),
+  comments VARCHAR(255),
+  isActive BIT NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT UK_User_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE UserAsset (
+  id INTEGER NOT NULL,
+  type VARCHAR(255),
+  fileType VARCHAR(255),
+  dateUploaded DATE NOT NULL,
+  owner_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_UserAsset_owner FOREIGN KEY (owner_id) REFERENCES User (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Unavailability (
+  id INTEGER NOT NULL,
+  reason VARCHAR(255) NOT NULL,
+  description VARCHAR(255) NOT NULL,
+  startDate DATE NOT NULL,
+  endDate DATE NOT NULL,
+  user_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_Unavailability_user FOREIGN KEY (user_id) REFERENCES User (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Section (
+  id INTEGER NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  notes VARCHAR(255),
+  length INTEGER,
+  siblingId INTEGER,
+  type INTEGER,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Position (
+  id INTEGER NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  notes VARCHAR(255),
+  orderOf INTEGER NOT NULL,
+  siblingId INTEGER,
+  size INTEGER,
+  section_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_Position_section FOREIGN KEY (section_id) REFERENCES Section (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Cast (
+  id INTEGER NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  notes VARCHAR(255),
+  section_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_Cast_section FOREIGN KEY (section_id) REFERENCES Section (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE SubCast (
+  id INTEGER NOT NULL,
+  castNumber INTEGER NOT NULL,
+  cast_id INTEGER NOT NULL,
+  position_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_SubCast_cast FOREIGN KEY (cast_id) REFERENCES Cast (id),
+  CONSTRAINT FK_SubCast_position FOREIGN KEY (position_id) REFERENCES Position (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE CastMember (
+  id INTEGER NOT NULL,
+  orderOf INTEGER NOT NULL,
+  user_id INTEGER NOT NULL,
+  cast_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_CastMember_user FOREIGN KEY (user_id) REFERENCES User (id),
+  CONSTRAINT FK_CastMember_cast FOREIGN KEY (cast_id) REFERENCES SubCast (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE Performance (
+  id INTEGER NOT NULL,
+  title VARCHAR(255) NOT NULL,
+  description VARCHAR(1024),
+  city VARCHAR(255) NOT NULL,
+  state VARCHAR(255) NOT NULL,
+  country VARCHAR(255) NOT NULL,
+  venue VARCHAR(255) NOT NULL,
+  dateTime DATETIME(6) NOT NULL,
+  status INTEGER,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE PerformanceSection (
+  id INTEGER NOT NULL,
+  sectionPosition INTEGER NOT NULL,
+  primaryCast INTEGER,
+  performance_id INTEGER NOT NULL,
+  section_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_PerformanceSection_performance
+      FOREIGN KEY (performance_id) REFERENCES Performance (id),
+  CONSTRAINT FK_PerformanceSection_section FOREIGN KEY (section_id) REFERENCES Section (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE PerformanceCastMember (
+  id INTEGER NOT NULL,
+  castNumber INTEGER NOT NULL,
+  orderOf INTEGER NOT NULL,
+  performing BIT NOT NULL,
+  user_id INTEGER NOT NULL,
+  performance_id INTEGER NOT NULL,
+  performanceSection_id INTEGER NOT NULL,
+  position_id INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT FK_PerformanceCastMember_user FOREIGN KEY (user_id) REFERENCES User (id),
+  CONSTRAINT FK_PerformanceCastMember_performance
+      FOREIGN KEY (performance_id) REFERENCES Performance (id),
+  CONSTRAINT FK_PerformanceCastMember_performanceSection
+      FOREIGN KEY (performanceSection_id) REFERENCES PerformanceSection (id),
+  CONSTRAINT FK_PerformanceCastMember_position
+      FOREIGN KEY (position_id) REFERENCES Position (id)
+) ENGINE=InnoDB;
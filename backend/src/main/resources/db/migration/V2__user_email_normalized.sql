@@ -0,0 +1,8 @@
+-- Case insensitive email lookups go through this column so they can use a unique index
+-- instead of scanning User with lower(email).
+
+ALTER TABLE User ADD COLUMN emailNormalized VARCHAR(255);
+
+UPDATE User SET emailNormalized = LOWER(TRIM(email)) WHERE emailNormalized IS NULL;
+
+CREATE UNIQUE INDEX UK_User_emailNormalized ON User (emailNormalized);
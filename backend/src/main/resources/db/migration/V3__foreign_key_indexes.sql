@@ -0,0 +1,26 @@
+-- Named indexes for every foreign key, with composites matching how rows are looked up.
+-- InnoDB drops the index it created implicitly for a foreign key once one of these covers it.
+
+CREATE INDEX IDX_PerformanceCastMember_user_performance
+    ON PerformanceCastMember (user_id, performance_id);
+CREATE INDEX IDX_PerformanceCastMember_performance_section
+    ON PerformanceCastMember (performance_id, performanceSection_id);
+CREATE INDEX IDX_PerformanceCastMember_performanceSection
+    ON PerformanceCastMember (performanceSection_id);
+CREATE INDEX IDX_PerformanceCastMember_position ON PerformanceCastMember (position_id);
+
+CREATE INDEX IDX_CastMember_user ON CastMember (user_id);
+CREATE INDEX IDX_CastMember_cast_order ON CastMember (cast_id, orderOf);
+
+CREATE INDEX IDX_Unavailability_user_dates ON Unavailability (user_id, startDate, endDate);
+
+CREATE INDEX IDX_UserAsset_owner ON UserAsset (owner_id);
+
+CREATE INDEX IDX_SubCast_cast ON SubCast (cast_id);
+CREATE INDEX IDX_SubCast_position ON SubCast (position_id);
+
+CREATE INDEX IDX_Cast_section ON Cast (section_id);
+CREATE INDEX IDX_Position_section ON Position (section_id);
+
+CREATE INDEX IDX_PerformanceSection_performance ON PerformanceSection (performance_id);
+CREATE INDEX IDX_PerformanceSection_section ON PerformanceSection (section_id);
@@ -0,0 +1,11 @@
+-- New uploads are stored once per distinct content under their SHA-256 digest. Existing
+-- assets keep a NULL contentHash and their id based file names.
+
+CREATE TABLE AssetBlob (
+  fileName VARCHAR(80) NOT NULL,
+  refCount INTEGER NOT NULL,
+  size BIGINT NOT NULL,
+  PRIMARY KEY (fileName)
+) ENGINE=InnoDB;
+
+ALTER TABLE UserAsset ADD COLUMN contentHash VARCHAR(64);
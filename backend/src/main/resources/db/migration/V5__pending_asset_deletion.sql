@@ -0,0 +1,14 @@
+-- Outbox of stored files to delete once the transaction that released them commits.
+
+CREATE TABLE PendingAssetDeletion (
+  id INTEGER NOT NULL,
+  type VARCHAR(255) NOT NULL,
+  fileName VARCHAR(255) NOT NULL,
+  attempts INTEGER NOT NULL,
+  nextAttempt DATETIME(6) NOT NULL,
+  lastError VARCHAR(255),
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX IDX_PendingAssetDeletion_nextAttempt ON PendingAssetDeletion (nextAttempt);
+CREATE INDEX IDX_PendingAssetDeletion_type_fileName ON PendingAssetDeletion (type, fileName);
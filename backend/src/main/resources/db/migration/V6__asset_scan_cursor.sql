@@ -0,0 +1,8 @@
+-- Resume position of the background scans over stored files.
+
+CREATE TABLE AssetScanCursor (
+  scanName VARCHAR(255) NOT NULL,
+  type VARCHAR(255),
+  lastFileName VARCHAR(255),
+  PRIMARY KEY (scanName)
+) ENGINE=InnoDB;
@@ -0,0 +1,15 @@
+-- Messages waiting to be sent in each user's next notification digest.
+
+CREATE TABLE PendingNotification (
+  id VARCHAR(191) NOT NULL,
+  userId INTEGER NOT NULL,
+  email VARCHAR(255),
+  phone VARCHAR(255),
+  profile VARCHAR(255) NOT NULL,
+  message VARCHAR(1024) NOT NULL,
+  firstQueued DATETIME(6) NOT NULL,
+  lastQueued DATETIME(6) NOT NULL,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX IDX_PendingNotification_userId ON PendingNotification (userId);
@@ -0,0 +1,43 @@
+-- Latest change to every synced entity, numbered by a global sequence for delta sync.
+
+CREATE TABLE ChangeSequence (
+  id INTEGER NOT NULL,
+  value BIGINT NOT NULL,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE ChangeRecord (
+  id VARCHAR(64) NOT NULL,
+  type VARCHAR(32) NOT NULL,
+  entityId INTEGER NOT NULL,
+  version BIGINT NOT NULL,
+  deleted BIT NOT NULL,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE UNIQUE INDEX IDX_ChangeRecord_version ON ChangeRecord (version);
+
+-- Existing entities count as changed so a client syncing from 0 receives everything.
+SET @version = 0;
+
+INSERT INTO ChangeRecord (id, type, entityId, version, deleted)
+  SELECT CONCAT('PERFORMANCE:', id), 'PERFORMANCE', id, (@version := @version + 1), 0
+  FROM Performance ORDER BY id;
+
+INSERT INTO ChangeRecord (id, type, entityId, version, deleted)
+  SELECT CONCAT('CAST:', id), 'CAST', id, (@version := @version + 1), 0
+  FROM Cast ORDER BY id;
+
+INSERT INTO ChangeRecord (id, type, entityId, version, deleted)
+  SELECT CONCAT('SECTION:', id), 'SECTION', id, (@version := @version + 1), 0
+  FROM Section ORDER BY id;
+
+INSERT INTO ChangeRecord (id, type, entityId, version, deleted)
+  SELECT CONCAT('USER:', id), 'USER', id, (@version := @version + 1), 0
+  FROM User ORDER BY id;
+
+INSERT INTO ChangeRecord (id, type, entityId, version, deleted)
+  SELECT CONCAT('UNAVAILABILITY:', id), 'UNAVAILABILITY', id, (@version := @version + 1), 0
+  FROM Unavailability ORDER BY id;
+
+INSERT INTO ChangeSequence (id, value) VALUES (1, @version);
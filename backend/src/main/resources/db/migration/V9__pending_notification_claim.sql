@@ -0,0 +1,4 @@
+-- Digests are claimed in a short transaction and published outside of it. A claimed row is
+-- skipped by other workers until claimedUntil passes, and re-queuing a message clears it.
+
+ALTER TABLE PendingNotification ADD COLUMN claimedUntil DATETIME(6);
@@ -1,8 +1,10 @@
 package com.google.rolecall;
 
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.User;
 import com.google.rolecall.repos.UserRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.ChangeLogServices;
 import com.google.rolecall.util.StorageService;
 
 import java.io.IOException;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.lenient;
@@ -22,7 +25,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.core.env.Environment;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +36,7 @@ public class ApplicationLoaderUnitTests {
 
   private Environment env;
   private UserRepository userRepo;
+  private ChangeLogServices changeLog;
   private ApplicationLoader loader;
   private StorageService storage;
 
@@ -39,7 +45,8 @@ public class ApplicationLoaderUnitTests {
     userRepo = mock(UserRepository.class);
     env = mock(Environment.class);
     storage = mock(StorageService.class);
-    loader = new ApplicationLoader(env, userRepo, storage);
+    changeLog = mock(ChangeLogServices.class);
+    loader = new ApplicationLoader(env, userRepo, changeLog, storage, new SyncTaskExecutor());
     User.Builder builder = User.newBuilder()
         .setFirstName("admin")
         .setLastName("admin")
@@ -68,6 +75,7 @@ public class ApplicationLoaderUnitTests {
     
     // Assert
     verify(userRepo, never()).save(any(User.class));
+    assertThat(loader.health().getStatus()).isEqualTo(Status.UP);
   }
 
   @Test
@@ -84,6 +92,7 @@ public class ApplicationLoaderUnitTests {
     // Assert
     // TODO: Change this to 1 when user load is removed
     verify(userRepo, times(28)).save(any(User.class));
+    verify(changeLog, times(28)).recordChange(any(ChangeType.class), any());
   }
 
   @Test
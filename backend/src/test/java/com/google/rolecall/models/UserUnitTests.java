@@ -4,6 +4,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import java.util.Calendar;
 
+import com.google.rolecall.Constants;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -66,4 +67,66 @@ public class UserUnitTests {
     // Assert
     assertThat(user.getId()).isNull();
   }
+
+  /** Admins are granted every management permission regardless of their own flags. */
+  @Test
+  public void getPermissionsAdmin_success() throws Exception {
+    // Setup
+    User user = User.newBuilder()
+      .setFirstName(firstName)
+      .setLastName(lastName)
+      .setEmail(email)
+      .setIsAdmin(true)
+      .setCanLogin(false)
+      .setRecievesNotifications(false)
+      .build();
+
+    // Assert
+    assertThat(user.getRoles()).asList().containsExactly(Constants.Roles.ADMIN);
+    assertThat(user.getPermissions()).asList().containsExactly(
+        Constants.Permissions.LOGIN, Constants.Permissions.MANAGE_PERFORMANCES,
+        Constants.Permissions.MANAGE_CASTS, Constants.Permissions.MANAGE_BALLETS,
+        Constants.Permissions.MANAGE_ROLES, Constants.Permissions.MANAGE_RULES);
+    assertThat(user.hasPermission(User.Permission.MANAGE_CASTS)).isTrue();
+    assertThat(user.hasPermission(User.Permission.NOTIFICATIONS)).isFalse();
+  }
+
+  /** Permission masks follow the individual flags and are recomputed on rebuild. */
+  @Test
+  public void hasPermissionAfterEdit_success() throws Exception {
+    // Setup
+    User user = User.newBuilder()
+      .setFirstName(firstName)
+      .setLastName(lastName)
+      .setEmail(email)
+      .setIsDancer(true)
+      .setManageCasts(true)
+      .build();
+
+    // Assert
+    assertThat(user.hasRole(User.Role.DANCER)).isTrue();
+    assertThat(user.hasRole(User.Role.ADMIN)).isFalse();
+    assertThat(user.hasPermission(User.Permission.MANAGE_CASTS)).isTrue();
+    assertThat(user.hasPermission(User.Permission.MANAGE_PERFORMANCES)).isFalse();
+
+    // Execute
+    user = user.toBuilder().setManageCasts(false).setManagePerformances(true).build();
+
+    // Assert
+    assertThat(user.hasPermission(User.Permission.MANAGE_CASTS)).isFalse();
+    assertThat(user.hasPermission(User.Permission.MANAGE_PERFORMANCES)).isTrue();
+  }
+
+  /** Normalization strips spaces only, like the TRIM used to backfill existing rows. */
+  @Test
+  public void normalizeEmail_success() throws Exception {
+    // Execute
+    String normalized = User.normalizeEmail("  Email@Email.COM ");
+    String tabbed = User.normalizeEmail("\temail@email.com");
+
+    // Assert
+    assertThat(normalized).isEqualTo("email@email.com");
+    assertThat(tabbed).isEqualTo("\temail@email.com");
+    assertThat(User.normalizeEmail(null)).isNull();
+  }
 }
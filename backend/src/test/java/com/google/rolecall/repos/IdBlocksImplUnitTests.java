@@ -0,0 +1,40 @@
+package com.google.rolecall.repos;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class IdBlocksImplUnitTests {
+
+  @Test
+  public void reserveIds_returnsFirstOfBlock() {
+    // Setup
+    EntityManager entityManager = mock(EntityManager.class);
+    Query advance = mock(Query.class);
+    Query lastInsertId = mock(Query.class);
+    IdBlocksImpl idBlocks = new IdBlocksImpl();
+    ReflectionTestUtils.setField(idBlocks, "entityManager", entityManager);
+
+    // Mock
+    when(entityManager.createNativeQuery(anyString())).thenAnswer(invocation ->
+        invocation.<String>getArgument(0).startsWith("UPDATE") ? advance : lastInsertId);
+    when(advance.setParameter("count", 16)).thenReturn(advance);
+    when(lastInsertId.getSingleResult()).thenReturn(BigInteger.valueOf(116));
+
+    // Execute
+    int first = idBlocks.reserveIds(16);
+
+    // Assert
+    assertThat(first).isEqualTo(100);
+    verify(advance).executeUpdate();
+  }
+}
@@ -21,6 +21,8 @@ import com.google.rolecall.repos.CastMemberRepository;
 import com.google.rolecall.repos.UserRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.services.ChangeLogServices;
+import com.google.rolecall.services.ResponseCacheServices;
 import com.google.rolecall.services.UserServices;
 import com.google.rolecall.util.DefaultUsers;
 
@@ -62,8 +64,8 @@ public class UserManagementUnitTests {
   public void init() {
 
     userService = spy(new UserServices(mock(UserRepository.class),
-        mock(CastMemberRepository.class),null));
-    controller = new UserManagement(userService);
+        mock(CastMemberRepository.class),null, mock(ChangeLogServices.class)));
+    controller = new UserManagement(userService, mock(ResponseCacheServices.class));
     User.Builder builder = User.newBuilder()
       .setFirstName(firstName)
       .setLastName(lastName)
@@ -0,0 +1,180 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import com.google.rolecall.models.PendingAssetDeletion;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.repos.PendingAssetDeletionRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.StorageService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class AssetCleanupServicesTests {
+
+  private PendingAssetDeletionRepository deletionRepo;
+  private StorageService storage;
+  private AssetCleanupServices cleanup;
+  private PendingAssetDeletion deletion;
+  private long now;
+
+  @BeforeEach
+  public void init() {
+    deletionRepo = mock(PendingAssetDeletionRepository.class);
+    storage = mock(StorageService.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.deletion.initial-backoff-ms", "1000")
+        .withProperty("rolecall.asset.deletion.max-backoff-ms", "5000")
+        .withProperty("rolecall.asset.deletion.max-attempts", "3")
+        .withProperty("rolecall.asset.deletion.claim-ms", "60000");
+    cleanup = new AssetCleanupServices(deletionRepo, storage,
+        mock(PlatformTransactionManager.class), env);
+    deletion = new PendingAssetDeletion(AssetType.PROFILEPICTURE, "1.jpg");
+    ReflectionTestUtils.setField(deletion, "id", 7);
+    now = System.currentTimeMillis();
+    when(deletionRepo.findDue(any(), any(Pageable.class))).thenReturn(List.of(deletion));
+    when(deletionRepo.findAllById(anyCollection())).thenReturn(List.of(deletion));
+  }
+
+  @Test
+  public void deleteDue_deleted_removesClaimedRow() throws Exception {
+    // Execute
+    int deleted = cleanup.deleteDue(now);
+
+    // Assert
+    Timestamp claimedUntil = new Timestamp(now + 60000);
+    assertThat(deleted).isEqualTo(1);
+    assertThat(deletion.getClaimedUntil()).isEqualTo(claimedUntil);
+    verify(storage).delete(AssetType.PROFILEPICTURE, "1.jpg");
+    verify(deletionRepo).deleteClaimed(List.of(7), claimedUntil);
+  }
+
+  @Test
+  public void deleteDue_alreadyGone_removesClaimedRow() throws Exception {
+    // Mock
+    doThrow(new FileNotFoundException()).when(storage)
+        .delete(AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Execute
+    int deleted = cleanup.deleteDue(now);
+
+    // Assert
+    assertThat(deleted).isEqualTo(1);
+    verify(deletionRepo).deleteClaimed(List.of(7), new Timestamp(now + 60000));
+  }
+
+  @Test
+  public void deleteDue_storageFails_retriesLater() throws Exception {
+    // Mock
+    doThrow(new IOException("unavailable")).when(storage)
+        .delete(AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Execute
+    int deleted = cleanup.deleteDue(now);
+
+    // Assert
+    assertThat(deleted).isEqualTo(0);
+    verify(deletionRepo, never()).deleteClaimed(anyList(), any());
+    assertThat(deletion.getAttempts()).isEqualTo(1);
+    assertThat(deletion.getLastError()).isEqualTo("unavailable");
+    assertThat(deletion.getNextAttempt().getTime()).isEqualTo(now + 1000);
+    assertThat(deletion.getClaimedUntil()).isNull();
+  }
+
+  @Test
+  public void deleteDue_claimExpired_leavesRowToNewClaim() throws Exception {
+    // Mock
+    doThrow(new IOException("unavailable")).when(storage)
+        .delete(AssetType.PROFILEPICTURE, "1.jpg");
+    when(deletionRepo.findAllById(anyCollection())).thenAnswer(invocation -> {
+      deletion.claim(new Timestamp(now + 120000));
+      return List.of(deletion);
+    });
+
+    // Execute
+    cleanup.deleteDue(now);
+
+    // Assert
+    assertThat(deletion.getAttempts()).isEqualTo(0);
+    assertThat(deletion.getClaimedUntil()).isEqualTo(new Timestamp(now + 120000));
+  }
+
+  @Test
+  public void deleteDue_lastAttemptFails_dropsRow() throws Exception {
+    // Setup
+    deletion.retryAt(new Timestamp(now), "unavailable");
+    deletion.retryAt(new Timestamp(now), "unavailable");
+
+    // Mock
+    doThrow(new IOException("unavailable")).when(storage)
+        .delete(AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Execute
+    int deleted = cleanup.deleteDue(now);
+
+    // Assert
+    assertThat(deleted).isEqualTo(0);
+    verify(deletionRepo).deleteClaimed(List.of(7), new Timestamp(now + 60000));
+    assertThat(deletion.getAttempts()).isEqualTo(2);
+  }
+
+  @Test
+  public void cancelDeletion_unclaimed_removesRows() throws Exception {
+    // Mock
+    when(deletionRepo.lockByFile(AssetType.PROFILEPICTURE, "1.jpg"))
+        .thenReturn(List.of(deletion));
+
+    // Execute
+    cleanup.cancelDeletion(AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Assert
+    verify(deletionRepo).deleteAllInBatch(List.of(deletion));
+  }
+
+  @Test
+  public void cancelDeletion_beingDeleted_failure() throws Exception {
+    // Setup
+    deletion.claim(new Timestamp(System.currentTimeMillis() + 60000));
+
+    // Mock
+    when(deletionRepo.lockByFile(AssetType.PROFILEPICTURE, "1.jpg"))
+        .thenReturn(List.of(deletion));
+
+    // Execute
+    InvalidParameterException exception = assertThrows(InvalidParameterException.class,
+        () -> cleanup.cancelDeletion(AssetType.PROFILEPICTURE, "1.jpg"));
+
+    // Assert
+    assertThat(exception).hasMessageThat().contains("is being deleted");
+    verify(deletionRepo, never()).deleteAllInBatch(anyList());
+  }
+
+  @Test
+  public void backoffMillis_doublesUpToMaximum() {
+    // Execute and Assert
+    assertThat(cleanup.backoffMillis(0)).isEqualTo(1000);
+    assertThat(cleanup.backoffMillis(1)).isEqualTo(2000);
+    assertThat(cleanup.backoffMillis(2)).isEqualTo(4000);
+    assertThat(cleanup.backoffMillis(3)).isEqualTo(5000);
+    assertThat(cleanup.backoffMillis(100)).isEqualTo(5000);
+  }
+}
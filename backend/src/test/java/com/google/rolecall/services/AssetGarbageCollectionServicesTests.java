@@ -0,0 +1,226 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import com.google.rolecall.models.AssetScanCursor;
+import com.google.rolecall.models.UserAsset;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.models.UserAsset.FileType;
+import com.google.rolecall.repos.AssetBlobRepository;
+import com.google.rolecall.repos.AssetScanCursorRepository;
+import com.google.rolecall.repos.PendingAssetDeletionRepository;
+import com.google.rolecall.repos.UserAssetRepository;
+import com.google.rolecall.util.StorageService;
+import com.google.rolecall.util.StoredFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class AssetGarbageCollectionServicesTests {
+
+  private static final String HASH =
+      "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+  private AssetScanCursorRepository cursorRepo;
+  private UserAssetRepository assetRepo;
+  private AssetBlobRepository blobRepo;
+  private PendingAssetDeletionRepository deletionRepo;
+  private AssetCleanupServices assetCleanup;
+  private StorageService storage;
+  private PlatformTransactionManager transactionManager;
+  private AssetGarbageCollectionServices collector;
+  private AssetScanCursor cursor;
+  private long old;
+
+  @BeforeEach
+  public void init() {
+    cursorRepo = mock(AssetScanCursorRepository.class);
+    assetRepo = mock(UserAssetRepository.class);
+    blobRepo = mock(AssetBlobRepository.class);
+    deletionRepo = mock(PendingAssetDeletionRepository.class);
+    assetCleanup = mock(AssetCleanupServices.class);
+    storage = mock(StorageService.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.gc.page-size", "2")
+        .withProperty("rolecall.asset.gc.grace-period-ms", "1000");
+    collector = new AssetGarbageCollectionServices(cursorRepo, assetRepo, blobRepo,
+        deletionRepo, assetCleanup, storage, transactionManager, env);
+    cursor = new AssetScanCursor(AssetGarbageCollectionServices.SCAN_NAME,
+        AssetType.PROFILEPICTURE);
+    old = System.currentTimeMillis() - 60_000;
+    when(cursorRepo.findById(AssetGarbageCollectionServices.SCAN_NAME))
+        .thenReturn(Optional.of(cursor));
+    when(cursorRepo.lockByScanName(AssetGarbageCollectionServices.SCAN_NAME))
+        .thenReturn(Optional.of(cursor));
+  }
+
+  @Test
+  public void reconcileNextPage_unreferencedFile_schedulesDeletion() throws Exception {
+    // Setup
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.JPG, HASH);
+
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE, null, 2)).thenReturn(List.of(
+        new StoredFile(HASH + ".jpg", 10, old),
+        new StoredFile("7.png", 20, old)));
+    when(assetRepo.findByContentHashIn(anyCollection())).thenReturn(List.of(asset));
+
+    // Execute
+    boolean passComplete = collector.reconcileNextPage();
+
+    // Assert
+    assertThat(passComplete).isFalse();
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE, "7.png");
+    verify(assetCleanup, never()).scheduleDeletion(AssetType.PROFILEPICTURE, HASH + ".jpg");
+    assertThat(collector.getReclaimedBytes()).isEqualTo(20);
+    assertThat(cursor.getType()).isEqualTo(AssetType.PROFILEPICTURE);
+    assertThat(cursor.getLastFileName()).isEqualTo("7.png");
+  }
+
+  @Test
+  public void reconcileNextPage_listsStorageBeforeTransaction() throws Exception {
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE, null, 2)).thenReturn(List.of(
+        new StoredFile("7.png", 20, old)));
+
+    // Execute
+    collector.reconcileNextPage();
+
+    // Assert
+    InOrder order = inOrder(storage, transactionManager, cursorRepo);
+    order.verify(storage).list(AssetType.PROFILEPICTURE, null, 2);
+    order.verify(transactionManager).getTransaction(any());
+    order.verify(cursorRepo).lockByScanName(AssetGarbageCollectionServices.SCAN_NAME);
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE, "7.png");
+  }
+
+  @Test
+  public void reconcileNextPage_cursorMovedWhileListing_skipsPage() throws Exception {
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE, null, 2)).thenAnswer(invocation -> {
+      // Another instance reconciles the same page meanwhile.
+      cursor.moveTo(AssetType.PROFILEPICTURE, "7.png");
+      return List.of(new StoredFile("7.png", 20, old));
+    });
+
+    // Execute
+    boolean passComplete = collector.reconcileNextPage();
+
+    // Assert
+    assertThat(passComplete).isFalse();
+    verify(blobRepo, never()).lockByFileNames(anyCollection());
+    verify(assetCleanup, never()).scheduleDeletion(any(), any());
+    assertThat(cursor.getLastFileName()).isEqualTo("7.png");
+  }
+
+  @Test
+  public void reconcileNextPage_recentFile_isKept() throws Exception {
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE, null, 2)).thenReturn(List.of(
+        new StoredFile("7.png", 20, System.currentTimeMillis())));
+
+    // Execute
+    collector.reconcileNextPage();
+
+    // Assert
+    verify(assetCleanup, never()).scheduleDeletion(any(), any());
+    assertThat(cursor.getType()).isEqualTo(AssetType.PROFILEPICTURE_48);
+    assertThat(cursor.getLastFileName()).isNull();
+  }
+
+  @Test
+  public void reconcileNextPage_thumbnailOfExistingPicture_isKept() throws Exception {
+    // Setup
+    cursor.moveTo(AssetType.PROFILEPICTURE_512, null);
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.PNG, HASH);
+
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE_512, null, 2)).thenReturn(List.of(
+        new StoredFile(HASH + ".png.jpg", 10, old)));
+    when(assetRepo.findByContentHashIn(anyCollection())).thenReturn(List.of(asset));
+
+    // Execute
+    boolean passComplete = collector.reconcileNextPage();
+
+    // Assert
+    assertThat(passComplete).isTrue();
+    verify(assetCleanup, never()).scheduleDeletion(eq(AssetType.PROFILEPICTURE_512), any());
+    assertThat(cursor.getType()).isEqualTo(AssetType.PROFILEPICTURE);
+  }
+
+  @Test
+  public void reconcileNextPage_thumbnailOfSameHashOtherType_schedulesDeletion()
+      throws Exception {
+    // Setup
+    cursor.moveTo(AssetType.PROFILEPICTURE_512, null);
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.PNG, HASH);
+
+    // Mock
+    when(storage.list(AssetType.PROFILEPICTURE_512, null, 2)).thenReturn(List.of(
+        new StoredFile(HASH + ".png.jpg", 10, old),
+        new StoredFile(HASH + ".jpg.jpg", 10, old)));
+    when(assetRepo.findByContentHashIn(anyCollection())).thenReturn(List.of(asset));
+
+    // Execute
+    collector.reconcileNextPage();
+
+    // Assert
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE_512, HASH + ".jpg.jpg");
+    verify(assetCleanup, never()).scheduleDeletion(AssetType.PROFILEPICTURE_512,
+        HASH + ".png.jpg");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void reconcileNextPage_cloudBlobWithoutUpdateTime_usesCreateTime() throws Exception {
+    // Setup
+    Blob created = mock(Blob.class);
+    when(created.getName()).thenReturn("profilepicture/7.png");
+    when(created.getSize()).thenReturn(20L);
+    when(created.getUpdateTime()).thenReturn(null);
+    when(created.getCreateTime()).thenReturn(old);
+    Blob undated = mock(Blob.class);
+    when(undated.getName()).thenReturn("profilepicture/8.png");
+    when(undated.getUpdateTime()).thenReturn(null);
+    when(undated.getCreateTime()).thenReturn(null);
+    Page<Blob> page = mock(Page.class);
+    when(page.iterateAll()).thenReturn(List.of(created, undated));
+    Storage cloud = mock(Storage.class,
+        invocation -> invocation.getMethod().getName().equals("list") ? page : null);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.resource.bucket", "bucket")
+        .withProperty("rolecall.asset.gc.page-size", "2")
+        .withProperty("rolecall.asset.gc.grace-period-ms", "1000");
+    collector = new AssetGarbageCollectionServices(cursorRepo, assetRepo, blobRepo,
+        deletionRepo, assetCleanup, new CloudStorageService(cloud, env),
+        mock(PlatformTransactionManager.class), env);
+
+    // Execute
+    collector.reconcileNextPage();
+
+    // Assert
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE, "7.png");
+    verify(assetCleanup, never()).scheduleDeletion(AssetType.PROFILEPICTURE, "8.png");
+  }
+}
@@ -0,0 +1,217 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.rolecall.jsonobjects.PerformanceCastInfo;
+import com.google.rolecall.jsonobjects.PerformanceCastMemberInfo;
+import com.google.rolecall.jsonobjects.PerformanceInfo;
+import com.google.rolecall.jsonobjects.PerformancePositionInfo;
+import com.google.rolecall.models.Performance;
+import com.google.rolecall.models.PerformanceCastMember;
+import com.google.rolecall.models.PerformanceSection;
+import com.google.rolecall.models.Position;
+import com.google.rolecall.models.Section;
+import com.google.rolecall.models.Unavailability;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.CastMemberRepository;
+import com.google.rolecall.repos.PerformanceCastMemberRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AutoCastServicesTests {
+
+  private UserServices userService;
+  private UnavailabilityServices unavailabilityService;
+  private CastMemberRepository castMemberRepo;
+  private PerformanceCastMemberRepository performanceCastMemberRepo;
+  private AutoCastServices autoCastService;
+  private Performance performance;
+  private PerformanceSection performanceSection;
+  private Position position;
+  private List<User> users;
+  private int performanceId = 10;
+  private long dateTime = 1_600_000_000_000L;
+
+  @BeforeEach
+  public void init() throws Exception {
+    PerformanceServices performanceService = mock(PerformanceServices.class);
+    userService = mock(UserServices.class);
+    unavailabilityService = mock(UnavailabilityServices.class);
+    castMemberRepo = mock(CastMemberRepository.class);
+    performanceCastMemberRepo = mock(PerformanceCastMemberRepository.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.autocast.season-days", "30");
+    autoCastService = new AutoCastServices(performanceService, userService,
+        unavailabilityService, castMemberRepo, performanceCastMemberRepo, env);
+
+    Section section = Section.newBuilder()
+        .setId(3)
+        .setName("Swans")
+        .setType(Section.Type.BALLET)
+        .build();
+    position = Position.newBuilder()
+        .setId(30)
+        .setName("Swan")
+        .setOrder(0)
+        .setSize(2)
+        .build();
+    section.addPosition(position);
+    performance = Performance.newBuilder()
+        .setTitle("Spring Gala")
+        .setCity("New York")
+        .setState("NY")
+        .setCountry("USA")
+        .setDateTime(dateTime)
+        .build();
+    ReflectionTestUtils.setField(performance, "id", performanceId);
+    performanceSection = PerformanceSection.newBuilder()
+        .setSectionPosition(0)
+        .setPrimaryCast(1)
+        .build();
+    ReflectionTestUtils.setField(performanceSection, "id", 20);
+    section.addPerformanceSection(performanceSection);
+    performance.addPerformanceSection(performanceSection);
+
+    users = new ArrayList<>();
+    for (int id = 1; id <= 4; id++) {
+      users.add(user(id, true));
+    }
+    when(performanceService.getPerformance(performanceId)).thenReturn(performance);
+    when(userService.getAllUsers()).thenReturn(users);
+  }
+
+  @Test
+  public void proposeCasts_fillsOpenPartsFromSavedCasts() throws Exception {
+    // Setup
+    PerformanceCastMember saved = PerformanceCastMember.newBuilder()
+        .setCastNumber(1)
+        .setOrder(0)
+        .build();
+    users.get(0).addPerformanceCastMember(saved);
+    position.addPerformanceCastMember(saved);
+    performanceSection.addPerformanceCastMember(saved);
+    Unavailability away = Unavailability.newBuilder()
+        .setStartDate(dateTime)
+        .setEndDate(dateTime)
+        .build();
+    users.get(1).addUnavailability(away);
+
+    // Mock
+    when(castMemberRepo.findPositionCastNumberUsers(anyCollection())).thenReturn(List.of(
+        new Object[] {30, 1, 1}, new Object[] {30, 1, 2}, new Object[] {30, 1, 3},
+        new Object[] {30, 2, 3}, new Object[] {30, 2, 4}));
+    when(unavailabilityService.getUnavailabilityByDateRange(any(), any()))
+        .thenReturn(List.of(away));
+    when(performanceCastMemberRepo.countByUserBetween(any(), any(), eq(performanceId)))
+        .thenReturn(List.<Object[]>of(new Object[] {3, 5L}));
+
+    // Execute
+    ServiceResult<PerformanceInfo> result = autoCastService.proposeCasts(performanceId);
+
+    // Assert
+    // Cast 1 has order 0 taken by user 1, user 2 is away and user 3 works the most.
+    assertThat(result.getWarnings()).isEmpty();
+    List<PerformanceCastInfo> casts = onlyPosition(result).performanceCasts();
+    assertThat(casts).hasSize(2);
+    assertMember(casts.get(0), 1, 1, 4, true);
+    assertMember(casts.get(1), 2, 0, 1, false);
+    assertMember(casts.get(1), 2, 1, 4, false);
+    long season = TimeUnit.DAYS.toMillis(30);
+    verify(performanceCastMemberRepo).countByUserBetween(new Timestamp(dateTime - season),
+        new Timestamp(dateTime + season), performanceId);
+  }
+
+  @Test
+  public void proposeCastsNoSavedCasts_castsAnyDancerInPrimaryCast() throws Exception {
+    // Setup
+    ReflectionTestUtils.setField(position, "size", null);
+    users.clear();
+    users.add(user(1, false));
+    users.add(user(2, true));
+
+    // Mock
+    when(castMemberRepo.findPositionCastNumberUsers(anyCollection())).thenReturn(List.of());
+
+    // Execute
+    ServiceResult<PerformanceInfo> result = autoCastService.proposeCasts(performanceId);
+
+    // Assert
+    List<PerformanceCastInfo> casts = onlyPosition(result).performanceCasts();
+    assertThat(casts).hasSize(1);
+    assertThat(casts.get(0).performanceCastMembers()).hasSize(1);
+    assertMember(casts.get(0), 1, 0, 2, true);
+  }
+
+  @Test
+  public void proposeCastsNobodyAvailable_warns() throws Exception {
+    // Setup
+    users.clear();
+    users.add(user(1, true));
+    Unavailability away = Unavailability.newBuilder()
+        .setStartDate(dateTime)
+        .setEndDate(dateTime)
+        .build();
+    users.get(0).addUnavailability(away);
+
+    // Mock
+    when(castMemberRepo.findPositionCastNumberUsers(anyCollection())).thenReturn(List.of());
+    when(unavailabilityService.getUnavailabilityByDateRange(any(), any()))
+        .thenReturn(List.of(away));
+
+    // Execute
+    ServiceResult<PerformanceInfo> result = autoCastService.proposeCasts(performanceId);
+
+    // Assert
+    assertThat(result.getWarnings()).containsExactly(
+        "No dancer available for Swan in cast 1 of Swans",
+        "No dancer available for Swan in cast 1 of Swans");
+    assertThat(result.getResult().performanceSections()).isEmpty();
+  }
+
+  private User user(int id, boolean isDancer) throws Exception {
+    User user = User.newBuilder()
+        .setFirstName("Dancer")
+        .setLastName(Integer.toString(id))
+        .setEmail(String.format("dancer%d@rolecall.com", id))
+        .setIsActive(true)
+        .setIsDancer(isDancer)
+        .build();
+    ReflectionTestUtils.setField(user, "id", id);
+    return user;
+  }
+
+  private PerformancePositionInfo onlyPosition(ServiceResult<PerformanceInfo> result) {
+    assertThat(result.getResult().performanceSections()).hasSize(1);
+    assertThat(result.getResult().performanceSections().get(0).id()).isEqualTo(20);
+    List<PerformancePositionInfo> positions =
+        result.getResult().performanceSections().get(0).positions();
+    assertThat(positions).hasSize(1);
+    assertThat(positions.get(0).positionId()).isEqualTo(30);
+    return positions.get(0);
+  }
+
+  private void assertMember(PerformanceCastInfo cast, int castNumber, int order, int userId,
+      boolean performing) {
+    assertThat(cast.castNumber()).isEqualTo(castNumber);
+    PerformanceCastMemberInfo member = cast.performanceCastMembers().stream()
+        .filter(m -> m.order() == order)
+        .findFirst()
+        .orElseThrow();
+    assertThat(member.userId()).isEqualTo(userId);
+    assertThat(member.performing()).isEqualTo(performing);
+  }
+}
@@ -0,0 +1,84 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.rolecall.models.Cast;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.repos.CastRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
+import com.google.rolecall.util.VersionedCache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CastServicesTests {
+
+  private CastRepository castRepo;
+  private ChangeLogServices changeLog;
+  private CastServices castService;
+  private Cast copy;
+  private int castId = 4;
+  private int copyId = 50;
+
+  @BeforeEach
+  public void init() {
+    castRepo = mock(CastRepository.class);
+    changeLog = mock(ChangeLogServices.class);
+    castService = new CastServices(castRepo, null, null, changeLog,
+        new VersionedCache<>(ChangeType.CAST, 10));
+    copy = new Cast();
+    when(castRepo.findNameById(castId)).thenReturn(Optional.of("Swans"));
+    when(castRepo.lockSubCastCount(castId)).thenReturn(3);
+    when(castRepo.lockCastMemberCount(castId)).thenReturn(12);
+    when(castRepo.reserveIds(16)).thenReturn(copyId);
+    when(castRepo.findAllWithMembersByIdIn(List.of(copyId))).thenReturn(List.of(copy));
+  }
+
+  @Test
+  public void cloneCast_success() throws Exception {
+    // Execute
+    Cast response = castService.cloneCast(castId, "Second Swans");
+
+    // Assert
+    assertThat(response).isSameInstanceAs(copy);
+    verify(castRepo).reserveIds(16);
+    verify(castRepo).copyCast(castId, copyId, "Second Swans");
+    verify(castRepo).copySubCasts(castId, copyId);
+    verify(castRepo).copyCastMembers(castId, copyId, copyId + 3);
+    verify(changeLog).recordChange(ChangeType.CAST, copyId);
+  }
+
+  @Test
+  public void cloneCastNoName_namedAsCopy() throws Exception {
+    // Execute
+    castService.cloneCast(castId, " ");
+
+    // Assert
+    verify(castRepo).copyCast(castId, copyId, "Swans (copy)");
+  }
+
+  @Test
+  public void cloneCastBadId_failure() throws Exception {
+    // Mock
+    when(castRepo.findNameById(castId)).thenReturn(Optional.empty());
+
+    // Execute
+    EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+        () -> castService.cloneCast(castId, null));
+
+    // Assert
+    assertThat(exception).hasMessageThat().contains(Integer.toString(castId));
+    verify(castRepo, never()).reserveIds(anyInt());
+    verify(castRepo, never()).copyCast(anyInt(), anyInt(), anyString());
+  }
+}
@@ -0,0 +1,134 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.rolecall.models.ChangeRecord;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.repos.ChangeRecordRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+public class ChangeEventServicesTests {
+
+  private ChangeRecordRepository recordRepo;
+  private ChangeEventServices changeEvents;
+
+  @BeforeEach
+  public void init() {
+    recordRepo = mock(ChangeRecordRepository.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.events.buffer-size", "3");
+    // Never writes, so every event stays in the subscriber's buffer.
+    changeEvents = new ChangeEventServices(recordRepo, task -> { }, env);
+    when(recordRepo.currentVersion()).thenReturn(0L);
+  }
+
+  @Test
+  public void publish_subscriberBufferFull_disconnects() {
+    // Setup
+    changeEvents.subscribe(null);
+
+    // Execute
+    changeEvents.publish(changes(ChangeType.CAST, 1, 3));
+
+    // Assert
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(1);
+    changeEvents.publish(changes(ChangeType.CAST, 4, 4));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void publish_laterVersionFirst_waitsForEarlierVersion() {
+    // Setup
+    changeEvents.pollChanges();
+
+    // Execute
+    changeEvents.publish(changes(ChangeType.CAST, 2, 2));
+
+    // Assert
+    assertThat(changeEvents.getLastVersion()).isEqualTo(0);
+    changeEvents.publish(changes(ChangeType.CAST, 1, 1));
+    assertThat(changeEvents.getLastVersion()).isEqualTo(2);
+  }
+
+  @Test
+  public void pollChanges_sendsChangesCommittedElsewhereOnce() {
+    // Setup
+    changeEvents.subscribe(null);
+    when(recordRepo.findByVersionGreaterThanOrderByVersion(eq(0L), any()))
+        .thenReturn(changes(ChangeType.USER, 1, 2));
+
+    // Execute
+    changeEvents.pollChanges();
+
+    // Assert
+    assertThat(changeEvents.getLastVersion()).isEqualTo(2);
+    // Already sent, so the subscriber buffer holds 2 events and still fits 1.
+    changeEvents.publish(changes(ChangeType.USER, 1, 2));
+    changeEvents.publish(changes(ChangeType.USER, 3, 3));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void subscribe_lastEventIdBehind_replaysFromChangeLog() {
+    // Setup
+    when(recordRepo.currentVersion()).thenReturn(5L);
+    when(recordRepo.findByVersionGreaterThanOrderByVersion(eq(3L), any()))
+        .thenReturn(changes(ChangeType.PERFORMANCE, 4, 5));
+
+    // Execute
+    changeEvents.subscribe("3");
+
+    // Assert
+    changeEvents.publish(changes(ChangeType.PERFORMANCE, 6, 6));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(1);
+    changeEvents.publish(changes(ChangeType.PERFORMANCE, 7, 7));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void subscribe_lastEventIdTooOld_sendsResetOnly() {
+    // Setup
+    when(recordRepo.currentVersion()).thenReturn(5L);
+    when(recordRepo.findByVersionGreaterThanOrderByVersion(eq(1L), any()))
+        .thenReturn(changes(ChangeType.USER, 2, 5));
+
+    // Execute
+    changeEvents.subscribe("1");
+
+    // Assert
+    changeEvents.publish(changes(ChangeType.USER, 6, 7));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void subscribe_lastEventIdAheadOfChangeLog_sendsResetOnly() {
+    // Setup
+    when(recordRepo.currentVersion()).thenReturn(3L);
+
+    // Execute
+    changeEvents.subscribe("9");
+
+    // Assert
+    changeEvents.publish(changes(ChangeType.SECTION, 4, 5));
+    assertThat(changeEvents.getSubscriberCount()).isEqualTo(1);
+  }
+
+  /* Changes to entities first to last, each recorded with its id as version. */
+  private List<ChangeRecord> changes(ChangeType type, int first, int last) {
+    List<ChangeRecord> changes = new ArrayList<>();
+    for (int id = first; id <= last; id++) {
+      changes.add(new ChangeRecord(type, id, (long) id, false));
+    }
+    return changes;
+  }
+}
@@ -0,0 +1,134 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Storage;
+import com.google.rolecall.models.UserAsset.AssetType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+public class CloudStorageServiceTests {
+
+  private AtomicInteger signed;
+  private List<String> calls;
+  private WriteChannel writer;
+  private CloudStorageService cloudStorage;
+  private long now;
+
+  @BeforeEach
+  public void init() throws Exception {
+    signed = new AtomicInteger();
+    calls = new ArrayList<>();
+    writer = mock(WriteChannel.class);
+    when(writer.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+      ByteBuffer chunk = invocation.getArgument(0);
+      int written = chunk.remaining();
+      chunk.position(chunk.limit());
+      return written;
+    });
+    // Every signature is a new url, so a reused url shows the cache answered.
+    Storage storage = mock(Storage.class, invocation -> {
+      String method = invocation.getMethod().getName();
+      calls.add(method);
+      if (method.equals("signUrl")) {
+        return new URL("https://storage.test/" + signed.incrementAndGet());
+      }
+      return method.equals("writer") ? writer : null;
+    });
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.resource.bucket", "bucket")
+        .withProperty("rolecall.asset.signed-url.cache-size", "2");
+    cloudStorage = new CloudStorageService(storage, env);
+    now = System.currentTimeMillis();
+  }
+
+  @Test
+  public void signUrlAgain_reusesUrl() {
+    // Execute
+    String first = cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg", now);
+    String second = cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg",
+        now + TimeUnit.HOURS.toMillis(22));
+
+    // Assert
+    assertThat(second).isEqualTo(first);
+    assertThat(signed.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void signUrlNearExpiry_signsAgain() {
+    // Execute
+    String first = cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg", now);
+    String second = cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg",
+        now + TimeUnit.HOURS.toMillis(23));
+
+    // Assert
+    assertThat(second).isNotEqualTo(first);
+    assertThat(signed.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void signUrlCacheFull_dropsLeastRecentlyUsed() {
+    // Setup
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg", now);
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "2.jpg", now);
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg", now);
+
+    // Execute
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "3.jpg", now);
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "1.jpg", now);
+    cloudStorage.signUrl(AssetType.PROFILEPICTURE, "2.jpg", now);
+
+    // Assert
+    assertThat(signed.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void storeSmallContentShorterThanLength_storesNothing() {
+    // Execute
+    assertThrows(IOException.class, () -> cloudStorage.store(
+        new ByteArrayInputStream(new byte[10]), 20, AssetType.PROFILEPICTURE_48, "1.jpg"));
+
+    // Assert
+    assertThat(calls).doesNotContain("create");
+  }
+
+  @Test
+  public void storeLargeContentShorterThanLength_leavesWriterOpen() throws Exception {
+    // Execute
+    assertThrows(IOException.class, () -> cloudStorage.store(
+        new ByteArrayInputStream(new byte[100 * 1024]), 300 * 1024,
+        AssetType.PROFILEPICTURE, "1.jpg"));
+
+    // Assert
+    assertThat(calls).contains("writer");
+    verify(writer, never()).close();
+  }
+
+  @Test
+  public void storeLargeContent_closesWriter() throws Exception {
+    // Execute
+    cloudStorage.store(new ByteArrayInputStream(new byte[300 * 1024]), 300 * 1024,
+        AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Assert
+    verify(writer).close();
+  }
+}
@@ -0,0 +1,271 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import com.google.rolecall.models.PendingNotification;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.PendingNotificationRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.CPSNotification;
+import com.google.rolecall.util.NotificationPublisher;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class NotificationServicesTests {
+
+  private LocalNotificationPublisher publisher;
+  private PendingNotificationRepository pendingRepo;
+  private Map<String, PendingNotification> table;
+  private MockEnvironment env;
+  private NotificationServices notificationServices;
+  private List<User> cast;
+
+  @BeforeEach
+  public void init() throws InvalidParameterException {
+    publisher = new LocalNotificationPublisher();
+    table = new LinkedHashMap<>();
+    pendingRepo = inMemoryRepository(table);
+    env = new MockEnvironment()
+        .withProperty("rolecall.notifications.digest-window-ms", "1000");
+    env.setActiveProfiles("dev");
+    notificationServices = newNotificationServices(publisher);
+    cast = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      User user = User.newBuilder()
+          .setFirstName("Dancer")
+          .setLastName(Integer.toString(i))
+          .setEmail(String.format("dancer%d@rolecall.com", i))
+          .build();
+      ReflectionTestUtils.setField(user, "id", i);
+      cast.add(user);
+    }
+  }
+
+  @Test
+  public void queueForDigest_messagesForOneUser_sentAsOneDigest() {
+    // Execute
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 2), "First");
+    notificationServices.queueForDigest("performance:1", cast.subList(1, 3), "Second");
+    notificationServices.queueForDigest("performance:2", cast.subList(0, 1), "Other");
+    int sent = notificationServices.publishDue(System.currentTimeMillis() + 1000);
+
+    // Assert
+    assertThat(sent).isEqualTo(3);
+    Map<String, String> messages = publisher.getPublished().stream()
+        .collect(Collectors.toMap(CPSNotification::getEmail, CPSNotification::getMessage));
+    assertThat(messages).containsExactly(
+        "dancer0@rolecall.com", "First\n\nOther",
+        "dancer1@rolecall.com", "Second",
+        "dancer2@rolecall.com", "Second");
+    assertThat(table).isEmpty();
+  }
+
+  @Test
+  public void queueForDigest_beforeWindowEnds_holdsDigest() {
+    // Execute
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 1), "First");
+    int sent = notificationServices.publishDue(System.currentTimeMillis() - 1);
+
+    // Assert
+    assertThat(sent).isEqualTo(0);
+    assertThat(publisher.getPublished()).isEmpty();
+    assertThat(table).hasSize(1);
+  }
+
+  @Test
+  public void publishDue_overRateLimit_leavesRestQueued() {
+    // Setup
+    env.setProperty("rolecall.notifications.burst", "2");
+    env.setProperty("rolecall.notifications.rate-per-second", "0.001");
+    notificationServices = newNotificationServices(publisher);
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 5), "Cast");
+
+    // Execute
+    long later = System.currentTimeMillis() + 1000;
+    int first = notificationServices.publishDue(later);
+    int second = notificationServices.publishDue(later);
+
+    // Assert
+    assertThat(first).isEqualTo(2);
+    assertThat(second).isEqualTo(0);
+    assertThat(publisher.getPublished()).hasSize(2);
+    assertThat(table).hasSize(3);
+  }
+
+  @Test
+  public void publishDue_publishFails_sentOnceAfterRestart() {
+    // Setup
+    NotificationPublisher failing = mock(NotificationPublisher.class);
+    when(failing.publish(any())).thenReturn(
+        CompletableFuture.failedFuture(new IllegalStateException("Topic unavailable")));
+    notificationServices = newNotificationServices(failing);
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 1), "Cast");
+    long later = System.currentTimeMillis() + 1000;
+
+    // Execute
+    int failed = notificationServices.publishDue(later);
+    NotificationServices restarted = newNotificationServices(publisher);
+    int sent = restarted.publishDue(later);
+    int again = restarted.publishDue(later);
+
+    // Assert
+    assertThat(failed).isEqualTo(0);
+    assertThat(sent).isEqualTo(1);
+    assertThat(again).isEqualTo(0);
+    List<CPSNotification> published = publisher.getPublished();
+    assertThat(published).hasSize(1);
+    assertThat(published.get(0).getMessage()).isEqualTo("Cast");
+    assertThat(published.get(0).getId()).startsWith("0-");
+  }
+
+  @Test
+  public void publishDue_requeuedWhileSending_keepsNewerMessage() {
+    // Setup
+    NotificationPublisher requeuing = mock(NotificationPublisher.class);
+    when(requeuing.publish(any())).thenAnswer(invocation -> {
+      // An edit commits while the digest is being published.
+      notificationServices.queueForDigest("performance:1", cast.subList(0, 1), "Second");
+      return publisher.publish(invocation.getArgument(0));
+    });
+    NotificationServices sending = newNotificationServices(requeuing);
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 1), "First");
+    long later = System.currentTimeMillis() + 1000;
+
+    // Execute
+    int sent = sending.publishDue(later);
+
+    // Assert
+    assertThat(sent).isEqualTo(1);
+    assertThat(publisher.getPublished().get(0).getMessage()).isEqualTo("First");
+    assertThat(table).hasSize(1);
+    assertThat(table.values().iterator().next().getMessage()).isEqualTo("Second");
+    assertThat(table.values().iterator().next().getClaimedUntil()).isNull();
+  }
+
+  @Test
+  public void publishDue_claimedRows_skippedByOtherWorkers() {
+    // Setup
+    NotificationPublisher pending = mock(NotificationPublisher.class);
+    env.setProperty("rolecall.notifications.publish-timeout-ms", "0");
+    NotificationServices slow = newNotificationServices(pending);
+    notificationServices.queueForDigest("performance:1", cast.subList(0, 1), "Cast");
+    long later = System.currentTimeMillis() + 1000;
+    when(pending.publish(any())).thenAnswer(invocation -> {
+      // Another worker runs while this one waits for the topic.
+      assertThat(notificationServices.publishDue(later)).isEqualTo(0);
+      return new CompletableFuture<String>();
+    });
+
+    // Execute
+    int sent = slow.publishDue(later);
+
+    // Assert
+    assertThat(sent).isEqualTo(0);
+    assertThat(publisher.getPublished()).isEmpty();
+    assertThat(table).hasSize(1);
+  }
+
+  private NotificationServices newNotificationServices(NotificationPublisher publisher) {
+    return new NotificationServices(publisher, pendingRepo,
+        mock(PlatformTransactionManager.class), env);
+  }
+
+  /* Pending notification table kept in the map, as the queries would see it. */
+  @SuppressWarnings("unchecked")
+  private static PendingNotificationRepository inMemoryRepository(
+      Map<String, PendingNotification> table) {
+    PendingNotificationRepository repo = mock(PendingNotificationRepository.class);
+    doAnswer(invocation -> {
+      String id = invocation.getArgument(0);
+      Integer userId = invocation.getArgument(1);
+      Timestamp queued = invocation.getArgument(6);
+      PendingNotification row = new PendingNotification(userId,
+          id.substring(id.indexOf(':') + 1), invocation.getArgument(2),
+          invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5),
+          queued);
+      PendingNotification previous = table.get(id);
+      if (previous != null) {
+        ReflectionTestUtils.setField(row, "firstQueued", previous.getFirstQueued());
+      }
+      table.put(id, row);
+      return 1;
+    }).when(repo).queue(anyString(), anyInt(), any(), any(), anyString(), anyString(), any());
+    when(repo.findDueRecipients(any(), any(), any(), any())).thenAnswer(invocation -> {
+      Timestamp quietSince = invocation.getArgument(0);
+      Timestamp oldestAllowed = invocation.getArgument(1);
+      Timestamp now = invocation.getArgument(2);
+      Pageable page = invocation.getArgument(3);
+      Map<Integer, List<PendingNotification>> byUser = table.values().stream()
+          .filter(row -> unclaimed(row, now))
+          .collect(Collectors.groupingBy(PendingNotification::getUserId));
+      return byUser.entrySet().stream()
+          .filter(entry -> entry.getValue().stream()
+                  .allMatch(row -> !row.getLastQueued().after(quietSince))
+              || entry.getValue().stream()
+                  .anyMatch(row -> !row.getFirstQueued().after(oldestAllowed)))
+          .map(Map.Entry::getKey)
+          .sorted()
+          .limit(page.getPageSize())
+          .collect(Collectors.toList());
+    });
+    when(repo.lockUnclaimedByUserId(anyInt(), any())).thenAnswer(invocation -> table.values()
+        .stream()
+        .filter(row -> row.getUserId().equals(invocation.getArgument(0)))
+        .filter(row -> unclaimed(row, invocation.getArgument(1)))
+        .sorted(Comparator.comparing(PendingNotification::getFirstQueued)
+            .thenComparing(PendingNotification::getId))
+        .collect(Collectors.toList()));
+    when(repo.claim(anyList(), any())).thenAnswer(invocation -> {
+      ((Collection<String>) invocation.getArgument(0)).forEach(id -> ReflectionTestUtils
+          .setField(table.get(id), "claimedUntil", invocation.getArgument(1)));
+      return 1;
+    });
+    when(repo.deleteClaimed(anyList(), any())).thenAnswer(invocation -> {
+      ((Collection<String>) invocation.getArgument(0)).forEach(id -> {
+        if (heldBy(table.get(id), invocation.getArgument(1))) {
+          table.remove(id);
+        }
+      });
+      return 1;
+    });
+    when(repo.releaseClaim(anyList(), any())).thenAnswer(invocation -> {
+      ((Collection<String>) invocation.getArgument(0)).forEach(id -> {
+        if (heldBy(table.get(id), invocation.getArgument(1))) {
+          ReflectionTestUtils.setField(table.get(id), "claimedUntil", null);
+        }
+      });
+      return 1;
+    });
+    return repo;
+  }
+
+  private static boolean unclaimed(PendingNotification row, Timestamp now) {
+    return row.getClaimedUntil() == null || row.getClaimedUntil().before(now);
+  }
+
+  private static boolean heldBy(PendingNotification row, Timestamp claimedUntil) {
+    return row != null && claimedUntil.equals(row.getClaimedUntil());
+  }
+}
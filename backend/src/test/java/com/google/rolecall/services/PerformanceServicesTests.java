@@ -0,0 +1,168 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.rolecall.jsonobjects.PerformanceInfo;
+import com.google.rolecall.jsonobjects.PerformanceSectionInfo;
+import com.google.rolecall.models.Performance;
+import com.google.rolecall.models.PerformanceSection;
+import com.google.rolecall.models.Section;
+import com.google.rolecall.repos.PerformanceCastMemberRepository;
+import com.google.rolecall.repos.PerformanceRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PerformanceServicesTests {
+
+  private PerformanceRepository performanceRepo;
+  private PerformanceCastMemberRepository performanceCastMemberRepo;
+  private PerformanceServices performanceService;
+  private Section section;
+  private Performance saved;
+  private int performanceId = 10;
+  private int performanceSectionId = 20;
+  private int sectionId = 3;
+  private long dateTime = 1_600_000_000_000L;
+
+  @BeforeEach
+  public void init() throws Exception {
+    performanceRepo = mock(PerformanceRepository.class);
+    performanceCastMemberRepo = mock(PerformanceCastMemberRepository.class);
+    SectionServices sectionService = mock(SectionServices.class);
+    performanceService = new PerformanceServices(performanceRepo, performanceCastMemberRepo,
+        sectionService, null, mock(NotificationServices.class),
+        mock(ChangeLogServices.class));
+
+    section = Section.newBuilder()
+        .setId(sectionId)
+        .setName("Ballet")
+        .setType(Section.Type.BALLET)
+        .build();
+    when(sectionService.getSection(sectionId)).thenReturn(section);
+    when(performanceRepo.save(any(Performance.class))).thenAnswer(invocation -> {
+      saved = invocation.getArgument(0);
+      ReflectionTestUtils.setField(saved, "id", performanceId);
+      for (PerformanceSection performanceSection : saved.getProgram()) {
+        if (performanceSection.getId() == null) {
+          ReflectionTestUtils.setField(performanceSection, "id", performanceSectionId);
+        }
+      }
+      return saved;
+    });
+    when(performanceRepo.findById(performanceId)).thenAnswer(
+        invocation -> Optional.ofNullable(saved));
+  }
+
+  @Test
+  public void createPerformanceCastOfOtherSection_failure() throws Exception {
+    // Mock
+    when(performanceCastMemberRepo.countCastsOfSection(eq(sectionId), anyCollection()))
+        .thenReturn(1);
+
+    // Execute
+    InvalidParameterException exception = assertThrows(InvalidParameterException.class,
+        () -> performanceService.createPerformance(performanceInfo(null, null, List.of(7, 8))));
+
+    // Assert
+    assertThat(exception).hasMessageThat().contains("must exist and belong to section");
+    verify(performanceCastMemberRepo, never()).deleteAllByPerformanceSectionId(anyInt());
+    verify(performanceCastMemberRepo, never()).copyCastMembers(
+        anyInt(), anyInt(), anyInt(), anyCollection(), anyInt());
+  }
+
+  @Test
+  public void createPerformanceFromCasts_copiesBySectionPosition() throws Exception {
+    // Mock
+    when(performanceCastMemberRepo.countCastsOfSection(eq(sectionId), anyCollection()))
+        .thenReturn(2);
+    when(performanceCastMemberRepo.lockCastMemberCount(anyCollection())).thenReturn(5);
+    when(performanceCastMemberRepo.reserveIds(5)).thenReturn(100);
+
+    // Execute
+    Performance performance = performanceService
+        .createPerformance(performanceInfo(null, null, List.of(7, 8, 7)))
+        .getResult();
+
+    // Assert
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<Integer>> castIds = ArgumentCaptor.forClass(Collection.class);
+    assertThat(performance.getId()).isEqualTo(performanceId);
+    verify(performanceCastMemberRepo).deleteAllByPerformanceSectionId(performanceSectionId);
+    verify(performanceCastMemberRepo).copyCastMembers(eq(performanceId),
+        eq(performanceSectionId), eq(1), castIds.capture(), eq(99));
+    assertThat(castIds.getValue()).containsExactly(7, 8);
+  }
+
+  @Test
+  public void editPerformanceFromCasts_replacesMembers() throws Exception {
+    // Setup
+    performanceService.createPerformance(performanceInfo(null, null, null));
+
+    // Mock
+    when(performanceCastMemberRepo.countCastsOfSection(sectionId, List.of(7))).thenReturn(1);
+    when(performanceCastMemberRepo.lockCastMemberCount(List.of(7))).thenReturn(3);
+    when(performanceCastMemberRepo.reserveIds(3)).thenReturn(200);
+
+    // Execute
+    performanceService.editPerformance(
+        performanceInfo(performanceId, performanceSectionId, List.of(7)));
+
+    // Assert
+    verify(performanceCastMemberRepo).deleteAllByPerformanceSectionId(performanceSectionId);
+    verify(performanceCastMemberRepo).copyCastMembers(performanceId, performanceSectionId, 1,
+        List.of(7), 199);
+  }
+
+  @Test
+  public void editPerformanceNoCasts_clearsMembers() throws Exception {
+    // Setup
+    performanceService.createPerformance(performanceInfo(null, null, null));
+
+    // Execute
+    performanceService.editPerformance(
+        performanceInfo(performanceId, performanceSectionId, List.of()));
+
+    // Assert
+    verify(performanceCastMemberRepo).deleteAllByPerformanceSectionId(performanceSectionId);
+    verify(performanceCastMemberRepo, never()).lockCastMemberCount(anyCollection());
+    verify(performanceCastMemberRepo, never()).copyCastMembers(
+        anyInt(), anyInt(), anyInt(), anyCollection(), anyInt());
+  }
+
+  private PerformanceInfo performanceInfo(Integer id, Integer sectionInfoId,
+      List<Integer> castIds) {
+    PerformanceSectionInfo sectionInfo = PerformanceSectionInfo.newBuilder()
+        .setId(sectionInfoId)
+        .setSectionPosition(0)
+        .setPrimaryCast(1)
+        .setSectionId(sectionId)
+        .setCastIds(castIds)
+        .build();
+    return PerformanceInfo.newBuilder()
+        .setId(id)
+        .setTitle("Spring Gala")
+        .setCity("New York")
+        .setState("NY")
+        .setCountry("USA")
+        .setDateTime(dateTime)
+        .setPerformanceSections(List.of(sectionInfo))
+        .build();
+  }
+}
@@ -0,0 +1,264 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+
+import com.google.rolecall.models.User;
+import com.google.rolecall.models.UserAsset;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.models.UserAsset.FileType;
+import com.google.rolecall.repos.AssetBlobRepository;
+import com.google.rolecall.repos.UserAssetRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+import com.google.rolecall.util.StorageService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+public class ProfilePictureServicesTests {
+
+  private UserAssetRepository assetRepo;
+  private AssetBlobRepository blobRepo;
+  private AssetCleanupServices assetCleanup;
+  private StorageService storage;
+  private UserServices userServices;
+  private ProfilePictureServices pictureService;
+  private User user;
+  private byte[] png;
+  private int ownerId = 1;
+  private int assetId = 5;
+
+  @BeforeEach
+  public void init() throws Exception {
+    assetRepo = mock(UserAssetRepository.class);
+    blobRepo = mock(AssetBlobRepository.class);
+    assetCleanup = mock(AssetCleanupServices.class);
+    storage = mock(StorageService.class);
+    userServices = mock(UserServices.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.max-bytes", "100000");
+    pictureService = new ProfilePictureServices(assetRepo, blobRepo, assetCleanup, storage,
+        userServices, new SyncTaskExecutor(), env);
+
+    user = User.newBuilder()
+        .setFirstName("Ann")
+        .setLastName("Lee")
+        .setEmail("ann@email.com")
+        .build();
+    ReflectionTestUtils.setField(user, "id", ownerId);
+    when(userServices.getUser(ownerId)).thenReturn(user);
+    when(assetRepo.saveAndFlush(any(UserAsset.class))).thenAnswer(invocation -> {
+      UserAsset asset = invocation.getArgument(0);
+      ReflectionTestUtils.setField(asset, "id", assetId);
+      return asset;
+    });
+
+    BufferedImage image = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", encoded);
+    png = encoded.toByteArray();
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  public void clear() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  public void createProfilePictureNewContent_storesAndGeneratesThumbnailsAfterCommit()
+      throws Exception {
+    // Setup
+    String fileName = ProfilePictureServices.sha256Hex(new ByteArrayInputStream(png)) + ".png";
+    String thumbnailName = ProfilePictureServices.thumbnailName(fileName);
+
+    // Mock
+    when(blobRepo.acquire(fileName, png.length)).thenReturn(1);
+    when(storage.loadAsResource(AssetType.PROFILEPICTURE, fileName))
+        .thenReturn(new ByteArrayResource(png));
+
+    // Execute
+    UserAsset asset = pictureService.createProfilePicture(ownerId, upload(png));
+
+    // Assert
+    assertThat(asset.getFileName()).isEqualTo(fileName);
+    verify(userServices).addNewProfilePictureToUser(ownerId, asset);
+    verify(assetCleanup).cancelDeletion(AssetType.PROFILEPICTURE, fileName);
+    for (AssetType thumbnail : ProfilePictureServices.THUMBNAILS.values()) {
+      verify(assetCleanup).cancelDeletion(thumbnail, thumbnailName);
+    }
+    verify(storage).store(any(InputStream.class), eq((long) png.length),
+        eq(AssetType.PROFILEPICTURE), eq(fileName));
+    // Thumbnails wait for the commit.
+    verify(storage, times(1)).store(any(InputStream.class), anyLong(), any(), anyString());
+
+    // Execute
+    for (TransactionSynchronization synchronization
+        : TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+
+    // Assert
+    for (AssetType thumbnail : ProfilePictureServices.THUMBNAILS.values()) {
+      verify(storage).store(any(InputStream.class), anyLong(), eq(thumbnail),
+          eq(thumbnailName));
+    }
+  }
+
+  @Test
+  public void createProfilePictureDuplicateContent_skipsStorage() throws Exception {
+    // Setup
+    String fileName = ProfilePictureServices.sha256Hex(new ByteArrayInputStream(png)) + ".png";
+
+    // Mock
+    when(blobRepo.acquire(fileName, png.length)).thenReturn(2);
+
+    // Execute
+    UserAsset asset = pictureService.createProfilePicture(ownerId, upload(png));
+
+    // Assert
+    assertThat(asset.getContentHash()).isEqualTo(fileName.replace(".png", ""));
+    verify(assetRepo).saveAndFlush(asset);
+    verify(assetCleanup, never()).cancelDeletion(any(), anyString());
+    verify(storage, never()).store(any(InputStream.class), anyLong(), any(), anyString());
+    assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+  }
+
+  @Test
+  public void createProfilePictureLargerThanReported_failure() throws Exception {
+    // Setup
+    MultipartFile image = mock(MultipartFile.class);
+    MockEnvironment env = new MockEnvironment()
+        .withProperty("rolecall.asset.max-bytes", "10");
+    pictureService = new ProfilePictureServices(assetRepo, blobRepo, assetCleanup, storage,
+        userServices, new SyncTaskExecutor(), env);
+
+    // Mock
+    when(image.getOriginalFilename()).thenReturn("picture.png");
+    when(image.getSize()).thenReturn(5L);
+    when(image.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[20]));
+
+    // Execute
+    InvalidParameterException exception = assertThrows(InvalidParameterException.class,
+        () -> pictureService.createProfilePicture(ownerId, image));
+
+    // Assert
+    assertThat(exception).hasMessageThat().contains("exceeds the limit of 10 bytes");
+    verify(userServices, never()).addNewProfilePictureToUser(any(), any());
+    verify(blobRepo, never()).acquire(anyString(), anyLong());
+    verify(storage, never()).store(any(InputStream.class), anyLong(), any(), anyString());
+  }
+
+  @Test
+  public void getProfilePictureThumbnailMissing_regeneratesThumbnails() throws Exception {
+    // Setup
+    String fileName = "abc123.png";
+    String thumbnailName = ProfilePictureServices.thumbnailName(fileName);
+
+    // Mock
+    when(storage.loadAsResource(AssetType.PROFILEPICTURE_128, thumbnailName))
+        .thenThrow(new FileNotFoundException(thumbnailName));
+    when(storage.loadAsResource(AssetType.PROFILEPICTURE, fileName))
+        .thenReturn(new ByteArrayResource(png));
+
+    // Execute
+    Optional<?> thumbnail = pictureService.getProfilePictureThumbnail(fileName, 100);
+
+    // Assert
+    assertThat(thumbnail).isEmpty();
+    for (AssetType type : ProfilePictureServices.THUMBNAILS.values()) {
+      verify(storage).store(any(InputStream.class), anyLong(), eq(type), eq(thumbnailName));
+    }
+  }
+
+  @Test
+  public void deleteProfilePictureLastReference_schedulesFileDeletion() throws Exception {
+    // Setup
+    UserAsset asset = asset("abc123");
+
+    // Mock
+    when(blobRepo.deleteIfUnreferenced("abc123.png")).thenReturn(1);
+
+    // Execute
+    pictureService.deleteProfilePicture(assetId);
+
+    // Assert
+    verify(blobRepo).release("abc123.png");
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE, "abc123.png");
+    for (AssetType thumbnail : ProfilePictureServices.THUMBNAILS.values()) {
+      verify(assetCleanup).scheduleDeletion(thumbnail, "abc123.png.jpg");
+    }
+    verify(userServices).removeProfilePictureFromUser(ownerId, asset);
+    verify(assetRepo).delete(asset);
+  }
+
+  @Test
+  public void deleteProfilePictureSharedContent_keepsFiles() throws Exception {
+    // Setup
+    UserAsset asset = asset("abc123");
+
+    // Mock
+    when(blobRepo.deleteIfUnreferenced("abc123.png")).thenReturn(0);
+
+    // Execute
+    pictureService.deleteProfilePicture(assetId);
+
+    // Assert
+    verify(blobRepo).release("abc123.png");
+    verify(assetCleanup, never()).scheduleDeletion(any(), anyString());
+    verify(userServices).removeProfilePictureFromUser(ownerId, asset);
+    verify(assetRepo).delete(asset);
+  }
+
+  @Test
+  public void deleteProfilePictureWithoutHash_schedulesFileDeletion() throws Exception {
+    // Setup
+    UserAsset asset = asset(null);
+
+    // Execute
+    pictureService.deleteProfilePicture(assetId);
+
+    // Assert
+    verify(blobRepo, never()).release(anyString());
+    verify(assetCleanup).scheduleDeletion(AssetType.PROFILEPICTURE, assetId + ".png");
+    verify(assetRepo).delete(asset);
+  }
+
+  private UserAsset asset(String contentHash) {
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.PNG, contentHash);
+    ReflectionTestUtils.setField(asset, "id", assetId);
+    asset.setOwner(user);
+    when(assetRepo.findById(assetId)).thenReturn(Optional.of(asset));
+    return asset;
+  }
+
+  private MultipartFile upload(byte[] content) {
+    return new MockMultipartFile("file", "picture.png", "image/png", content);
+  }
+}
@@ -0,0 +1,84 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.rolecall.jsonobjects.ResponseSchema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+public class ResponseCacheServicesTests {
+
+  private ChangeLogServices changeLog;
+  private ResponseCacheServices responseCache;
+  private AtomicInteger renders;
+
+  @BeforeEach
+  public void init() {
+    changeLog = mock(ChangeLogServices.class);
+    responseCache = new ResponseCacheServices(changeLog, new ObjectMapper());
+    renders = new AtomicInteger();
+  }
+
+  @Test
+  public void getResponse_sameVersion_rendersOnce() throws Exception {
+    // Setup
+    when(changeLog.getCurrentVersion()).thenReturn(3L);
+
+    // Execute
+    ResponseEntity<byte[]> first = responseCache.getResponse("/api/user", null, this::render);
+    ResponseEntity<byte[]> second = responseCache.getResponse("/api/user", null, this::render);
+
+    // Assert
+    assertThat(renders.get()).isEqualTo(1);
+    assertThat(new String(second.getBody(), StandardCharsets.UTF_8))
+        .isEqualTo("{\"data\":[1],\"warnings\":[]}");
+    assertThat(second.getBody()).isSameInstanceAs(first.getBody());
+  }
+
+  @Test
+  public void getResponse_newVersion_rendersAgain() throws Exception {
+    // Setup
+    when(changeLog.getCurrentVersion()).thenReturn(3L, 4L);
+
+    // Execute
+    responseCache.getResponse("/api/user", null, this::render);
+    ResponseEntity<byte[]> response = responseCache.getResponse("/api/user", null, this::render);
+
+    // Assert
+    assertThat(renders.get()).isEqualTo(2);
+    assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).contains("[2]");
+  }
+
+  @Test
+  public void getResponse_acceptsGzip_sendsGzipped() throws Exception {
+    // Setup
+    when(changeLog.getCurrentVersion()).thenReturn(3L);
+
+    // Execute
+    ResponseEntity<byte[]> response =
+        responseCache.getResponse("/api/user", "gzip, deflate", this::render);
+
+    // Assert
+    assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+      assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+          .isEqualTo("{\"data\":[1],\"warnings\":[]}");
+    }
+  }
+
+  private Object render() {
+    return new ResponseSchema<>(List.of(renders.incrementAndGet()));
+  }
+}
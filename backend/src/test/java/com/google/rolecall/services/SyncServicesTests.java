@@ -0,0 +1,113 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.rolecall.jsonobjects.SyncChangeInfo;
+import com.google.rolecall.jsonobjects.SyncInfo;
+import com.google.rolecall.jsonobjects.UserInfo;
+import com.google.rolecall.models.ChangeRecord;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.CastRepository;
+import com.google.rolecall.repos.ChangeRecordRepository;
+import com.google.rolecall.repos.PerformanceRepository;
+import com.google.rolecall.repos.SectionRepository;
+import com.google.rolecall.repos.UnavailabilityRepository;
+import com.google.rolecall.repos.UserRepository;
+import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.InvalidParameterException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.env.MockEnvironment;
+
+public class SyncServicesTests {
+
+  private List<ChangeRecord> records;
+  private UserRepository userRepo;
+  private SyncServices syncServices;
+  private User user;
+  private UserInfo userInfo;
+
+  @BeforeEach
+  public void init() {
+    records = new ArrayList<>();
+    ChangeRecordRepository recordRepo = mock(ChangeRecordRepository.class);
+    when(recordRepo.findByVersionGreaterThanOrderByVersion(anyLong(), any()))
+        .thenAnswer(invocation -> {
+          Long since = invocation.getArgument(0);
+          Pageable page = invocation.getArgument(1);
+          return records.stream()
+              .filter(record -> record.getVersion() > since)
+              .limit(page.getPageSize())
+              .collect(Collectors.toList());
+        });
+    userRepo = mock(UserRepository.class);
+    user = mock(User.class);
+    userInfo = UserInfo.newBuilder().setId(1).build();
+    when(user.getId()).thenReturn(1);
+    when(user.toUserInfo()).thenReturn(userInfo);
+    when(userRepo.findAllById(any())).thenReturn(List.of(user));
+    syncServices = new SyncServices(recordRepo, mock(PerformanceRepository.class),
+        mock(CastRepository.class), mock(SectionRepository.class), userRepo,
+        mock(UnavailabilityRepository.class), new MockEnvironment());
+
+    records.add(new ChangeRecord(ChangeType.USER, 1, 4L, false));
+    records.add(new ChangeRecord(ChangeType.USER, 2, 5L, true));
+    records.add(new ChangeRecord(ChangeType.USER, 3, 7L, false));
+  }
+
+  @Test
+  public void getChangesSince_allChanges_returnsStateAndTombstones()
+      throws InvalidParameterException {
+    // Execute
+    SyncInfo sync = syncServices.getChangesSince(0, null);
+
+    // Assert
+    assertThat(sync.version()).isEqualTo(7L);
+    assertThat(sync.hasMore()).isFalse();
+    List<SyncChangeInfo> changes = sync.changes();
+    assertThat(changes).hasSize(3);
+    assertThat(changes.get(0).user()).isEqualTo(userInfo);
+    assertThat(changes.get(0).deleted()).isFalse();
+    assertThat(changes.get(1).deleted()).isTrue();
+    assertThat(changes.get(1).user()).isNull();
+    // Record written before the user was deleted reads as a tombstone.
+    assertThat(changes.get(2).id()).isEqualTo(3);
+    assertThat(changes.get(2).deleted()).isTrue();
+  }
+
+  @Test
+  public void getChangesSince_pages_resumeFromReturnedVersion()
+      throws InvalidParameterException {
+    // Execute
+    SyncInfo first = syncServices.getChangesSince(0, 2);
+    SyncInfo second = syncServices.getChangesSince(first.version(), 2);
+    SyncInfo third = syncServices.getChangesSince(second.version(), 2);
+
+    // Assert
+    assertThat(first.hasMore()).isTrue();
+    assertThat(first.version()).isEqualTo(5L);
+    assertThat(second.hasMore()).isFalse();
+    assertThat(second.changes()).hasSize(1);
+    assertThat(second.changes().get(0).version()).isEqualTo(7L);
+    assertThat(third.changes()).isEmpty();
+    assertThat(third.version()).isEqualTo(7L);
+  }
+
+  @Test
+  public void getChangesSince_negativeVersion_failure() {
+    // Execute and Assert
+    assertThrows(InvalidParameterException.class, () -> syncServices.getChangesSince(-1, null));
+    assertThrows(InvalidParameterException.class, () -> syncServices.getChangesSince(0, 0));
+  }
+}
@@ -0,0 +1,157 @@
+package com.google.rolecall.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.rolecall.jsonobjects.UserImportRowInfo;
+import com.google.rolecall.models.User;
+import com.google.rolecall.repos.CastMemberRepository;
+import com.google.rolecall.repos.UserRepository;
+import com.google.rolecall.services.UserImportServices.Format;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class UserImportServicesTests {
+
+  private UserRepository userRepo;
+  private UserImportServices importService;
+  private List<User> batchUsers;
+
+  @BeforeEach
+  public void init() {
+    userRepo = mock(UserRepository.class);
+    ChangeLogServices changeLog = mock(ChangeLogServices.class);
+    UserServices userService = new UserServices(userRepo, mock(CastMemberRepository.class),
+        null, changeLog);
+    importService = new UserImportServices(userRepo, userService, new ObjectMapper(),
+        changeLog, mock(PlatformTransactionManager.class));
+    batchUsers = new ArrayList<>();
+    when(userRepo.findExistingEmails(anyCollection())).thenReturn(List.of());
+    when(userRepo.saveAll(anyList())).thenAnswer(invocation -> {
+      List<User> users = invocation.getArgument(0);
+      batchUsers.addAll(users);
+      return users;
+    });
+  }
+
+  @Test
+  public void importCsv_reportsEveryRow() throws Exception {
+    // Setup
+    when(userRepo.findExistingEmails(anyCollection())).thenReturn(List.of("old@email.com"));
+    String csv = "firstName,lastName,email\n"
+        + "Ann,Lee,ann@email.com\n"
+        + "Ann,Lee,ANN@email.com\n"
+        + "Old,User,old@email.com\n"
+        + "No,Email,\n";
+
+    // Execute
+    List<UserImportRowInfo> results = importService.importUsers(upload(csv), Format.CSV);
+
+    // Assert
+    assertThat(results).hasSize(4);
+    assertThat(results.get(0).row()).isEqualTo(2);
+    assertThat(results.get(0).error()).isNull();
+    assertThat(results.get(1).row()).isEqualTo(3);
+    assertThat(results.get(1).error()).contains("appears earlier in the upload");
+    assertThat(results.get(2).row()).isEqualTo(4);
+    assertThat(results.get(2).error()).contains("already exists");
+    assertThat(results.get(3).row()).isEqualTo(5);
+    assertThat(results.get(3).error()).isEqualTo("User requires email address");
+    assertThat(batchUsers).hasSize(1);
+    assertThat(batchUsers.get(0).getEmail()).isEqualTo("ann@email.com");
+  }
+
+  @Test
+  public void importNdjson_writesInBatches() throws Exception {
+    // Setup
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i <= UserImportServices.BATCH_SIZE; i++) {
+      ndjson.append(String.format(
+          "{\"firstName\":\"F\",\"lastName\":\"L\",\"email\":\"user%d@email.com\"}\n", i));
+    }
+
+    // Execute
+    List<UserImportRowInfo> results =
+        importService.importUsers(upload(ndjson.toString()), Format.NDJSON);
+
+    // Assert
+    verify(userRepo, times(2)).findExistingEmails(anyCollection());
+    verify(userRepo, times(2)).saveAll(anyList());
+    assertThat(batchUsers).hasSize(UserImportServices.BATCH_SIZE + 1);
+    assertThat(results).hasSize(UserImportServices.BATCH_SIZE + 1);
+  }
+
+  @Test
+  public void importBatchConflict_retriesWithFreshUsers() throws Exception {
+    // Setup
+    when(userRepo.saveAll(anyList())).thenAnswer(invocation -> {
+      List<User> users = invocation.getArgument(0);
+      batchUsers.addAll(users);
+      for (int i = 0; i < users.size(); i++) {
+        ReflectionTestUtils.setField(users.get(i), "id", 100 + i);
+      }
+      throw new DataIntegrityViolationException("duplicate");
+    });
+    List<User> retried = new ArrayList<>();
+    when(userRepo.save(any(User.class))).thenAnswer(invocation -> {
+      User user = invocation.getArgument(0);
+      retried.add(user);
+      if (user.getEmail().equals("taken@email.com")) {
+        throw new DataIntegrityViolationException("duplicate");
+      }
+      return user;
+    });
+    String csv = "firstName,lastName,email\n"
+        + "New,User,new@email.com\n"
+        + "Taken,User,taken@email.com\n";
+
+    // Execute
+    List<UserImportRowInfo> results = importService.importUsers(upload(csv), Format.CSV);
+
+    // Assert
+    assertThat(retried).hasSize(2);
+    for (int i = 0; i < retried.size(); i++) {
+      assertThat(retried.get(i)).isNotSameInstanceAs(batchUsers.get(i));
+      assertThat(retried.get(i).getId()).isNull();
+    }
+    assertThat(results).hasSize(2);
+    assertThat(results.get(0).error()).isNull();
+    assertThat(results.get(1).error()).contains("already exists");
+  }
+
+  @Test
+  public void importCsvWithByteOrderMark_readsFirstColumn() throws Exception {
+    // Setup
+    String csv = "\uFEFFemail,firstName,lastName\n"
+        + "ann@email.com,Ann,Lee\n";
+
+    // Execute
+    List<UserImportRowInfo> results = importService.importUsers(upload(csv), Format.CSV);
+
+    // Assert
+    assertThat(results).hasSize(1);
+    assertThat(results.get(0).error()).isNull();
+    assertThat(batchUsers.get(0).getEmail()).isEqualTo("ann@email.com");
+  }
+
+  private InputStream upload(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -16,7 +16,11 @@ import java.util.Optional;
 
 import com.google.rolecall.jsonobjects.UserInfo;
 import com.google.rolecall.models.CastMember;
+import com.google.rolecall.models.ChangeRecord.ChangeType;
 import com.google.rolecall.models.User;
+import com.google.rolecall.models.UserAsset;
+import com.google.rolecall.models.UserAsset.AssetType;
+import com.google.rolecall.models.UserAsset.FileType;
 import com.google.rolecall.repos.CastMemberRepository;
 import com.google.rolecall.repos.UserRepository;
 import com.google.rolecall.restcontrollers.exceptionhandling.RequestExceptions.EntityNotFoundException;
@@ -29,6 +33,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 @ExtendWith(SpringExtension.class)
@@ -37,6 +42,7 @@ public class UserServiceTests {
   
   private UserRepository userRepo;
   private CastMemberRepository castMemberRepo;
+  private ChangeLogServices changeLog;
   private UserServices userService;
   private User user;
   private int invalidId = 30;
@@ -71,7 +77,8 @@ public class UserServiceTests {
   public void init() {
     userRepo = mock(UserRepository.class);
     castMemberRepo = mock(CastMemberRepository.class);
-    userService = new UserServices(userRepo, castMemberRepo, null);
+    changeLog = mock(ChangeLogServices.class);
+    userService = new UserServices(userRepo, castMemberRepo, null, changeLog);
     User.Builder builder = User.newBuilder()
       .setFirstName(firstName)
       .setMiddleName(middleName)
@@ -492,4 +499,37 @@ public class UserServiceTests {
     verify(userRepo, never()).deleteById(any(Integer.class));
     assertThat(exception).hasMessageThat().contains(Integer.toString(invalidId));
   }
+
+  @Test
+  public void removeCurrentProfilePicture_recordsChange() throws Exception {
+    // Setup
+    ReflectionTestUtils.setField(user, "id", id);
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.JPG);
+    ReflectionTestUtils.setField(asset, "id", 5);
+    user.addProfilePicture(asset);
+    ReflectionTestUtils.setField(user, "pictureFile", asset.getFileName());
+
+    // Execute
+    userService.removeProfilePictureFromUser(id, asset);
+
+    // Assert
+    assertThat(user.getPictureFile()).isEmpty();
+    verify(changeLog, times(1)).recordChange(ChangeType.USER, id);
+  }
+
+  @Test
+  public void removeOtherProfilePicture_recordsNoChange() throws Exception {
+    // Setup
+    ReflectionTestUtils.setField(user, "id", id);
+    UserAsset asset = new UserAsset(AssetType.PROFILEPICTURE, FileType.JPG);
+    ReflectionTestUtils.setField(asset, "id", 5);
+    user.addProfilePicture(asset);
+
+    // Execute
+    userService.removeProfilePictureFromUser(id, asset);
+
+    // Assert
+    assertThat(user.getPictureFile()).isEqualTo(pictureFile);
+    verify(changeLog, never()).recordChange(any(ChangeType.class), any(Integer.class));
+  }
 }
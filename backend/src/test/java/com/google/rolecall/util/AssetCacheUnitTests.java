@@ -0,0 +1,115 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(MockitoExtension.class)
+@ExtendWith(SpringExtension.class)
+public class AssetCacheUnitTests {
+
+  @Test
+  public void getCachedValue_success() throws Exception {
+    // Setup
+    AssetCache cache = new AssetCache(10);
+    AtomicInteger loads = new AtomicInteger();
+
+    // Execute
+    cache.get("a", () -> new byte[loads.incrementAndGet()]);
+    cache.get("a", () -> new byte[loads.incrementAndGet()]);
+
+    // Assert
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void evictLeastRecentlyUsedByWeight_success() throws Exception {
+    // Setup
+    AssetCache cache = new AssetCache(10);
+    cache.get("a", () -> new byte[4]);
+    cache.get("b", () -> new byte[4]);
+    cache.get("a", () -> new byte[4]);
+
+    // Execute
+    cache.get("c", () -> new byte[4]);
+
+    // Assert
+    assertThat(cache.getWeight()).isEqualTo(8);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    AtomicInteger loads = new AtomicInteger();
+    cache.get("a", () -> new byte[loads.incrementAndGet() * 4]);
+    assertThat(loads.get()).isEqualTo(0);
+    cache.get("b", () -> new byte[loads.incrementAndGet() * 4]);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void invalidateRemovesEntry_success() throws Exception {
+    // Setup
+    AssetCache cache = new AssetCache(10);
+    cache.get("a", () -> new byte[4]);
+
+    // Execute
+    cache.invalidate("a");
+
+    // Assert
+    assertThat(cache.getWeight()).isEqualTo(0);
+  }
+
+  @Test
+  public void concurrentMissesLoadOnce_success() throws Exception {
+    // Setup
+    AssetCache cache = new AssetCache(10);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // Execute
+    Future<byte[]> first = executor.submit(() -> cache.get("a", () -> {
+      loads.incrementAndGet();
+      release.await();
+      return new byte[2];
+    }));
+    while (loads.get() == 0) {
+      Thread.sleep(1);
+    }
+    Future<byte[]> second = executor.submit(() -> cache.get("a", () -> {
+      loads.incrementAndGet();
+      return new byte[3];
+    }));
+    Thread.sleep(50);
+    release.countDown();
+
+    // Assert
+    assertThat(first.get()).hasLength(2);
+    assertThat(second.get()).hasLength(2);
+    assertThat(loads.get()).isEqualTo(1);
+    executor.shutdown();
+  }
+
+  @Test
+  public void loaderFailureNotCached_failure() throws Exception {
+    // Setup
+    AssetCache cache = new AssetCache(10);
+
+    // Execute
+    assertThrows(FileNotFoundException.class, () -> cache.get("a", () -> {
+      throw new FileNotFoundException();
+    }));
+
+    // Assert
+    assertThat(cache.get("a", () -> new byte[1])).hasLength(1);
+  }
+}
@@ -0,0 +1,100 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AssetIndexUnitTests {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void putGetRemove_success() throws Exception {
+    // Setup
+    AssetIndex index = AssetIndex.create(directory.resolve("index"));
+
+    // Execute
+    index.put(AssetType.PROFILEPICTURE, "1.jpg", 10, 100);
+    index.put(AssetType.PROFILEPICTURE_48, "1.jpg", 20, 200);
+    index.remove(AssetType.PROFILEPICTURE_48, "1.jpg");
+
+    // Assert
+    AssetIndex.Entry entry = index.get(AssetType.PROFILEPICTURE, "1.jpg");
+    assertThat(entry.getSize()).isEqualTo(10);
+    assertThat(entry.getLastModified()).isEqualTo(100);
+    assertThat(index.get(AssetType.PROFILEPICTURE_48, "1.jpg")).isNull();
+    assertThat(index.get(AssetType.PROFILEPICTURE, "2.jpg")).isNull();
+    assertThat(index.size()).isEqualTo(1);
+    index.close();
+  }
+
+  @Test
+  public void growPastInitialCapacity_keepsEntries() throws Exception {
+    // Setup
+    AssetIndex index = AssetIndex.create(directory.resolve("index"));
+
+    // Execute
+    for (int i = 0; i < 5000; i++) {
+      index.put(AssetType.PROFILEPICTURE, i + ".png", i, i);
+    }
+
+    // Assert
+    assertThat(index.size()).isEqualTo(5000);
+    for (int i = 0; i < 5000; i++) {
+      assertThat(index.get(AssetType.PROFILEPICTURE, i + ".png").getSize()).isEqualTo(i);
+    }
+    index.close();
+  }
+
+  @Test
+  public void reopenAfterClose_keepsEntries() throws Exception {
+    // Setup
+    Path path = directory.resolve("index");
+    AssetIndex index = AssetIndex.create(path);
+    index.put(AssetType.PROFILEPICTURE, "1.jpg", 10, 100);
+
+    // Execute
+    index.close();
+    AssetIndex reopened = AssetIndex.open(path);
+
+    // Assert
+    assertThat(reopened).isNotNull();
+    assertThat(reopened.get(AssetType.PROFILEPICTURE, "1.jpg").getSize()).isEqualTo(10);
+    reopened.close();
+  }
+
+  @Test
+  public void openWithoutClose_notTrusted() throws Exception {
+    // Setup
+    Path path = directory.resolve("index");
+    AssetIndex index = AssetIndex.create(path);
+    index.put(AssetType.PROFILEPICTURE, "1.jpg", 10, 100);
+
+    // Execute
+    AssetIndex reopened = AssetIndex.open(path);
+
+    // Assert
+    assertThat(reopened).isNull();
+    index.close();
+  }
+
+  @Test
+  public void useAfterClose_ignored() throws Exception {
+    // Setup
+    AssetIndex index = AssetIndex.create(directory.resolve("index"));
+    index.put(AssetType.PROFILEPICTURE, "1.jpg", 10, 100);
+
+    // Execute
+    index.close();
+    index.put(AssetType.PROFILEPICTURE, "2.jpg", 20, 200);
+    index.remove(AssetType.PROFILEPICTURE, "1.jpg");
+
+    // Assert
+    assertThat(index.get(AssetType.PROFILEPICTURE, "1.jpg")).isNull();
+    assertThat(index.size()).isEqualTo(0);
+  }
+}
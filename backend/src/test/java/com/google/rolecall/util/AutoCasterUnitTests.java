@@ -0,0 +1,114 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class AutoCasterUnitTests {
+
+  @Test
+  public void solve_fillsConstrainedSlotFirst() {
+    // Setup
+    AutoCaster caster = new AutoCaster(new int[3], 1000);
+    caster.addSlot(0, dancers(0, 1));
+    caster.addSlot(0, dancers(0));
+
+    // Execute
+    int[] cast = caster.solve();
+
+    // Assert
+    assertThat(cast).asList().containsExactly(1, 0).inOrder();
+  }
+
+  @Test
+  public void solve_prefersLeastLoaded() {
+    // Setup
+    AutoCaster caster = new AutoCaster(new int[] {4, 1, 1}, 1000);
+    caster.addSlot(0, dancers(0, 1, 2));
+    caster.addSlot(1, dancers(0, 1, 2));
+
+    // Execute
+    int[] cast = caster.solve();
+
+    // Assert
+    assertThat(cast).asList().containsExactly(1, 2).inOrder();
+  }
+
+  @Test
+  public void solve_reservedDancerSkipped() {
+    // Setup
+    AutoCaster caster = new AutoCaster(new int[2], 1000);
+    caster.reserve(0, 0);
+    caster.addSlot(0, dancers(0, 1));
+    caster.addSlot(1, dancers(0));
+
+    // Execute
+    int[] cast = caster.solve();
+
+    // Assert
+    assertThat(cast).asList().containsExactly(1, 0).inOrder();
+  }
+
+  @Test
+  public void solve_notEnoughDancers_leavesFewestUnfilled() {
+    // Setup
+    AutoCaster caster = new AutoCaster(new int[2], 1000);
+    caster.addSlot(0, dancers(0, 1));
+    caster.addSlot(0, dancers(0));
+    caster.addSlot(0, dancers(0, 1));
+
+    // Execute
+    int[] cast = caster.solve();
+
+    // Assert
+    assertThat(cast).asList().containsExactly(1, 0, AutoCaster.UNFILLED).inOrder();
+  }
+
+  @Test
+  public void solve_syntheticCompany_fillsEverySlot() {
+    // Setup
+    int company = 120;
+    Random random = new Random(7);
+    AutoCaster caster = new AutoCaster(new int[company], 50000);
+    List<Integer> groups = new ArrayList<>();
+    for (int piece = 0; piece < 6; piece++) {
+      for (int position = 0; position < 6; position++) {
+        BitSet allowed = new BitSet(company);
+        while (allowed.cardinality() < 12) {
+          allowed.set(random.nextInt(company));
+        }
+        int size = 1 + random.nextInt(3);
+        for (int castNumber = 0; castNumber < 3; castNumber++) {
+          for (int order = 0; order < size; order++) {
+            caster.addSlot(castNumber, allowed);
+            groups.add(castNumber);
+          }
+        }
+      }
+    }
+
+    // Execute
+    int[] cast = caster.solve();
+
+    // Assert
+    Set<List<Integer>> castOnce = new HashSet<>();
+    for (int slot = 0; slot < cast.length; slot++) {
+      assertThat(cast[slot]).isNotEqualTo(AutoCaster.UNFILLED);
+      assertThat(castOnce.add(List.of(groups.get(slot), cast[slot]))).isTrue();
+    }
+  }
+
+  private BitSet dancers(int... indexes) {
+    BitSet dancers = new BitSet();
+    for (int index : indexes) {
+      dancers.set(index);
+    }
+    return dancers;
+  }
+}
@@ -0,0 +1,100 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.rolecall.models.UserAsset.AssetType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+public class CachingStorageServiceUnitTests {
+
+  private StorageService delegate;
+  private CachingStorageService storage;
+  private AtomicReference<String> stored;
+
+  @BeforeEach
+  public void init() throws Exception {
+    delegate = mock(StorageService.class);
+    storage = new CachingStorageService(delegate, new AssetCache(1024));
+    stored = new AtomicReference<>("old");
+    when(delegate.loadAsResource(AssetType.PROFILEPICTURE, "a.png")).thenAnswer(invocation -> {
+      if (stored.get() == null) {
+        throw new FileNotFoundException("a.png");
+      }
+      return new ByteArrayResource(stored.get().getBytes(StandardCharsets.UTF_8));
+    });
+  }
+
+  @Test
+  public void storeWhileRead_servesNewContent() throws Exception {
+    // Mock
+    doAnswer(invocation -> {
+      // A read racing the write caches the old bytes.
+      read();
+      stored.set("new");
+      return null;
+    }).when(delegate).store(any(InputStream.class), anyLong(), eq(AssetType.PROFILEPICTURE),
+        eq("a.png"));
+
+    // Execute
+    storage.store(new ByteArrayInputStream(new byte[3]), 3, AssetType.PROFILEPICTURE, "a.png");
+
+    // Assert
+    assertThat(read()).isEqualTo("new");
+  }
+
+  @Test
+  public void deleteWhileRead_doesNotServeDeletedContent() throws Exception {
+    // Mock
+    doAnswer(invocation -> {
+      read();
+      stored.set(null);
+      return null;
+    }).when(delegate).delete(AssetType.PROFILEPICTURE, "a.png");
+
+    // Execute
+    storage.delete(AssetType.PROFILEPICTURE, "a.png");
+
+    // Assert
+    assertThrows(FileNotFoundException.class, this::read);
+  }
+
+  @Test
+  public void loadDelegateFails_rethrowsUnchanged() throws Exception {
+    // Setup
+    IOException failure = new IOException("Backend unavailable");
+
+    // Mock
+    when(delegate.loadAsResource(AssetType.PROFILEPICTURE, "b.png")).thenThrow(failure);
+
+    // Execute
+    IOException exception = assertThrows(IOException.class,
+        () -> storage.loadAsResource(AssetType.PROFILEPICTURE, "b.png"));
+
+    // Assert
+    assertThat(exception).isSameInstanceAs(failure);
+  }
+
+  private String read() throws Exception {
+    try (InputStream content = storage.loadAsResource(AssetType.PROFILEPICTURE, "a.png")
+        .getInputStream()) {
+      return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
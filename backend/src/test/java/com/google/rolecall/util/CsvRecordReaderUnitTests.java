@@ -0,0 +1,38 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(MockitoExtension.class)
+@ExtendWith(SpringExtension.class)
+public class CsvRecordReaderUnitTests {
+
+  @Test
+  public void readPlainRecords_success() throws Exception {
+    // Setup
+    CsvRecordReader reader = new CsvRecordReader(new BufferedReader(
+        new StringReader("firstName,email\r\nJane,jane@gmail.com\n")));
+
+    // Execute & Assert
+    assertThat(reader.readRecord()).containsExactly("firstName", "email").inOrder();
+    assertThat(reader.readRecord()).containsExactly("Jane", "jane@gmail.com").inOrder();
+    assertThat(reader.readRecord()).isNull();
+  }
+
+  @Test
+  public void readQuotedRecord_success() throws Exception {
+    // Setup
+    CsvRecordReader reader = new CsvRecordReader(new BufferedReader(
+        new StringReader("\"Doe, Jane\",\"says \"\"hi\"\"\nagain\",\"\"")));
+
+    // Execute & Assert
+    assertThat(reader.readRecord())
+        .containsExactly("Doe, Jane", "says \"hi\"\nagain", "").inOrder();
+    assertThat(reader.readRecord()).isNull();
+  }
+}
@@ -0,0 +1,41 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketUnitTests {
+
+  @Test
+  public void tryAcquire_burstSpent_refillsAtRate() {
+    // Setup
+    AtomicLong nanos = new AtomicLong();
+    TokenBucket bucket = new TokenBucket(3, 2, nanos::get);
+
+    // Execute & Assert
+    assertThat(bucket.tryAcquire()).isTrue();
+    assertThat(bucket.tryAcquire()).isTrue();
+    assertThat(bucket.tryAcquire()).isTrue();
+    assertThat(bucket.tryAcquire()).isFalse();
+
+    nanos.addAndGet(500_000_000L);
+    assertThat(bucket.available()).isEqualTo(1);
+    assertThat(bucket.tryAcquire()).isTrue();
+    assertThat(bucket.tryAcquire()).isFalse();
+  }
+
+  @Test
+  public void available_longIdle_cappedAtCapacity() {
+    // Setup
+    AtomicLong nanos = new AtomicLong();
+    TokenBucket bucket = new TokenBucket(3, 2, nanos::get);
+    bucket.tryAcquire();
+
+    // Execute
+    nanos.addAndGet(60_000_000_000L);
+
+    // Assert
+    assertThat(bucket.available()).isEqualTo(3);
+  }
+}
@@ -0,0 +1,119 @@
+package com.google.rolecall.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.rolecall.models.ChangeRecord.ChangeType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(MockitoExtension.class)
+@ExtendWith(SpringExtension.class)
+public class VersionedCacheUnitTests {
+
+  private final List<List<Integer>> loads = new ArrayList<>();
+
+  @Test
+  public void getAllSameVersion_loadsOnce() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.SECTION, 10);
+    Map<Integer, Long> versions = Map.of(1, 5L, 2, 6L);
+
+    // Execute
+    List<String> first = cache.getAll(List.of(1, 2), versions, loader("v1"));
+    List<String> second = cache.getAll(List.of(2, 1), versions, loader("v2"));
+
+    // Assert
+    assertThat(first).containsExactly("1v1", "2v1").inOrder();
+    assertThat(second).containsExactly("2v1", "1v1").inOrder();
+    assertThat(loads).containsExactly(List.of(1, 2));
+    assertThat(cache.getHitCount()).isEqualTo(2);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void getAllNewVersion_reloadsOnlyChanged() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.SECTION, 10);
+    cache.getAll(List.of(1, 2), Map.of(1, 5L, 2, 6L), loader("v1"));
+
+    // Execute
+    List<String> values = cache.getAll(List.of(1, 2), Map.of(1, 5L, 2, 7L), loader("v2"));
+
+    // Assert
+    assertThat(values).containsExactly("1v1", "2v2").inOrder();
+    assertThat(loads.get(1)).containsExactly(2);
+  }
+
+  @Test
+  public void getAllWithoutVersion_notCached() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.CAST, 10);
+    cache.getAll(List.of(1), Map.of(), loader("v1"));
+
+    // Execute
+    List<String> values = cache.getAll(List.of(1), Map.of(), loader("v2"));
+
+    // Assert
+    assertThat(values).containsExactly("1v2");
+    assertThat(cache.getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void getAllOlderVersion_keepsNewerEntry() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.CAST, 10);
+    cache.getAll(List.of(1), Map.of(1, 7L), loader("new"));
+
+    // Execute
+    cache.getAll(List.of(1), Map.of(1, 6L), loader("old"));
+    List<String> values = cache.getAll(List.of(1), Map.of(1, 7L), loader("again"));
+
+    // Assert
+    assertThat(values).containsExactly("1new");
+  }
+
+  @Test
+  public void getAllMissingEntity_skipped() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.CAST, 10);
+
+    // Execute
+    List<String> values = cache.getAll(List.of(1, 2), Map.of(1, 1L, 2, 1L),
+        ids -> Map.of(2, "2"));
+
+    // Assert
+    assertThat(values).containsExactly("2");
+  }
+
+  @Test
+  public void invalidateAndEvict_success() {
+    // Setup
+    VersionedCache<String> cache = new VersionedCache<>(ChangeType.SECTION, 2);
+    Map<Integer, Long> versions = Map.of(1, 1L, 2, 1L, 3, 1L);
+    cache.getAll(List.of(1, 2), versions, loader("v1"));
+
+    // Execute
+    cache.getAll(List.of(3), versions, loader("v1"));
+    cache.invalidate(3);
+
+    // Assert
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(1);
+  }
+
+  private Function<List<Integer>, Map<Integer, String>> loader(String suffix) {
+    return ids -> {
+      loads.add(ids);
+      Map<Integer, String> values = new HashMap<>();
+      ids.forEach(id -> values.put(id, id + suffix));
+      return values;
+    };
+  }
+}
@@ -18,6 +18,7 @@ export type PictureInfo = {
   fileType: string;
   dateUploaded: number;
   ownerId: number;
+  fileName?: string;
 };
 
 export type CacheSetReturn = {
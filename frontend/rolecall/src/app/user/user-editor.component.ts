@@ -243,7 +243,8 @@ export class UserEditor implements OnInit, OnDestroy {
       const ret = await this.pictureApi.setPicture(this.formData);
       if (ret.ok.successful) {
         const picInfo = ret.rawItem as PictureInfo;
-        this.workingUser.picture_file = `${picInfo.id}.${picInfo.fileType}`;
+        this.workingUser.picture_file = picInfo.fileName ??
+            `${picInfo.id}.${picInfo.fileType}`;
         this.saveUserRecord();
       }
     }